@@ -28,7 +28,8 @@ CREATE TABLE IF NOT EXISTS users (
     active      TINYINT(1)   NOT NULL DEFAULT 1,
     created_at  DATETIME(6),
     updated_at  DATETIME(6),
-    PRIMARY KEY (id)
+    PRIMARY KEY (id),
+    INDEX idx_user_created_id (created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- ============================================================
@@ -56,6 +57,7 @@ CREATE TABLE IF NOT EXISTS vendors (
     active         TINYINT(1)   NOT NULL DEFAULT 1,
     created_at     DATETIME(6),
     updated_at     DATETIME(6),
+    version        BIGINT       NOT NULL DEFAULT 0,
     PRIMARY KEY (id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
@@ -72,12 +74,17 @@ CREATE TABLE IF NOT EXISTS orders (
     status      VARCHAR(30)   NOT NULL DEFAULT 'PENDING',
     created_at  DATETIME(6),
     updated_at  DATETIME(6),
+    version     BIGINT        NOT NULL DEFAULT 0,
     PRIMARY KEY (id),
     CONSTRAINT fk_order_user   FOREIGN KEY (user_id)   REFERENCES users(id),
     CONSTRAINT fk_order_vendor FOREIGN KEY (vendor_id) REFERENCES vendors(id),
-    INDEX idx_order_status   (status),
-    INDEX idx_order_user_id  (user_id),
-    INDEX idx_order_vendor_id(vendor_id)
+    INDEX idx_order_created_id (created_at, id),
+    INDEX idx_order_status_created_id (status, created_at, id),
+    INDEX idx_order_vendor_status_created (vendor_id, status, created_at),
+    INDEX idx_order_user_status_created (user_id, status, created_at),
+    INDEX idx_order_priority_status_created (priority, status, created_at),
+    INDEX idx_order_location_created (location, created_at),
+    INDEX idx_order_updated (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- ============================================================
@@ -92,9 +99,12 @@ CREATE TABLE IF NOT EXISTS payments (
     transaction_id VARCHAR(100),
     payment_date   DATETIME(6),
     created_at     DATETIME(6),
+    updated_at     DATETIME(6),
+    version        BIGINT         NOT NULL DEFAULT 0,
     PRIMARY KEY (id),
     CONSTRAINT fk_payment_order FOREIGN KEY (order_id) REFERENCES orders(id),
-    INDEX idx_payment_status (status)
+    INDEX idx_payment_status (status),
+    INDEX idx_payment_created_id (created_at, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- ============================================================
@@ -112,6 +122,111 @@ CREATE TABLE IF NOT EXISTS status_tracking (
     INDEX idx_st_order_id (order_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- ============================================================
+-- Table: refresh_tokens
+-- ============================================================
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id    BIGINT      NOT NULL,
+    token_hash CHAR(64)    NOT NULL,
+    family_id  VARCHAR(36) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    revoked    TINYINT(1)  NOT NULL DEFAULT 0,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_rt_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    UNIQUE INDEX idx_rt_token_hash (token_hash),
+    INDEX idx_rt_family  (family_id),
+    INDEX idx_rt_user_id (user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ============================================================
+-- Table: order_import_checkpoints
+-- ============================================================
+CREATE TABLE IF NOT EXISTS order_import_checkpoints (
+    import_id  VARCHAR(64) NOT NULL,
+    last_row   BIGINT      NOT NULL,
+    created    BIGINT      NOT NULL,
+    rejected   BIGINT      NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (import_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ============================================================
+-- Table: order_stats
+-- ============================================================
+CREATE TABLE IF NOT EXISTS order_stats (
+    id        BIGINT       NOT NULL AUTO_INCREMENT,
+    dimension VARCHAR(16)  NOT NULL,
+    bucket    VARCHAR(255) NOT NULL,
+    status    VARCHAR(20)  NOT NULL,
+    orders    BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE INDEX uk_order_stat_cell (dimension, bucket, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ============================================================
+-- Table: sla_breaches
+-- ============================================================
+CREATE TABLE IF NOT EXISTS sla_breaches (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    order_id    BIGINT      NOT NULL,
+    kind        VARCHAR(16) NOT NULL,
+    status      VARCHAR(20) NOT NULL,
+    deadline    DATETIME(6) NOT NULL,
+    breached_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_sla_order FOREIGN KEY (order_id) REFERENCES orders(id),
+    UNIQUE INDEX uk_sla_breach (order_id, kind, deadline),
+    INDEX idx_sla_breach_breached (breached_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ============================================================
+-- Table: outbox_events
+-- ============================================================
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    event_id        VARCHAR(36)  NOT NULL,
+    endpoint        VARCHAR(64)  NOT NULL,
+    aggregate_type  VARCHAR(32)  NOT NULL,
+    aggregate_id    BIGINT       NOT NULL,
+    event_type      VARCHAR(64)  NOT NULL,
+    payload         TEXT         NOT NULL,
+    status          VARCHAR(16)  NOT NULL,
+    attempts        INT          NOT NULL,
+    next_attempt_at DATETIME(6)  NOT NULL,
+    locked_by       VARCHAR(36),
+    locked_until    DATETIME(6),
+    last_error      VARCHAR(500),
+    created_at      DATETIME(6)  NOT NULL,
+    delivered_at    DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_outbox_due (status, next_attempt_at),
+    INDEX idx_outbox_aggregate (endpoint, aggregate_type, aggregate_id, status),
+    INDEX idx_outbox_delivered (delivered_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- ============================================================
+-- Table: idempotency_keys
+-- ============================================================
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    scope           VARCHAR(16)  NOT NULL,
+    user_id         BIGINT       NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash    VARCHAR(64)  NOT NULL,
+    status          VARCHAR(16)  NOT NULL,
+    response_status INT,
+    response_body   TEXT,
+    locked_by       VARCHAR(36),
+    locked_until    DATETIME(6),
+    created_at      DATETIME(6)  NOT NULL,
+    completed_at    DATETIME(6),
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_idempotency_key (scope, user_id, idempotency_key),
+    INDEX idx_idempotency_created (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
 
 -- ============================================================
 -- SAMPLE DATA
@@ -2,8 +2,10 @@ package com.facilitydesk.facility_desk;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FacilityDeskApplication {
     public static void main(String[] args) {
         SpringApplication.run(FacilityDeskApplication.class, args);
@@ -0,0 +1,51 @@
+package com.facilitydesk.facility_desk.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token-bucket limits per route group, e.g.
+ * <pre>
+ * app.rate-limit.groups.orders.pattern=/api/orders/**
+ * app.rate-limit.groups.orders.capacity=120
+ * app.rate-limit.groups.orders.refill-per-second=2
+ * app.rate-limit.groups.orders.roles.admin.capacity=600
+ * </pre>
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private Map<String, @Valid Group> groups = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        // A zero refill rate would make the emission interval infinite and overflow the tolerance
+        @Min(1)
+        private int capacity = 60;
+        @Positive
+        private double refillPerSecond = 1.0;
+    }
+
+    @Getter
+    @Setter
+    public static class Group extends Limit {
+        private String pattern;
+        // Optional HTTP method restriction, e.g. GET for the public vendor listing
+        private String method;
+        // Overrides keyed by role name without the ROLE_ prefix, lower case
+        private Map<String, @Valid Limit> roles = new LinkedHashMap<>();
+    }
+}
@@ -1,10 +1,18 @@
 package com.facilitydesk.facility_desk.config;
 
+import com.facilitydesk.facility_desk.security.AdaptiveBCryptPasswordEncoder;
 import com.facilitydesk.facility_desk.security.AuthEntryPointJwt;
 import com.facilitydesk.facility_desk.security.AuthTokenFilter;
 import com.facilitydesk.facility_desk.security.JwtUtils;
+import com.facilitydesk.facility_desk.security.RateLimitFilter;
+import com.facilitydesk.facility_desk.security.TokenRevocationStore;
 import com.facilitydesk.facility_desk.security.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,7 +23,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -23,16 +30,43 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final UserDetailsServiceImpl userDetailsService;
     private final AuthEntryPointJwt unauthorizedHandler;
     private final JwtUtils jwtUtils;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RateLimitProperties rateLimitProperties;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.claims-principal:true}")
+    private boolean claimsPrincipalEnabled;
+
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    // When positive, raise the work factor as far as this per-hash budget allows on this host
+    @Value("${app.security.bcrypt.calibrate-target-ms:0}")
+    private long bcryptCalibrateTargetMs;
 
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
-        return new AuthTokenFilter(jwtUtils, userDetailsService);
+        return new AuthTokenFilter(jwtUtils, userDetailsService, tokenRevocationStore, claimsPrincipalEnabled);
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(rateLimitProperties, meterRegistry);
+    }
+
+    // Runs inside the security chain, after the JWT filter, so it must not also be registered as a servlet filter
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
     }
 
     @Bean
@@ -40,6 +74,7 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -50,7 +85,10 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptCalibrateTargetMs > 0
+                ? AdaptiveBCryptPasswordEncoder.calibrate(bcryptStrength, bcryptCalibrateTargetMs)
+                : bcryptStrength;
+        return new AdaptiveBCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -59,13 +97,19 @@ public class SecurityConfig {
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(unauthorizedHandler))
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Async and error dispatches (streamed responses, error pages for them) were
+                        // authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                         // Public endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/api-docs/**", "/swagger-ui.html").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/vendors/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
 
                         // Admin only
                         .requestMatchers("/api/users/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         // Vendor endpoints
                         .requestMatchers(HttpMethod.POST, "/api/vendors/**").hasAnyRole("ADMIN", "VENDOR")
@@ -90,6 +134,7 @@ public class SecurityConfig {
 
         http.authenticationProvider(authenticationProvider());
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(rateLimitFilter(), AuthTokenFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,49 @@
+package com.facilitydesk.facility_desk.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contractual SLA targets per order priority, falling back to the defaults for any target a
+ * priority does not set, e.g.
+ * <pre>
+ * app.sla.defaults.response=8h
+ * app.sla.defaults.resolution=5d
+ * app.sla.priorities.URGENT.response=1h
+ * app.sla.priorities.URGENT.resolution=8h
+ * </pre>
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.sla")
+public class SlaProperties {
+
+    private boolean enabled = true;
+    // Wheel resolution; a deadline fires within about two ticks of passing
+    private long tickMs = 1000;
+    // Fetch size of the startup load of open orders; Integer.MIN_VALUE streams rows on MySQL
+    private int fetchSize = Integer.MIN_VALUE;
+    private Targets defaults = new Targets(Duration.ofHours(8), Duration.ofDays(5), Duration.ofDays(3));
+    // Keyed by priority, matched case-insensitively
+    private Map<String, Targets> priorities = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Targets {
+        // From creation until work starts (the order leaves PENDING and ASSIGNED)
+        private Duration response;
+        // From creation until the order is COMPLETED
+        private Duration resolution;
+        // Longest single stretch in ON_HOLD
+        private Duration hold;
+    }
+}
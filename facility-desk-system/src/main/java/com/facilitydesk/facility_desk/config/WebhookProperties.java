@@ -0,0 +1,71 @@
+package com.facilitydesk.facility_desk.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP endpoints that receive order and payment events from the outbox, e.g.
+ * <pre>
+ * app.webhooks.endpoints.cmms.url=https://cmms.example.com/hooks/facility-desk
+ * app.webhooks.endpoints.cmms.secret=change-me
+ * app.webhooks.endpoints.cmms.events=order.*
+ * app.webhooks.endpoints.billing.url=https://billing.example.com/events
+ * app.webhooks.endpoints.billing.events=payment.*,order.status_changed
+ * </pre>
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.webhooks")
+public class WebhookProperties {
+
+    private boolean enabled = true;
+    private long pollIntervalMs = 1000;
+    // Rows claimed per round; a full batch is followed by another round straight away
+    private int batchSize = 200;
+    // How long claimed rows stay reserved before another round may claim them again
+    private Duration lease = Duration.ofMinutes(2);
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    // Attempts before a row is marked FAILED; a non-retryable response fails it at once
+    private int maxAttempts = 12;
+    private Duration initialBackoff = Duration.ofSeconds(5);
+    private Duration maxBackoff = Duration.ofHours(1);
+    // Delivered rows older than this are purged
+    private Duration retention = Duration.ofDays(7);
+    private long purgeIntervalMs = 3_600_000;
+    // Keyed by endpoint name, which is stored with each outbox row
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+        private String url;
+        // Signs each request with HMAC-SHA256 when set
+        private String secret;
+        // Event types, exact or with a trailing *; empty receives every event
+        private List<String> events = new ArrayList<>();
+        // Requests in flight to this endpoint at once
+        private int maxConcurrency = 4;
+        private Duration timeout = Duration.ofSeconds(10);
+
+        public boolean accepts(String eventType) {
+            if (events.isEmpty()) {
+                return true;
+            }
+            for (String pattern : events) {
+                if (pattern.endsWith("*")
+                        ? eventType.startsWith(pattern.substring(0, pattern.length() - 1))
+                        : eventType.equals(pattern)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -4,12 +4,16 @@ import com.facilitydesk.facility_desk.dto.AuthDto;
 import com.facilitydesk.facility_desk.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -21,10 +25,29 @@ public class AuthController {
 
     @PostMapping("/login")
     @Operation(summary = "Login", description = "Authenticate user and return JWT token")
-    public ResponseEntity<AuthDto.JwtResponse> authenticateUser(
-            @Valid @RequestBody AuthDto.LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<AuthDto.JwtResponse>> authenticateUser(
+            @Valid @RequestBody AuthDto.LoginRequest loginRequest,
+            HttpServletRequest request) {
         log.info("Login attempt for user: {}", loginRequest.getUsername());
-        return ResponseEntity.ok(authService.authenticateUser(loginRequest));
+        return authService.authenticateUser(loginRequest, request.getRemoteAddr()).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Logout",
+            description = "Revoke the bearer token sent with this request and, if supplied, its refresh token")
+    public ResponseEntity<AuthDto.MessageResponse> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) AuthDto.RefreshRequest refreshRequest) {
+        String token = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        return ResponseEntity.ok(authService.logout(token, refreshRequest));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh", description = "Exchange a refresh token for a new access/refresh token pair")
+    public ResponseEntity<AuthDto.JwtResponse> refreshToken(
+            @Valid @RequestBody AuthDto.RefreshRequest request) {
+        return ResponseEntity.ok(authService.refreshToken(request));
     }
 
     @PostMapping("/register")
@@ -1,20 +1,41 @@
 package com.facilitydesk.facility_desk.controller;
 
+import com.facilitydesk.facility_desk.dto.CursorPage;
+import com.facilitydesk.facility_desk.dto.EntityTag;
 import com.facilitydesk.facility_desk.dto.OrderDto;
 import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.OrderImportCheckpoint;
+import com.facilitydesk.facility_desk.service.DataFormat;
+import com.facilitydesk.facility_desk.service.ExportService;
+import com.facilitydesk.facility_desk.service.IdempotencyStore;
+import com.facilitydesk.facility_desk.service.OrderBulkService;
+import com.facilitydesk.facility_desk.service.OrderImportService;
 import com.facilitydesk.facility_desk.service.OrderService;
+import com.facilitydesk.facility_desk.service.OrderStatsRollup;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -24,14 +45,74 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderBulkService orderBulkService;
+    private final OrderImportService orderImportService;
+    private final ExportService exportService;
+    private final OrderStatsRollup orderStatsRollup;
+    private final IdempotencyStore idempotencyStore;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'VENDOR', 'EMPLOYEE')")
-    @Operation(summary = "Get all orders (with optional status filter)")
+    @Operation(summary = "Get all orders, filtered by any combination of status, priority, location prefix, " +
+            "vendor, user and created/updated date ranges")
     public ResponseEntity<Page<OrderDto.Response>> getAllOrders(
-            @RequestParam(required = false) Order.OrderStatus status,
+            @ParameterObject OrderDto.SearchCriteria criteria,
             @PageableDefault(size = 10, sort = "createdAt") Pageable pageable) {
-        return ResponseEntity.ok(orderService.getAllOrders(status, pageable));
+        return ResponseEntity.ok(orderService.getAllOrders(criteria, pageable));
+    }
+
+    @GetMapping("/scroll")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VENDOR', 'EMPLOYEE')")
+    @Operation(summary = "Scroll all orders newest first using a continuation cursor (no count query)")
+    public ResponseEntity<CursorPage<OrderDto.Response>> scrollOrders(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(orderService.getOrdersAfter(status, cursor, size));
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VENDOR', 'EMPLOYEE')")
+    @Operation(summary = "Full-text search over order descriptions and locations, ranked by relevance; " +
+            "results and totalElements stop at 1000, so a total of 1000 means 1000 or more")
+    public ResponseEntity<Page<OrderDto.Response>> searchOrders(
+            @RequestParam String q,
+            @RequestParam(required = false) Set<Order.OrderStatus> status,
+            @PageableDefault(size = 10) Pageable pageable) {
+        return ResponseEntity.ok(orderService.searchOrders(q, status, pageable));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream every matching order with its user, vendor, payment and latest status " +
+            "as CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(defaultValue = "CSV") DataFormat format) {
+        StreamingResponseBody body = out -> exportService.exportOrders(status, createdFrom, createdTo, format, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(format.fileName("orders")).build().toString())
+                .contentType(format.mediaType())
+                .body(body);
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    @Operation(summary = "Dashboard counts by status, overall and per priority, location and creation day " +
+            "(last `days` days), served from the incrementally maintained rollup")
+    public ResponseEntity<OrderDto.Stats> getStats(@RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(orderStatsRollup.getStats(days));
+    }
+
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recompute the dashboard rollup from the orders table")
+    public ResponseEntity<OrderDto.Stats> rebuildStats(@RequestParam(defaultValue = "30") int days) {
+        orderStatsRollup.rebuild();
+        return ResponseEntity.ok(orderStatsRollup.getStats(days));
     }
 
     @GetMapping("/my")
@@ -51,16 +132,25 @@ public class OrderController {
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get order by ID")
-    public ResponseEntity<OrderDto.Response> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrderById(id));
+    @Operation(summary = "Get order by ID; answers If-None-Match / If-Modified-Since with 304")
+    public ResponseEntity<OrderDto.Response> getOrderById(@PathVariable Long id, WebRequest webRequest) {
+        // The tag is read before the body, so it is never newer than the representation it is sent with
+        EntityTag tag = orderService.getOrderTag(id);
+        if (webRequest.checkNotModified(tag.header(), tag.lastModifiedMillis())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(orderService.getOrderById(id));
     }
 
     @PostMapping
-    @Operation(summary = "Create a new order/request")
+    @Operation(summary = "Create a new order/request; a retry with the same Idempotency-Key replays the first response")
     public ResponseEntity<OrderDto.Response> createOrder(
-            @Valid @RequestBody OrderDto.Request request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrder(request));
+            @Valid @RequestBody OrderDto.Request request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(IdempotencyStore.ORDERS, idempotencyKey, request, OrderDto.Response.class,
+                () -> orderService.createOrder(request));
     }
 
     @PutMapping("/{id}/status")
@@ -68,8 +158,38 @@ public class OrderController {
     @Operation(summary = "Update order status")
     public ResponseEntity<OrderDto.Response> updateOrderStatus(
             @PathVariable Long id,
-            @RequestBody OrderDto.StatusUpdateRequest request) {
-        return ResponseEntity.ok(orderService.updateOrderStatus(id, request));
+            @RequestBody OrderDto.StatusUpdateRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return ResponseEntity.ok(orderService.updateOrderStatus(id, request, ifMatch));
+    }
+
+    @PutMapping("/bulk/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VENDOR', 'EMPLOYEE')")
+    @Operation(summary = "Move many orders to one status in a single transaction; reports the result per order")
+    public ResponseEntity<OrderDto.BulkStatusResponse> updateOrderStatuses(
+            @Valid @RequestBody OrderDto.BulkStatusRequest request) {
+        return ResponseEntity.ok(orderBulkService.updateStatuses(request));
+    }
+
+    @PostMapping(value = "/import", consumes = {DataFormat.CSV_VALUE, DataFormat.NDJSON_VALUE},
+            produces = DataFormat.NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Bulk import orders from CSV or NDJSON in chunked commits; re-send the same importId " +
+            "to resume after the last committed row (409 while another upload of it is running)")
+    public ResponseEntity<StreamingResponseBody> importOrders(
+            @RequestParam(required = false) String importId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request,
+            Principal principal) {
+        DataFormat format = DataFormat.of(contentType);
+        String id = orderImportService.resolveImportId(importId);
+        // Claimed before the 200 goes out, so a concurrent upload of the same import gets its 409
+        OrderImportCheckpoint checkpoint = orderImportService.claim(id);
+        // Resolved here because the security context is not available on the streaming thread
+        String importedBy = principal.getName();
+        StreamingResponseBody body = out ->
+                orderImportService.importOrders(request.getInputStream(), format, checkpoint, importedBy, out);
+        return ResponseEntity.ok().contentType(DataFormat.NDJSON.mediaType()).body(body);
     }
 
     @PutMapping("/{id}/assign")
@@ -77,8 +197,9 @@ public class OrderController {
     @Operation(summary = "Assign order to a vendor")
     public ResponseEntity<OrderDto.Response> assignVendor(
             @PathVariable Long id,
-            @RequestBody OrderDto.AssignRequest request) {
-        return ResponseEntity.ok(orderService.assignVendor(id, request));
+            @RequestBody OrderDto.AssignRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return ResponseEntity.ok(orderService.assignVendor(id, request, ifMatch));
     }
 
     @DeleteMapping("/{id}")
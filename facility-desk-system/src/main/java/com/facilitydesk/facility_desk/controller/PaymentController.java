@@ -1,6 +1,12 @@
 package com.facilitydesk.facility_desk.controller;
 
+import com.facilitydesk.facility_desk.dto.CursorPage;
+import com.facilitydesk.facility_desk.dto.EntityTag;
 import com.facilitydesk.facility_desk.dto.PaymentDto;
+import com.facilitydesk.facility_desk.model.Payment;
+import com.facilitydesk.facility_desk.service.DataFormat;
+import com.facilitydesk.facility_desk.service.ExportService;
+import com.facilitydesk.facility_desk.service.IdempotencyStore;
 import com.facilitydesk.facility_desk.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -10,10 +16,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -23,6 +33,8 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final ExportService exportService;
+    private final IdempotencyStore idempotencyStore;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -32,10 +44,39 @@ public class PaymentController {
         return ResponseEntity.ok(paymentService.getAllPayments(pageable));
     }
 
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Scroll all payments newest first using a continuation cursor (no count query)")
+    public ResponseEntity<CursorPage<PaymentDto.Response>> scrollPayments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(paymentService.getPaymentsAfter(cursor, size));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream every payment, optionally of one status, as CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(required = false) Payment.PaymentStatus status,
+            @RequestParam(defaultValue = "CSV") DataFormat format) {
+        StreamingResponseBody body = out -> exportService.exportPayments(status, format, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(format.fileName("payments")).build().toString())
+                .contentType(format.mediaType())
+                .body(body);
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Get payment by ID")
-    public ResponseEntity<PaymentDto.Response> getPaymentById(@PathVariable Long id) {
-        return ResponseEntity.ok(paymentService.getPaymentById(id));
+    @Operation(summary = "Get payment by ID; answers If-None-Match / If-Modified-Since with 304")
+    public ResponseEntity<PaymentDto.Response> getPaymentById(@PathVariable Long id, WebRequest webRequest) {
+        EntityTag tag = paymentService.getPaymentTag(id);
+        if (webRequest.checkNotModified(tag.header(), tag.lastModifiedMillis())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(paymentService.getPaymentById(id));
     }
 
     @GetMapping("/order/{orderId}")
@@ -45,10 +86,12 @@ public class PaymentController {
     }
 
     @PostMapping
-    @Operation(summary = "Create payment for an order")
+    @Operation(summary = "Create payment for an order; a retry with the same Idempotency-Key replays the first response")
     public ResponseEntity<PaymentDto.Response> createPayment(
-            @Valid @RequestBody PaymentDto.Request request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(paymentService.createPayment(request));
+            @Valid @RequestBody PaymentDto.Request request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(IdempotencyStore.PAYMENTS, idempotencyKey, request, PaymentDto.Response.class,
+                () -> paymentService.createPayment(request));
     }
 
     @PutMapping("/{id}/status")
@@ -56,8 +99,9 @@ public class PaymentController {
     @Operation(summary = "Update payment status")
     public ResponseEntity<PaymentDto.Response> updatePaymentStatus(
             @PathVariable Long id,
-            @Valid @RequestBody PaymentDto.StatusUpdateRequest request) {
-        return ResponseEntity.ok(paymentService.updatePaymentStatus(id, request));
+            @Valid @RequestBody PaymentDto.StatusUpdateRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return ResponseEntity.ok(paymentService.updatePaymentStatus(id, request, ifMatch));
     }
 
     @DeleteMapping("/{id}")
@@ -1,13 +1,20 @@
 package com.facilitydesk.facility_desk.controller;
 
 import com.facilitydesk.facility_desk.dto.StatusTrackingDto;
+import com.facilitydesk.facility_desk.service.DataFormat;
+import com.facilitydesk.facility_desk.service.ExportService;
 import com.facilitydesk.facility_desk.service.StatusTrackingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,6 +26,30 @@ import java.util.List;
 public class StatusTrackingController {
 
     private final StatusTrackingService statusTrackingService;
+    private final ExportService exportService;
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream the complete status history of all orders as CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportStatusHistory(
+            @RequestParam(defaultValue = "CSV") DataFormat format) {
+        StreamingResponseBody body = out -> exportService.exportStatusHistory(format, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(format.fileName("status-history")).build().toString())
+                .contentType(format.mediaType())
+                .body(body);
+    }
+
+    @GetMapping("/stream")
+    @Operation(summary = "Stream live status changes (Server-Sent Events) for an order, a user or a vendor; "
+            + "defaults to the caller's own orders")
+    public SseEmitter streamStatusChanges(
+            @RequestParam(required = false) Long orderId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long vendorId) {
+        return statusTrackingService.subscribe(orderId, userId, vendorId);
+    }
 
     @GetMapping("/order/{orderId}")
     @Operation(summary = "Get full status history for an order")
@@ -1,18 +1,25 @@
 package com.facilitydesk.facility_desk.controller;
 
+import com.facilitydesk.facility_desk.dto.CursorPage;
 import com.facilitydesk.facility_desk.dto.UserDto;
+import com.facilitydesk.facility_desk.service.DataFormat;
+import com.facilitydesk.facility_desk.service.UserImportService;
 import com.facilitydesk.facility_desk.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/users")
@@ -23,6 +30,7 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
 
     @GetMapping
     @Operation(summary = "Get all users")
@@ -31,6 +39,14 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsers(pageable));
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "Scroll all users newest first using a continuation cursor (no count query)")
+    public ResponseEntity<CursorPage<UserDto.Response>> scrollUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(userService.getUsersAfter(cursor, size));
+    }
+
     @GetMapping("/active")
     @Operation(summary = "Get all active users")
     public ResponseEntity<Page<UserDto.Response>> getActiveUsers(
@@ -38,6 +54,17 @@ public class UserController {
         return ResponseEntity.ok(userService.getActiveUsers(pageable));
     }
 
+    @PostMapping(value = "/bulk", consumes = {DataFormat.CSV_VALUE, DataFormat.NDJSON_VALUE},
+            produces = DataFormat.NDJSON_VALUE)
+    @Operation(summary = "Bulk import users from CSV or NDJSON; streams one result line per row")
+    public ResponseEntity<StreamingResponseBody> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request) {
+        DataFormat format = DataFormat.of(contentType);
+        StreamingResponseBody body = out -> userImportService.importUsers(request.getInputStream(), format, out);
+        return ResponseEntity.ok().contentType(DataFormat.NDJSON.mediaType()).body(body);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get user by ID")
     public ResponseEntity<UserDto.Response> getUserById(@PathVariable Long id) {
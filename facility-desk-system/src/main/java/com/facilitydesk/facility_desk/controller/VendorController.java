@@ -1,5 +1,6 @@
 package com.facilitydesk.facility_desk.controller;
 
+import com.facilitydesk.facility_desk.dto.EntityTag;
 import com.facilitydesk.facility_desk.dto.VendorDto;
 import com.facilitydesk.facility_desk.service.VendorService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,10 +11,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/vendors")
@@ -39,10 +43,30 @@ public class VendorController {
         return ResponseEntity.ok(vendorService.searchVendors(keyword, pageable));
     }
 
+    @GetMapping("/workload")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE', 'VENDOR')")
+    @Operation(summary = "Order counts by status for the whole vendor fleet, busiest vendors first")
+    public ResponseEntity<VendorDto.FleetWorkload> getFleetWorkload() {
+        return ResponseEntity.ok(vendorService.getFleetWorkload());
+    }
+
+    @GetMapping("/{id}/workload")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE', 'VENDOR')")
+    @Operation(summary = "Live order counts by status for one vendor")
+    public ResponseEntity<VendorDto.Workload> getVendorWorkload(@PathVariable Long id) {
+        return ResponseEntity.ok(vendorService.getWorkload(id));
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Get vendor by ID")
-    public ResponseEntity<VendorDto.Response> getVendorById(@PathVariable Long id) {
-        return ResponseEntity.ok(vendorService.getVendorById(id));
+    @Operation(summary = "Get vendor by ID; answers If-None-Match with 304")
+    public ResponseEntity<VendorDto.Response> getVendorById(@PathVariable Long id, WebRequest webRequest) {
+        EntityTag tag = vendorService.getVendorTag(id);
+        if (webRequest.checkNotModified(tag.header(), tag.lastModifiedMillis())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(vendorService.getVendorById(id));
     }
 
     @PostMapping
@@ -58,8 +82,9 @@ public class VendorController {
     @Operation(summary = "Update vendor")
     public ResponseEntity<VendorDto.Response> updateVendor(
             @PathVariable Long id,
-            @Valid @RequestBody VendorDto.Request request) {
-        return ResponseEntity.ok(vendorService.updateVendor(id, request));
+            @Valid @RequestBody VendorDto.Request request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return ResponseEntity.ok(vendorService.updateVendor(id, request, ifMatch));
     }
 
     @DeleteMapping("/{id}")
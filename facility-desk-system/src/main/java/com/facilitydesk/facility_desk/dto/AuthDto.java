@@ -35,17 +35,26 @@ public class AuthDto {
         private String password;
     }
 
+    @Data
+    public static class RefreshRequest {
+        @NotBlank(message = "Refresh token is required")
+        private String refreshToken;
+    }
+
     @Data
     public static class JwtResponse {
         private String token;
+        private String refreshToken;
         private String type = "Bearer";
         private Long id;
         private String username;
         private String email;
         private Set<String> roles;
 
-        public JwtResponse(String token, Long id, String username, String email, Set<String> roles) {
+        public JwtResponse(String token, String refreshToken, Long id, String username, String email,
+                           Set<String> roles) {
             this.token = token;
+            this.refreshToken = refreshToken;
             this.id = id;
             this.username = username;
             this.email = email;
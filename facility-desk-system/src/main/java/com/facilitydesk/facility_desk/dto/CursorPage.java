@@ -0,0 +1,74 @@
+package com.facilitydesk.facility_desk.dto;
+
+import com.facilitydesk.facility_desk.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a newest-first listing ordered by {@code (createdAt, id)}. The next page is
+ * requested with {@link #nextCursor}, an opaque token holding the last row's sort key, so
+ * every page is an index seek with no OFFSET and no count query.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    // One extra row is fetched to learn whether another page exists
+    public static Limit probeLimit(int size) {
+        return Limit.of(size + 1);
+    }
+
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, Key> keyOf, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? keyOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), size, hasNext, next);
+    }
+
+    public record Key(LocalDateTime createdAt, Long id) {
+
+        public static final Key FIRST = new Key(null, null);
+
+        public boolean isFirst() {
+            return createdAt == null;
+        }
+
+        public String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Key decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return FIRST;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Key(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+    }
+}
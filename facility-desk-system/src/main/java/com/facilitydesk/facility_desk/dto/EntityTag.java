@@ -0,0 +1,65 @@
+package com.facilitydesk.facility_desk.dto;
+
+import com.facilitydesk.facility_desk.exception.PreconditionFailedException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Validators of one resource representation: a strong ETag built from the entity id and the
+ * version counters of everything the representation shows, and, where the representation has
+ * one, its last modification time. Conditional GETs are answered from these alone, and
+ * {@code If-Match} on updates is checked against the same tag.
+ */
+public record EntityTag(String value, LocalDateTime lastModified) {
+
+    public static EntityTag of(LocalDateTime lastModified, Object... parts) {
+        return new EntityTag(Arrays.stream(parts)
+                .filter(Objects::nonNull)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-")), lastModified);
+    }
+
+    /** The quoted header form, e.g. {@code "12-3"}. */
+    public String header() {
+        return '"' + value + '"';
+    }
+
+    /** Epoch millis for conditional checks, or -1 when there is no modification time. */
+    public long lastModifiedMillis() {
+        return lastModified != null ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    /** Rejects an update with 412 unless {@code ifMatch} is absent or matches this tag. */
+    public void checkIfMatch(String ifMatch, String resource) {
+        if (ifMatch != null && !matches(ifMatch, false)) {
+            throw new PreconditionFailedException(resource + " has changed since it was read");
+        }
+    }
+
+    /**
+     * Like {@link #checkIfMatch}, but also accepts tags that continue this one with further
+     * parts, e.g. {@code "12-3-40"} for {@code "12-3"}: for representations whose tag carries
+     * live values that an update does not depend on.
+     */
+    public void checkIfMatchPrefix(String ifMatch, String resource) {
+        if (ifMatch != null && !matches(ifMatch, true)) {
+            throw new PreconditionFailedException(resource + " has changed since it was read");
+        }
+    }
+
+    // Strong comparison against a list of quoted tags or *; weak tags never match
+    private boolean matches(String ifMatch, boolean prefix) {
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(header())
+                    || (prefix && tag.startsWith("\"" + value + "-") && tag.endsWith("\""))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,9 +2,18 @@ package com.facilitydesk.facility_desk.dto;
 
 import com.facilitydesk.facility_desk.model.Order;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 public class OrderDto {
 
@@ -19,6 +28,8 @@ public class OrderDto {
     }
 
     @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class Response {
         private Long id;
         private Long userId;
@@ -33,6 +44,28 @@ public class OrderDto {
         private LocalDateTime updatedAt;
     }
 
+    // Every field is optional; date ranges are [from, to)
+    @Data
+    public static class SearchCriteria {
+        private Order.OrderStatus status;
+        private String priority;
+        private String location;
+        private Long vendorId;
+        private Long userId;
+
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private LocalDateTime createdFrom;
+
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private LocalDateTime createdTo;
+
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private LocalDateTime updatedFrom;
+
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private LocalDateTime updatedTo;
+    }
+
     @Data
     public static class StatusUpdateRequest {
         private Order.OrderStatus status;
@@ -40,9 +73,83 @@ public class OrderDto {
         private Long vendorId;
     }
 
+    @Data
+    public static class BulkStatusRequest {
+        @NotEmpty(message = "At least one order ID is required")
+        @Size(max = 1000, message = "At most 1000 orders per request")
+        private List<@NotNull Long> orderIds;
+
+        @NotNull(message = "Status is required")
+        private Order.OrderStatus status;
+
+        private String remarks;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class BulkStatusResult {
+        private Long orderId;
+        private boolean updated;
+        private Order.OrderStatus previousStatus;
+        private String message;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class BulkStatusResponse {
+        private int requested;
+        private int updated;
+        private int rejected;
+        private List<BulkStatusResult> results;
+    }
+
+    @Data
+    public static class ImportRow {
+        private String username;
+        // Vendor id, or an exact vendor name
+        private String vendor;
+        private String description;
+        private String location;
+        private String priority;
+        private String status;
+        private LocalDateTime createdAt;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ImportRejection {
+        private long row;
+        private String message;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ImportProgress {
+        private String importId;
+        private long lastRow;
+        private long created;
+        private long rejected;
+        private long skipped;
+        private boolean done;
+        private String error;
+    }
+
     @Data
     public static class AssignRequest {
         private Long vendorId;
         private String remarks;
     }
+
+    // Served from the order_stats rollup; buckets with no orders are left out
+    @Data
+    public static class Stats {
+        private long totalOrders;
+        // Orders not yet COMPLETED or CANCELLED
+        private long openOrders;
+        private Map<Order.OrderStatus, Long> byStatus;
+        private Map<String, Map<Order.OrderStatus, Long>> byPriority;
+        private Map<String, Map<Order.OrderStatus, Long>> byLocation;
+        // Creation day, most recent days only
+        private Map<LocalDate, Map<Order.OrderStatus, Long>> byDay;
+    }
 }
@@ -1,7 +1,9 @@
 package com.facilitydesk.facility_desk.dto;
 
 import com.facilitydesk.facility_desk.model.Order;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
@@ -16,4 +18,20 @@ public class StatusTrackingDto {
         private String updatedBy;
         private LocalDateTime updatedAt;
     }
+
+    // Pushed on the status stream for every committed status change
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private Long orderId;
+        private Long userId;
+        private Long vendorId;
+        // Null for a new order and for the initial event of an order stream
+        private Order.OrderStatus previousStatus;
+        private Order.OrderStatus status;
+        private String remarks;
+        private String updatedBy;
+        private LocalDateTime updatedAt;
+    }
 }
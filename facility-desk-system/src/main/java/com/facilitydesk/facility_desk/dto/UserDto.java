@@ -3,6 +3,7 @@ package com.facilitydesk.facility_desk.dto;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -38,6 +39,30 @@ public class UserDto {
         private LocalDateTime updatedAt;
     }
 
+    @Data
+    @AllArgsConstructor
+    public static class ImportResult {
+        private int row;
+        private String username;
+        private ImportStatus status;
+        private String message;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ImportSummary {
+        private int total;
+        private int created;
+        private int rejected;
+        private int failed;
+    }
+
+    public enum ImportStatus {
+        CREATED,
+        REJECTED,
+        FAILED
+    }
+
     @Data
     public static class UpdateRequest {
         @Email
@@ -1,10 +1,13 @@
 package com.facilitydesk.facility_desk.dto;
 
+import com.facilitydesk.facility_desk.model.Order;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 public class VendorDto {
 
@@ -41,4 +44,26 @@ public class VendorDto {
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
     }
+
+    @Data
+    public static class Workload {
+        private Long vendorId;
+        private String vendorName;
+        private boolean active;
+        private long totalOrders;
+        // Orders not yet COMPLETED or CANCELLED
+        private long openOrders;
+        private Map<Order.OrderStatus, Long> byStatus;
+    }
+
+    @Data
+    public static class FleetWorkload {
+        private int vendors;
+        private int activeVendors;
+        private long totalOrders;
+        private long openOrders;
+        private Map<Order.OrderStatus, Long> byStatus;
+        // Busiest vendors first
+        private List<Workload> workloads;
+    }
 }
@@ -0,0 +1,65 @@
+package com.facilitydesk.facility_desk.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of one create request sent with an {@code Idempotency-Key}. The key is claimed
+ * before the request runs and the response is stored in the same transaction as the change,
+ * so a retry either replays a committed response or finds the key free again.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_key",
+                columnNames = {"scope", "user_id", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_created", columnList = "created_at"))
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String scope;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body; a key reused with a different body is rejected
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private Integer responseStatus;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    // Claim of the request that is executing; another node may take over once locked_until passes
+    @Column(length = 36)
+    private String lockedBy;
+
+    private LocalDateTime lockedUntil;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED
+    }
+}
@@ -11,7 +11,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders",
+        indexes = {
+                @Index(name = "idx_order_created_id", columnList = "created_at, id"),
+                @Index(name = "idx_order_status_created_id", columnList = "status, created_at, id"),
+                @Index(name = "idx_order_vendor_status_created", columnList = "vendor_id, status, created_at"),
+                @Index(name = "idx_order_user_status_created", columnList = "user_id, status, created_at"),
+                @Index(name = "idx_order_priority_status_created", columnList = "priority, status, created_at"),
+                @Index(name = "idx_order_location_created", columnList = "location, created_at"),
+                @Index(name = "idx_order_updated", columnList = "updated_at")
+        })
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -52,6 +61,11 @@ public class Order {
     @Builder.Default
     private List<StatusTracking> statusHistory = new ArrayList<>();
 
+    // Optimistic lock: concurrent read-modify-writes are detected on flush and retried
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
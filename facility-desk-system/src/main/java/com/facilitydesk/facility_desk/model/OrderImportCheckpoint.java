@@ -0,0 +1,45 @@
+package com.facilitydesk.facility_desk.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk order import, written in the same transaction as each chunk so
+ * re-uploading the same file under the same import id resumes after the last commit.
+ * One upload at a time holds the import through a lease, and the version check keeps an
+ * upload whose lease was taken over from committing any further chunk.
+ */
+@Entity
+@Table(name = "order_import_checkpoints")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderImportCheckpoint {
+
+    @Id
+    @Column(name = "import_id", length = 64)
+    private String importId;
+
+    // Last input line whose chunk has been committed
+    @Column(nullable = false)
+    private long lastRow;
+
+    @Column(nullable = false)
+    private long created;
+
+    @Column(nullable = false)
+    private long rejected;
+
+    // Lease of the upload running this import, renewed by every chunk and cleared when it ends
+    private LocalDateTime claimedUntil;
+
+    @Version
+    private Long version;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
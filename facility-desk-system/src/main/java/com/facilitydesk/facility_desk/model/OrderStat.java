@@ -0,0 +1,46 @@
+package com.facilitydesk.facility_desk.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One cell of the order dashboard rollup: the number of orders in a status within one
+ * bucket of a dimension (a priority, a location or a creation day). Maintained
+ * incrementally from committed order changes and rebuilt from the orders table for repair.
+ */
+@Entity
+@Table(name = "order_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_order_stat_cell",
+                columnNames = {"dimension", "bucket", "status"}))
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Dimension dimension;
+
+    // Priority, location or ISO day; empty when the order has no value for the dimension
+    @Column(nullable = false)
+    private String bucket;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Order.OrderStatus status;
+
+    @Column(nullable = false)
+    private long orders;
+
+    public enum Dimension {
+        ALL,
+        PRIORITY,
+        LOCATION,
+        DAY
+    }
+}
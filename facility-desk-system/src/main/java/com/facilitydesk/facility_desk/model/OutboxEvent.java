@@ -0,0 +1,78 @@
+package com.facilitydesk.facility_desk.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One event awaiting or past delivery to one webhook endpoint. Rows are written in the same
+ * transaction as the change they describe, so an event exists exactly when its change
+ * committed, and are delivered in id order per endpoint and aggregate.
+ */
+@Entity
+@Table(name = "outbox_events",
+        indexes = {
+                @Index(name = "idx_outbox_due", columnList = "status, next_attempt_at"),
+                @Index(name = "idx_outbox_aggregate", columnList = "endpoint, aggregate_type, aggregate_id, status"),
+                @Index(name = "idx_outbox_delivered", columnList = "delivered_at")
+        })
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Shared by the rows of one event across endpoints; sent as X-Webhook-Id
+    @Column(nullable = false, length = 36)
+    private String eventId;
+
+    @Column(nullable = false, length = 64)
+    private String endpoint;
+
+    @Column(nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, length = 64)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Claim of a dispatch round; the row is reserved until locked_until passes
+    @Column(length = 36)
+    private String lockedBy;
+
+    private LocalDateTime lockedUntil;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime deliveredAt;
+
+    public enum Status {
+        PENDING,
+        DELIVERED,
+        FAILED
+    }
+}
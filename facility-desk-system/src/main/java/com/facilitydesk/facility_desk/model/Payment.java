@@ -3,12 +3,14 @@ package com.facilitydesk.facility_desk.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+        indexes = @Index(name = "idx_payment_created_id", columnList = "created_at, id"))
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,10 +42,18 @@ public class Payment {
     @Column
     private LocalDateTime paymentDate;
 
+    // Optimistic lock: concurrent read-modify-writes are detected on flush and retried
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
     public enum PaymentStatus {
         PENDING,
         PROCESSING,
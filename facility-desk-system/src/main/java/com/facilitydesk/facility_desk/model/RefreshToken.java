@@ -0,0 +1,48 @@
+package com.facilitydesk.facility_desk.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "refresh_tokens",
+        indexes = {
+                @Index(name = "idx_rt_token_hash", columnList = "token_hash", unique = true),
+                @Index(name = "idx_rt_family", columnList = "family_id"),
+                @Index(name = "idx_rt_user_id", columnList = "user_id")
+        })
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // SHA-256 of the token handed to the client; the raw value is never stored
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    // All tokens rotated from the same login share a family
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean revoked = false;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
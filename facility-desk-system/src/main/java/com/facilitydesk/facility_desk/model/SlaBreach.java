@@ -0,0 +1,50 @@
+package com.facilitydesk.facility_desk.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A missed SLA deadline. At most one row exists per order, kind and deadline, so a breach
+ * that fires again after a restart is not recorded twice.
+ */
+@Entity
+@Table(name = "sla_breaches",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sla_breach", columnNames = {"order_id", "kind", "deadline"}),
+        indexes = @Index(name = "idx_sla_breach_breached", columnList = "breached_at"))
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SlaBreach {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+
+    // Order status when the deadline passed
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Order.OrderStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime deadline;
+
+    @Column(nullable = false)
+    private LocalDateTime breachedAt;
+
+    public enum Kind {
+        RESPONSE,
+        RESOLUTION,
+        HOLD
+    }
+}
@@ -17,7 +17,8 @@ import java.util.Set;
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = "username"),
                 @UniqueConstraint(columnNames = "email")
-        })
+        },
+        indexes = @Index(name = "idx_user_created_id", columnList = "created_at, id"))
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
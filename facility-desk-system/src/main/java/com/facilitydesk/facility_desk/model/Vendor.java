@@ -52,6 +52,11 @@ public class Vendor {
     @Builder.Default
     private Set<Order> orders = new HashSet<>();
 
+    // Optimistic lock; also part of the ETag, so If-Match updates cannot overwrite each other
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
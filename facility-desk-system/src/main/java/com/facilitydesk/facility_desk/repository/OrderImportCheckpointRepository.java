@@ -0,0 +1,9 @@
+package com.facilitydesk.facility_desk.repository;
+
+import com.facilitydesk.facility_desk.model.OrderImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderImportCheckpointRepository extends JpaRepository<OrderImportCheckpoint, String> {
+}
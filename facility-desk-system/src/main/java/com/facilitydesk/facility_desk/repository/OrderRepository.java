@@ -1,21 +1,58 @@
 package com.facilitydesk.facility_desk.repository;
 
+import com.facilitydesk.facility_desk.dto.OrderDto;
 import com.facilitydesk.facility_desk.model.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository {
 
-    Page<Order> findByUserId(Long userId, Pageable pageable);
+    // Builds the response rows in the select list, so a page is one query plus its count query
+    String RESPONSE_PROJECTION = "SELECT new com.facilitydesk.facility_desk.dto.OrderDto$Response(" +
+            "o.id, u.id, u.username, v.id, v.name, o.description, o.location, o.priority, " +
+            "o.status, o.createdAt, o.updatedAt) " +
+            "FROM Order o JOIN o.user u LEFT JOIN o.vendor v ";
 
-    Page<Order> findByVendorId(Long vendorId, Pageable pageable);
+    @Query(value = RESPONSE_PROJECTION + "WHERE u.id = :userId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderDto.Response> findResponsesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = RESPONSE_PROJECTION + "WHERE v.id = :vendorId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.vendor.id = :vendorId")
+    Page<OrderDto.Response> findResponsesByVendorId(@Param("vendorId") Long vendorId, Pageable pageable);
+
+    @Query(RESPONSE_PROJECTION + "WHERE o.id IN :ids")
+    List<OrderDto.Response> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface OrderVersionStamp extends VersionStamp {
+        Long getVendorVersion();
+
+        LocalDateTime getVendorUpdatedAt();
+    }
+
+    // The vendor is included because the order representation shows the vendor's name
+    @Query("SELECT o.version AS version, o.updatedAt AS updatedAt, v.version AS vendorVersion, " +
+           "v.updatedAt AS vendorUpdatedAt FROM Order o LEFT JOIN o.vendor v WHERE o.id = :id")
+    Optional<OrderVersionStamp> findVersionStampById(@Param("id") Long id);
+
+    // The version is bumped on commit even when no column changed, so a history row can never
+    // be written against an order state that a concurrent writer has already replaced
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findForChangeById(@Param("id") Long id);
 
     Page<Order> findByStatus(Order.OrderStatus status, Pageable pageable);
 
@@ -26,11 +63,35 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.vendor IS NULL AND o.status = 'PENDING'")
     List<Order> findUnassignedPendingOrders();
 
+    // Oldest first, served by the (vendor_id, status, created_at) index
+    @Query("SELECT o.id FROM Order o WHERE o.vendor IS NULL AND o.status = 'PENDING' ORDER BY o.createdAt, o.id")
+    List<Long> findUnassignedPendingIds(Limit limit);
+
     @Query("SELECT COUNT(o) FROM Order o WHERE o.vendor.id = :vendorId AND o.status = :status")
     long countByVendorIdAndStatus(@Param("vendorId") Long vendorId,
                                   @Param("status") Order.OrderStatus status);
 
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.user LEFT JOIN FETCH o.vendor " +
-           "WHERE (:status IS NULL OR o.status = :status)")
-    Page<Order> findAllWithFilters(@Param("status") Order.OrderStatus status, Pageable pageable);
+    // Keyset pages, newest first. The first page and the seek after the previous page's last
+    // (createdAt, id) are separate statements, so each is a plain range scan of
+    // idx_order_created_id or idx_order_status_created_id rather than a plan that depends on
+    // the optimizer folding away "IS NULL OR" parameters
+    String KEYSET_ORDER = " ORDER BY o.createdAt DESC, o.id DESC";
+    String KEYSET_SEEK = "(o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id))";
+
+    @Query(RESPONSE_PROJECTION + KEYSET_ORDER)
+    List<OrderDto.Response> findFirstPage(Limit limit);
+
+    @Query(RESPONSE_PROJECTION + "WHERE o.status = :status" + KEYSET_ORDER)
+    List<OrderDto.Response> findFirstPageByStatus(@Param("status") Order.OrderStatus status, Limit limit);
+
+    @Query(RESPONSE_PROJECTION + "WHERE " + KEYSET_SEEK + KEYSET_ORDER)
+    List<OrderDto.Response> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Limit limit);
+
+    @Query(RESPONSE_PROJECTION + "WHERE o.status = :status AND " + KEYSET_SEEK + KEYSET_ORDER)
+    List<OrderDto.Response> findPageAfterByStatus(@Param("status") Order.OrderStatus status,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  Limit limit);
 }
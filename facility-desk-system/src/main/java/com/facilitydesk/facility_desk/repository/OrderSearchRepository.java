@@ -0,0 +1,12 @@
+package com.facilitydesk.facility_desk.repository;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface OrderSearchRepository {
+
+    Page<OrderDto.Response> search(Specification<Order> specification, Pageable pageable);
+}
@@ -0,0 +1,69 @@
+package com.facilitydesk.facility_desk.repository;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.model.Vendor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+/**
+ * Applies an order {@link Specification} to the same constructor projection as the
+ * other list queries, so a search page is one SELECT plus a COUNT over orders alone.
+ */
+public class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<OrderDto.Response> search(Specification<Order> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<OrderDto.Response> query = cb.createQuery(OrderDto.Response.class);
+        Root<Order> order = query.from(Order.class);
+        Join<Order, User> user = order.join("user");
+        Join<Order, Vendor> vendor = order.join("vendor", JoinType.LEFT);
+        query.select(cb.construct(OrderDto.Response.class,
+                order.get("id"), user.get("id"), user.get("username"), vendor.get("id"), vendor.get("name"),
+                order.get("description"), order.get("location"), order.get("priority"),
+                order.get("status"), order.get("createdAt"), order.get("updatedAt")));
+        Predicate predicate = specification.toPredicate(order, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), order, cb));
+        }
+
+        TypedQuery<OrderDto.Response> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<OrderDto.Response> content = typedQuery.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    private long count(Specification<Order> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> order = query.from(Order.class);
+        query.select(cb.count(order));
+        Predicate predicate = specification.toPredicate(order, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -0,0 +1,61 @@
+package com.facilitydesk.facility_desk.repository;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order filters that only emit predicates for the criteria actually supplied. User and
+ * vendor are compared on the foreign key columns, so no join is added for them, and
+ * location is a prefix match so it can use the location index.
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> matching(OrderDto.SearchCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (criteria.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), criteria.getStatus()));
+            }
+            if (StringUtils.hasText(criteria.getPriority())) {
+                predicates.add(cb.equal(root.get("priority"), criteria.getPriority()));
+            }
+            if (StringUtils.hasText(criteria.getLocation())) {
+                predicates.add(cb.like(root.get("location"), escapeLike(criteria.getLocation()) + "%", '!'));
+            }
+            if (criteria.getVendorId() != null) {
+                predicates.add(cb.equal(root.get("vendor").get("id"), criteria.getVendorId()));
+            }
+            if (criteria.getUserId() != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), criteria.getUserId()));
+            }
+            if (criteria.getCreatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), criteria.getCreatedFrom()));
+            }
+            if (criteria.getCreatedTo() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), criteria.getCreatedTo()));
+            }
+            if (criteria.getUpdatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("updatedAt"), criteria.getUpdatedFrom()));
+            }
+            if (criteria.getUpdatedTo() != null) {
+                predicates.add(cb.lessThan(root.get("updatedAt"), criteria.getUpdatedTo()));
+            }
+
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
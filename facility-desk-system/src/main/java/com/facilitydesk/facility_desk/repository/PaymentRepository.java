@@ -1,11 +1,15 @@
 package com.facilitydesk.facility_desk.repository;
 
 import com.facilitydesk.facility_desk.model.Payment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,6 +19,19 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     boolean existsByOrderId(Long orderId);
 
+    @Query("SELECT p.version AS version, COALESCE(p.updatedAt, p.createdAt) AS updatedAt " +
+           "FROM Payment p WHERE p.id = :id")
+    Optional<VersionStamp> findVersionStampById(@Param("id") Long id);
+
     @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.status = 'COMPLETED'")
     BigDecimal sumCompletedPayments();
+
+    // Keyset pages over idx_payment_created_id; first page and seek are separate range scans
+    @Query("SELECT p FROM Payment p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findFirstPage(Limit limit);
+
+    @Query("SELECT p FROM Payment p " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Payment> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
 }
@@ -5,9 +5,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface VendorRepository extends JpaRepository<Vendor, Long> {
@@ -22,4 +24,7 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
     Page<Vendor> searchVendors(String keyword, Pageable pageable);
 
     boolean existsByContactEmail(String contactEmail);
+
+    @Query("SELECT v.version AS version, v.updatedAt AS updatedAt FROM Vendor v WHERE v.id = :id")
+    Optional<VersionStamp> findVersionStampById(@Param("id") Long id);
 }
@@ -0,0 +1,13 @@
+package com.facilitydesk.facility_desk.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version and modification time of a row, read without loading the entity.
+ */
+public interface VersionStamp {
+
+    Long getVersion();
+
+    LocalDateTime getUpdatedAt();
+}
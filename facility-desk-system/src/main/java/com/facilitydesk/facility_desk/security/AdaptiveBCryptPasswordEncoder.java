@@ -0,0 +1,57 @@
+package com.facilitydesk.facility_desk.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose work factor can be calibrated against this host at startup.
+ * Any stored hash whose cost differs from the target is reported for upgrade, which
+ * makes {@code DaoAuthenticationProvider} rehash it transparently on the next login.
+ */
+@Slf4j
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final int MAX_STRENGTH = 16;
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Returns the highest cost, starting from {@code minStrength}, whose single hash stays
+     * within {@code targetMs} on this machine.
+     */
+    public static int calibrate(int minStrength, long targetMs) {
+        String probe = "calibration-probe";
+        new BCryptPasswordEncoder(minStrength).encode(probe);
+
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= MAX_STRENGTH; strength++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(strength).encode(probe);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            if (elapsedMs > targetMs) {
+                break;
+            }
+            chosen = strength;
+        }
+        log.info("BCrypt work factor calibrated to {} for a {} ms target", chosen, targetMs);
+        return chosen;
+    }
+}
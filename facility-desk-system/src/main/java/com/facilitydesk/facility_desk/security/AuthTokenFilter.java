@@ -1,5 +1,6 @@
 package com.facilitydesk.facility_desk.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +22,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationStore tokenRevocationStore;
+
+    // When set, the principal is rebuilt from verified claims instead of loading the user row
+    private final boolean claimsPrincipalEnabled;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -28,13 +33,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUsernameFromJwtToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            Claims claims = jwt != null ? jwtUtils.parseJwtClaims(jwt) : null;
+            if (claims != null && tokenRevocationStore.isRevoked(claims)) {
+                log.debug("Rejected revoked token {} for user {}", claims.getId(), claims.getSubject());
+            } else if (claims != null) {
+                UserDetails userDetails = resolvePrincipal(claims);
+                if (userDetails.isEnabled()) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                } else {
+                    log.debug("Rejected token for disabled user {}", claims.getSubject());
+                }
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
@@ -42,6 +53,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolvePrincipal(Claims claims) {
+        if (claimsPrincipalEnabled && jwtUtils.hasPrincipalClaims(claims)) {
+            return UserDetailsImpl.fromClaims(claims);
+        }
+        return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
         if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
@@ -0,0 +1,177 @@
+package com.facilitydesk.facility_desk.security;
+
+import com.facilitydesk.facility_desk.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks failed logins per username and per client IP in sliding windows and rejects
+ * further attempts with exponential backoff once a threshold is crossed, before any
+ * BCrypt work is done. Both maps are bounded: idle entries are swept, and when a map
+ * is full the entries that are not currently blocking anyone are dropped first.
+ */
+@Component
+@Slf4j
+public class LoginAttemptGuard {
+
+    private static final int BUCKETS = 10;
+
+    private final long bucketMs;
+    private final int usernameThreshold;
+    private final int ipThreshold;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final int maxEntries;
+
+    private final Map<String, FailureWindow> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, FailureWindow> byIp = new ConcurrentHashMap<>();
+
+    private final Counter failures;
+    private final Counter blockedByUsername;
+    private final Counter blockedByIp;
+
+    public LoginAttemptGuard(@Value("${app.security.login-guard.window-seconds:900}") long windowSeconds,
+                             @Value("${app.security.login-guard.username-threshold:5}") int usernameThreshold,
+                             @Value("${app.security.login-guard.ip-threshold:20}") int ipThreshold,
+                             @Value("${app.security.login-guard.base-backoff-ms:1000}") long baseBackoffMs,
+                             @Value("${app.security.login-guard.max-backoff-ms:900000}") long maxBackoffMs,
+                             @Value("${app.security.login-guard.max-entries:100000}") int maxEntries,
+                             MeterRegistry meterRegistry) {
+        this.bucketMs = Math.max(1, windowSeconds * 1000 / BUCKETS);
+        this.usernameThreshold = usernameThreshold;
+        this.ipThreshold = ipThreshold;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.maxEntries = maxEntries;
+
+        this.failures = Counter.builder("auth.login.failures").register(meterRegistry);
+        this.blockedByUsername = Counter.builder("auth.login.blocked").tag("scope", "username").register(meterRegistry);
+        this.blockedByIp = Counter.builder("auth.login.blocked").tag("scope", "ip").register(meterRegistry);
+        Gauge.builder("auth.login.tracked", byUsername, Map::size).tag("scope", "username").register(meterRegistry);
+        Gauge.builder("auth.login.tracked", byIp, Map::size).tag("scope", "ip").register(meterRegistry);
+    }
+
+    public void checkAllowed(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        long usernameWait = remainingBackoff(byUsername.get(normalize(username)), usernameThreshold, now);
+        if (usernameWait > 0) {
+            blockedByUsername.increment();
+            throw throttled(usernameWait);
+        }
+        long ipWait = clientIp != null ? remainingBackoff(byIp.get(clientIp), ipThreshold, now) : 0;
+        if (ipWait > 0) {
+            blockedByIp.increment();
+            throw throttled(ipWait);
+        }
+    }
+
+    public void recordFailure(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        failures.increment();
+        record(byUsername, normalize(username), usernameThreshold, now);
+        if (clientIp != null) {
+            record(byIp, clientIp, ipThreshold, now);
+        }
+    }
+
+    public void recordSuccess(String username) {
+        byUsername.remove(normalize(username));
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.login-guard.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        byUsername.values().removeIf(window -> window.isIdle(now));
+        byIp.values().removeIf(window -> window.isIdle(now));
+    }
+
+    private void record(Map<String, FailureWindow> map, String key, int threshold, long now) {
+        if (map.size() >= maxEntries && !map.containsKey(key)) {
+            map.values().removeIf(window -> window.count(now) < threshold);
+            if (map.size() >= maxEntries) {
+                log.warn("Login guard table full ({} entries), not tracking {}", map.size(), key);
+                return;
+            }
+        }
+        map.computeIfAbsent(key, k -> new FailureWindow()).increment(now);
+    }
+
+    private long remainingBackoff(FailureWindow window, int threshold, long now) {
+        if (window == null) {
+            return 0;
+        }
+        int count = window.count(now);
+        if (count < threshold) {
+            return 0;
+        }
+        int shift = Math.min(count - threshold, 30);
+        long backoff = Math.min(maxBackoffMs, baseBackoffMs << shift);
+        return window.lastFailureAt + backoff - now;
+    }
+
+    private TooManyRequestsException throttled(long waitMs) {
+        long seconds = Math.max(1, (waitMs + 999) / 1000);
+        return new TooManyRequestsException("Too many failed login attempts, retry later", seconds);
+    }
+
+    private static String normalize(String username) {
+        return username == null ? "" : username.trim().toLowerCase();
+    }
+
+    /**
+     * Fixed ring of time buckets; a bucket is reset lazily the first time it is reused
+     * for a newer epoch, so increments and reads never take a lock. Each slot packs the
+     * bucket's epoch and count into one long, so a reset and the increments racing it
+     * are ordered by a single CAS and none of them is lost.
+     */
+    private final class FailureWindow {
+
+        private static final int COUNT_BITS = 20;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final AtomicLongArray slots = new AtomicLongArray(BUCKETS);
+        private volatile long lastFailureAt;
+
+        void increment(long now) {
+            long epoch = now / bucketMs;
+            int i = (int) (epoch % BUCKETS);
+            long slot;
+            long next;
+            do {
+                slot = slots.get(i);
+                // A racing thread with a later clock may already have moved the bucket on; count into it
+                if (slot >>> COUNT_BITS >= epoch) {
+                    next = (slot & COUNT_MASK) < COUNT_MASK ? slot + 1 : slot;
+                } else {
+                    next = epoch << COUNT_BITS | 1;
+                }
+            } while (next != slot && !slots.compareAndSet(i, slot, next));
+            lastFailureAt = now;
+        }
+
+        int count(long now) {
+            long oldest = now / bucketMs - BUCKETS + 1;
+            int total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                long slot = slots.get(i);
+                if (slot >>> COUNT_BITS >= oldest) {
+                    total += (int) (slot & COUNT_MASK);
+                }
+            }
+            return total;
+        }
+
+        boolean isIdle(long now) {
+            return count(now) == 0;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.facilitydesk.facility_desk.security;
+
+import com.facilitydesk.facility_desk.config.RateLimitProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limiting per route group, keyed by authenticated user id (or client
+ * IP for anonymous callers). Each bucket is a single {@link AtomicLong} holding the
+ * GCRA theoretical arrival time, so a check is one lock-free compare-and-set.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<RouteGroup> groups = new ArrayList<>();
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        if (properties.isEnabled()) {
+            properties.getGroups().forEach((name, group) -> groups.add(new RouteGroup(name, group)));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RouteGroup group = match(request);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl principal = authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl u
+                ? u : null;
+        RateLimitProperties.Limit limit = group.limitFor(principal);
+        String key = group.name + ":" + (principal != null ? "user:" + principal.getId() : "ip:" + request.getRemoteAddr());
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRefillPerSecond());
+        long toleranceNanos = intervalNanos * (limit.getCapacity() - 1);
+        AtomicLong tat = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long base = Math.max(current, now);
+            if (base - now > toleranceNanos) {
+                reject(request, response, group, limit, base - now - toleranceNanos, base - now);
+                return;
+            }
+            long next = base + intervalNanos;
+            if (tat.compareAndSet(current, next)) {
+                long remaining = (now + toleranceNanos + intervalNanos - next) / intervalNanos;
+                writeHeaders(response, limit, remaining, next - now);
+                break;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // A bucket whose arrival time has passed is full again, which is the same as having no entry
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(tat -> tat.get() - now < 0);
+    }
+
+    private RouteGroup match(HttpServletRequest request) {
+        String path = request.getServletPath();
+        for (RouteGroup group : groups) {
+            if ((group.method == null || group.method.equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(group.pattern, path)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    private void writeHeaders(HttpServletResponse response, RateLimitProperties.Limit limit,
+                              long remaining, long resetNanos) {
+        response.setHeader("RateLimit-Limit", String.valueOf(limit.getCapacity()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(Math.max(0, remaining)));
+        response.setHeader("RateLimit-Reset", String.valueOf(toSeconds(resetNanos)));
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, RouteGroup group,
+                        RateLimitProperties.Limit limit, long retryNanos, long resetNanos) throws IOException {
+        group.rejected.increment();
+        log.debug("Rate limit exceeded for {} on group {}", request.getRemoteAddr(), group.name);
+
+        writeHeaders(response, limit, 0, resetNanos);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(toSeconds(retryNanos)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setStatus(429);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", 429);
+        body.put("error", "Too Many Requests");
+        body.put("message", "Rate limit exceeded for " + group.name);
+        body.put("path", request.getServletPath());
+
+        MAPPER.writeValue(response.getOutputStream(), body);
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(1, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    private final class RouteGroup {
+
+        private final String name;
+        private final String pattern;
+        private final String method;
+        private final RateLimitProperties.Group config;
+        private final Counter rejected;
+
+        RouteGroup(String name, RateLimitProperties.Group config) {
+            this.name = name;
+            this.pattern = config.getPattern();
+            this.method = config.getMethod();
+            this.config = config;
+            this.rejected = Counter.builder("http.rate_limit.rejected").tag("group", name).register(meterRegistry);
+        }
+
+        // Users with several roles get the most generous of their role overrides
+        RateLimitProperties.Limit limitFor(UserDetailsImpl principal) {
+            RateLimitProperties.Limit best = config;
+            if (principal == null || config.getRoles().isEmpty()) {
+                return best;
+            }
+            for (GrantedAuthority authority : principal.getAuthorities()) {
+                String role = authority.getAuthority().replaceFirst("^ROLE_", "").toLowerCase();
+                RateLimitProperties.Limit override = config.getRoles().get(role);
+                if (override != null && (best == config || override.getCapacity() > best.getCapacity())) {
+                    best = override;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.facilitydesk.facility_desk.security;
+
+import com.facilitydesk.facility_desk.exception.ResourceNotFoundException;
+import com.facilitydesk.facility_desk.model.Role;
+import com.facilitydesk.facility_desk.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the {@code roles} table, loaded once after {@code DataSeeder}
+ * has run. The table is fixed by the {@link Role.RoleName} enum, so role resolution
+ * never needs to go back to the database. Granted authorities are shared instances.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoleRegistry {
+
+    private static final Map<Role.RoleName, GrantedAuthority> AUTHORITIES;
+
+    static {
+        Map<Role.RoleName, GrantedAuthority> authorities = new EnumMap<>(Role.RoleName.class);
+        for (Role.RoleName name : Role.RoleName.values()) {
+            authorities.put(name, new SimpleGrantedAuthority(name.name()));
+        }
+        AUTHORITIES = Collections.unmodifiableMap(authorities);
+    }
+
+    private final RoleRepository roleRepository;
+
+    private volatile Map<Role.RoleName, Role> roles;
+
+    public static GrantedAuthority authorityOf(Role.RoleName name) {
+        return AUTHORITIES.get(name);
+    }
+
+    public static GrantedAuthority authorityOf(String name) {
+        try {
+            return AUTHORITIES.get(Role.RoleName.valueOf(name));
+        } catch (IllegalArgumentException e) {
+            return new SimpleGrantedAuthority(name);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<Role.RoleName, Role> loaded = new EnumMap<>(Role.RoleName.class);
+        roleRepository.findAll().forEach(role -> loaded.put(role.getName(), role));
+        roles = Collections.unmodifiableMap(loaded);
+        log.info("Role registry loaded with {} roles", loaded.size());
+    }
+
+    public Role get(Role.RoleName name) {
+        Map<Role.RoleName, Role> snapshot = roles;
+        // Requests can arrive before the ready event fires, so load on first use as well
+        if (snapshot == null || !snapshot.containsKey(name)) {
+            synchronized (this) {
+                if (roles == null || !roles.containsKey(name)) {
+                    load();
+                }
+                snapshot = roles;
+            }
+        }
+        Role role = snapshot.get(name);
+        if (role == null) {
+            throw new ResourceNotFoundException("Role", "name", name);
+        }
+        return role;
+    }
+}
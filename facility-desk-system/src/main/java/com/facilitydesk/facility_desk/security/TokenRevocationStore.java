@@ -0,0 +1,160 @@
+package com.facilitydesk.facility_desk.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory revocation list for issued JWTs.
+ * <p>
+ * Every request is screened through a lock-free Bloom filter; only filter hits are
+ * confirmed against the exact set. Entries are dropped once the token would have
+ * expired anyway, and the filter is rebuilt from the surviving entries.
+ */
+@Component
+@Slf4j
+public class TokenRevocationStore {
+
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long jwtExpirationMs;
+
+    // jti -> token expiry (epoch millis)
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // user id -> revocation time, whole seconds like iat; tokens issued before it are rejected
+    private final Map<Long, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+    private volatile BloomFilter filter;
+
+    public TokenRevocationStore(@Value("${app.jwt.revocation.expected-entries:100000}") int expectedEntries,
+                                @Value("${app.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${app.jwt.expiration-ms}") long jwtExpirationMs,
+                                MeterRegistry meterRegistry) {
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+
+        Gauge.builder("auth.tokens.revoked", revokedTokens, Map::size).register(meterRegistry);
+        Gauge.builder("auth.users.revoked", revokedUsers, Map::size).register(meterRegistry);
+    }
+
+    public void revokeToken(String jti, Date expiresAt) {
+        long expiry = expiresAt != null ? expiresAt.getTime() : System.currentTimeMillis() + jwtExpirationMs;
+        synchronized (writeLock) {
+            revokedTokens.put(jti, expiry);
+            filter.add(jti);
+        }
+        log.debug("Token {} revoked", jti);
+    }
+
+    public void revokeAllForUser(Long userId) {
+        // iat is truncated to seconds, so a token issued later in the same second must not match
+        revokedUsers.put(userId, System.currentTimeMillis() / 1000 * 1000);
+        log.info("Outstanding tokens revoked for user id {}", userId);
+    }
+
+    /**
+     * Revokes once the surrounding transaction commits: a login racing the change then still
+     * reads the old row and gets a token issued before the revocation time, and a rollback
+     * leaves the user's tokens valid.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChanged event) {
+        if (event.revokeTokens()) {
+            revokeAllForUser(event.userId());
+        }
+    }
+
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        if (jti != null && filter.mightContain(jti) && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        if (revokedUsers.isEmpty()) {
+            return false;
+        }
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        Long revokedAt = userId != null ? revokedUsers.get(userId) : null;
+        return revokedAt != null && claims.getIssuedAt() != null
+                && claims.getIssuedAt().getTime() < revokedAt;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.prune-interval-ms:60000}")
+    public void pruneExpired() {
+        long now = System.currentTimeMillis();
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + jwtExpirationMs < now);
+
+        synchronized (writeLock) {
+            int before = revokedTokens.size();
+            revokedTokens.values().removeIf(expiry -> expiry < now);
+            if (revokedTokens.size() == before) {
+                return;
+            }
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revokedTokens.size()), falsePositiveRate);
+            revokedTokens.keySet().forEach(rebuilt::add);
+            filter = rebuilt;
+            log.debug("Pruned {} expired revocations", before - revokedTokens.size());
+        }
+    }
+
+    private static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final int bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedEntries, double falsePositiveRate) {
+            long m = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        void add(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << bit;
+                bits.accumulateAndGet(bit >>> 6, mask, (current, m) -> current | m);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.facilitydesk.facility_desk.security;
+
+/**
+ * Published inside the transaction that changes what a user's principal carries: password,
+ * email, roles or active flag. {@code revokeTokens} is set when access tokens issued before
+ * the change must stop working.
+ */
+public record UserChanged(long userId, String username, boolean revokeTokens) {
+}
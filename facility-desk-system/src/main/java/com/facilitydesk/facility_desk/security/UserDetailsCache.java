@@ -0,0 +1,114 @@
+package com.facilitydesk.facility_desk.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, expiring LRU cache of principals loaded by {@link UserDetailsServiceImpl}.
+ */
+@Component
+@Slf4j
+public class UserDetailsCache {
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final LinkedHashMap<String, CachedEntry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UserDetailsCache(@Value("${app.security.user-cache.max-size:10000}") int maxSize,
+                            @Value("${app.security.user-cache.ttl-seconds:300}") long ttlSeconds,
+                            MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMs = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedEntry> eldest) {
+                if (size() > UserDetailsCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("users.details.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("users.details.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("users.details.cache.evictions", evictions, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("users.details.cache.size", this, UserDetailsCache::size)
+                .register(meterRegistry);
+    }
+
+    public UserDetailsImpl get(String username) {
+        synchronized (entries) {
+            CachedEntry entry = entries.get(username);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(username);
+                evictions.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.userDetails();
+        }
+    }
+
+    public void put(UserDetailsImpl userDetails) {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(userDetails.getUsername(),
+                    new CachedEntry(userDetails, System.currentTimeMillis() + ttlMs));
+        }
+    }
+
+    public void invalidate(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+
+    /**
+     * Evicts now and again once the surrounding transaction commits, so a concurrent
+     * request cannot re-cache the pre-update row while the change is still in flight.
+     */
+    @EventListener
+    public void onUserChanged(UserChanged event) {
+        invalidate(event.username());
+        log.debug("Principal cache entry for {} invalidated", event.username());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChangeCommitted(UserChanged event) {
+        invalidate(event.username());
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record CachedEntry(UserDetailsImpl userDetails, long expiresAt) {}
+}
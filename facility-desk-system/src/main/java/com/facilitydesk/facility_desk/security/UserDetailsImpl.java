@@ -2,10 +2,10 @@ package com.facilitydesk.facility_desk.security;
 
 import com.facilitydesk.facility_desk.model.User;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
@@ -28,7 +28,7 @@ public class UserDetailsImpl implements UserDetails {
 
     public static UserDetailsImpl build(User user) {
         List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
+                .map(role -> RoleRegistry.authorityOf(role.getName()))
                 .collect(Collectors.toList());
 
         return new UserDetailsImpl(
@@ -41,6 +41,26 @@ public class UserDetailsImpl implements UserDetails {
         );
     }
 
+    /**
+     * Rebuilds the principal from verified JWT claims without touching the database.
+     * The password is never part of the token, so it stays {@code null}.
+     */
+    public static UserDetailsImpl fromClaims(Claims claims) {
+        List<?> roles = claims.get(JwtUtils.CLAIM_ROLES, List.class);
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> RoleRegistry.authorityOf(role.toString()))
+                .collect(Collectors.toList());
+
+        return new UserDetailsImpl(
+                claims.get(JwtUtils.CLAIM_USER_ID, Long.class),
+                claims.getSubject(),
+                claims.get(JwtUtils.CLAIM_EMAIL, String.class),
+                null,
+                Boolean.TRUE.equals(claims.get(JwtUtils.CLAIM_ACTIVE, Boolean.class)),
+                authorities
+        );
+    }
+
     @Override
     public boolean isAccountNonExpired() { return true; }
 
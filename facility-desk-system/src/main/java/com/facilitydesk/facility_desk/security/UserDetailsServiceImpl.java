@@ -3,7 +3,10 @@ package com.facilitydesk.facility_desk.security;
 import com.facilitydesk.facility_desk.model.User;
 import com.facilitydesk.facility_desk.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -11,15 +14,38 @@ import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        UserDetailsImpl cached = userDetailsCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        User user = userRepository.findByUsernameWithRoles(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-        return UserDetailsImpl.build(user);
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        userDetailsCache.put(userDetails);
+        return userDetails;
+    }
+
+    // Called by DaoAuthenticationProvider after a successful login when the stored hash needs upgrading
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserDetailsImpl details = (UserDetailsImpl) user;
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        // Same password, new hash, so issued tokens stay valid
+        eventPublisher.publishEvent(new UserChanged(details.getId(), details.getUsername(), false));
+        log.info("Password hash for {} upgraded", user.getUsername());
+
+        return new UserDetailsImpl(details.getId(), details.getUsername(), details.getEmail(),
+                newPassword, details.isActive(), details.getAuthorities());
     }
 }
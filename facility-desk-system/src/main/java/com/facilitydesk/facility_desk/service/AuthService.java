@@ -4,23 +4,26 @@ import com.facilitydesk.facility_desk.dto.AuthDto;
 import com.facilitydesk.facility_desk.exception.BadRequestException;
 import com.facilitydesk.facility_desk.model.Role;
 import com.facilitydesk.facility_desk.model.User;
-import com.facilitydesk.facility_desk.repository.RoleRepository;
 import com.facilitydesk.facility_desk.repository.UserRepository;
 import com.facilitydesk.facility_desk.security.JwtUtils;
+import com.facilitydesk.facility_desk.security.LoginAttemptGuard;
+import com.facilitydesk.facility_desk.security.RoleRegistry;
+import com.facilitydesk.facility_desk.security.TokenRevocationStore;
 import com.facilitydesk.facility_desk.security.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,28 +33,67 @@ public class AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
-    private final PasswordEncoder encoder;
+    private final RoleRegistry roleRegistry;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtils jwtUtils;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginAttemptGuard loginAttemptGuard;
 
-    public AuthDto.JwtResponse authenticateUser(AuthDto.LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+    // BCrypt verification runs on the hashing pool so the servlet thread is released while it works.
+    // Throttled usernames and client addresses are rejected before any hashing is queued.
+    public CompletableFuture<AuthDto.JwtResponse> authenticateUser(AuthDto.LoginRequest loginRequest, String clientIp) {
+        String username = loginRequest.getUsername();
+        loginAttemptGuard.checkAllowed(username, clientIp);
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtUtils.generateJwtToken(authentication);
+        return passwordHashingService.submit(() -> authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(username, loginRequest.getPassword())))
+                .whenComplete((authentication, ex) -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof BadCredentialsException) {
+                        loginAttemptGuard.recordFailure(username, clientIp);
+                    } else if (cause == null) {
+                        loginAttemptGuard.recordSuccess(username);
+                    }
+                })
+                .thenApply(authentication -> {
+                    UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+                    log.info("User {} logged in successfully", userDetails.getUsername());
+                    return toJwtResponse(userDetails, refreshTokenService.issue(userDetails.getId()));
+                });
+    }
+
+    // Exchanges a refresh token for a new token pair without any password verification
+    public AuthDto.JwtResponse refreshToken(AuthDto.RefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        log.debug("Tokens refreshed for user {}", rotation.principal().getUsername());
+        return toJwtResponse(rotation.principal(), rotation.refreshToken());
+    }
+
+    private AuthDto.JwtResponse toJwtResponse(UserDetailsImpl userDetails, String refreshToken) {
+        String jwt = jwtUtils.generateJwtToken(userDetails);
 
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         Set<String> roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toSet());
 
-        log.info("User {} logged in successfully", userDetails.getUsername());
-
-        return new AuthDto.JwtResponse(jwt, userDetails.getId(), userDetails.getUsername(),
+        return new AuthDto.JwtResponse(jwt, refreshToken, userDetails.getId(), userDetails.getUsername(),
                 userDetails.getEmail(), roles);
     }
 
+    public AuthDto.MessageResponse logout(String token, AuthDto.RefreshRequest refreshRequest) {
+        Claims claims = token != null ? jwtUtils.parseJwtClaims(token) : null;
+        if (claims == null || claims.getId() == null) {
+            throw new BadRequestException("No valid token to revoke");
+        }
+        tokenRevocationStore.revokeToken(claims.getId(), claims.getExpiration());
+        if (refreshRequest != null && refreshRequest.getRefreshToken() != null) {
+            refreshTokenService.revokeFamily(refreshRequest.getRefreshToken());
+        }
+        log.info("User {} logged out", claims.getSubject());
+        return new AuthDto.MessageResponse("Logged out successfully!");
+    }
+
     @Transactional
     public AuthDto.MessageResponse registerUser(AuthDto.RegisterRequest signUpRequest) {
         if (userRepository.existsByUsername(signUpRequest.getUsername())) {
@@ -64,7 +106,7 @@ public class AuthService {
         User user = User.builder()
                 .username(signUpRequest.getUsername())
                 .email(signUpRequest.getEmail())
-                .password(encoder.encode(signUpRequest.getPassword()))
+                .password(passwordHashingService.encode(signUpRequest.getPassword()))
                 .build();
 
         Set<String> strRoles = signUpRequest.getRoles();
@@ -79,22 +121,17 @@ public class AuthService {
     private Set<Role> resolveRoles(Set<String> strRoles) {
         Set<Role> roles = new HashSet<>();
         if (strRoles == null || strRoles.isEmpty()) {
-            roles.add(findRole(Role.RoleName.ROLE_CUSTOMER));
+            roles.add(roleRegistry.get(Role.RoleName.ROLE_CUSTOMER));
         } else {
             strRoles.forEach(role -> {
                 switch (role.toLowerCase()) {
-                    case "admin" -> roles.add(findRole(Role.RoleName.ROLE_ADMIN));
-                    case "vendor" -> roles.add(findRole(Role.RoleName.ROLE_VENDOR));
-                    case "employee" -> roles.add(findRole(Role.RoleName.ROLE_EMPLOYEE));
-                    default -> roles.add(findRole(Role.RoleName.ROLE_CUSTOMER));
+                    case "admin" -> roles.add(roleRegistry.get(Role.RoleName.ROLE_ADMIN));
+                    case "vendor" -> roles.add(roleRegistry.get(Role.RoleName.ROLE_VENDOR));
+                    case "employee" -> roles.add(roleRegistry.get(Role.RoleName.ROLE_EMPLOYEE));
+                    default -> roles.add(roleRegistry.get(Role.RoleName.ROLE_CUSTOMER));
                 }
             });
         }
         return roles;
     }
-
-    private Role findRole(Role.RoleName roleName) {
-        return roleRepository.findByName(roleName)
-                .orElseThrow(() -> new RuntimeException("Role not found: " + roleName));
-    }
 }
@@ -0,0 +1,96 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.exception.BadRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line-oriented CSV helpers shared by the bulk importers and the exports: a header row
+ * maps column names to positions, and each record is a single line of RFC 4180 fields.
+ */
+final class CsvSupport {
+
+    private CsvSupport() {
+    }
+
+    static Map<String, Integer> readHeader(BufferedReader reader, String... required) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new BadRequestException("CSV input is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = split(header.replace("\uFEFF", ""));
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(), i);
+        }
+        for (String column : required) {
+            if (!columns.containsKey(column.toLowerCase())) {
+                throw new BadRequestException("CSV header is missing column: " + column);
+            }
+        }
+        return columns;
+    }
+
+    static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name.toLowerCase());
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Commas inside double quotes are kept, and "" is an escaped quote
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    // Quotes the value only when it contains a separator, a quote or a line break
+    static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,24 @@
+package com.facilitydesk.facility_desk.service;
+
+import org.springframework.http.MediaType;
+
+public enum DataFormat {
+    CSV,
+    NDJSON;
+
+    public static final String CSV_VALUE = "text/csv";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    public static DataFormat of(MediaType contentType) {
+        return contentType.isCompatibleWith(MediaType.parseMediaType(CSV_VALUE)) ? CSV : NDJSON;
+    }
+
+    public MediaType mediaType() {
+        return MediaType.parseMediaType(this == CSV ? CSV_VALUE : NDJSON_VALUE);
+    }
+
+    // Download name for an export of the given data set, e.g. orders.csv
+    public String fileName(String baseName) {
+        return baseName + "." + name().toLowerCase();
+    }
+}
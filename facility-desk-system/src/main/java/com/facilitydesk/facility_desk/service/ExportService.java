@@ -0,0 +1,265 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.Payment;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full extracts written straight from a forward-only, read-only JDBC cursor to the
+ * response stream. Rows are never collected or mapped to entities: each column is read
+ * from the result set and written as CSV or NDJSON, so heap use does not depend on the
+ * number of rows. With MySQL the fetch size {@code Integer.MIN_VALUE} makes the driver
+ * stream rows from the server one at a time instead of buffering the whole result.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    private static final String ORDERS_QUERY = "SELECT o.id, o.created_at, o.updated_at, o.status, o.priority, " +
+            "o.description, o.location, u.id AS user_id, u.username, v.id AS vendor_id, v.name AS vendor_name, " +
+            "p.id AS payment_id, p.amount AS payment_amount, p.status AS payment_status, p.payment_date, " +
+            "st.status AS last_status, st.remarks AS last_remarks, st.updated_by AS last_updated_by, " +
+            "st.updated_at AS last_status_at " +
+            "FROM orders o " +
+            "JOIN users u ON u.id = o.user_id " +
+            "LEFT JOIN vendors v ON v.id = o.vendor_id " +
+            "LEFT JOIN payments p ON p.order_id = o.id " +
+            // Latest history row per order, found on the status_tracking(order_id) index
+            "LEFT JOIN status_tracking st ON st.id = " +
+            "(SELECT MAX(s.id) FROM status_tracking s WHERE s.order_id = o.id)";
+    private static final String PAYMENTS_QUERY = "SELECT p.id, p.created_at, p.order_id, u.username, p.amount, " +
+            "p.status, p.payment_method, p.transaction_id, p.payment_date " +
+            "FROM payments p " +
+            "JOIN orders o ON o.id = p.order_id " +
+            "JOIN users u ON u.id = o.user_id";
+    private static final String HISTORY_QUERY = "SELECT st.id, st.order_id, st.status, st.remarks, st.updated_by, " +
+            "st.updated_at FROM status_tracking st";
+
+    private static final Column[] ORDER_COLUMNS = {
+            new Column("id", Kind.LONG), new Column("created_at", Kind.TIMESTAMP),
+            new Column("updated_at", Kind.TIMESTAMP), new Column("status", Kind.TEXT),
+            new Column("priority", Kind.TEXT), new Column("description", Kind.TEXT),
+            new Column("location", Kind.TEXT), new Column("user_id", Kind.LONG),
+            new Column("username", Kind.TEXT), new Column("vendor_id", Kind.LONG),
+            new Column("vendor_name", Kind.TEXT), new Column("payment_id", Kind.LONG),
+            new Column("payment_amount", Kind.DECIMAL), new Column("payment_status", Kind.TEXT),
+            new Column("payment_date", Kind.TIMESTAMP), new Column("last_status", Kind.TEXT),
+            new Column("last_remarks", Kind.TEXT), new Column("last_updated_by", Kind.TEXT),
+            new Column("last_status_at", Kind.TIMESTAMP)
+    };
+    private static final Column[] PAYMENT_COLUMNS = {
+            new Column("id", Kind.LONG), new Column("created_at", Kind.TIMESTAMP),
+            new Column("order_id", Kind.LONG), new Column("username", Kind.TEXT),
+            new Column("amount", Kind.DECIMAL), new Column("status", Kind.TEXT),
+            new Column("payment_method", Kind.TEXT), new Column("transaction_id", Kind.TEXT),
+            new Column("payment_date", Kind.TIMESTAMP)
+    };
+    private static final Column[] HISTORY_COLUMNS = {
+            new Column("id", Kind.LONG), new Column("order_id", Kind.LONG), new Column("status", Kind.TEXT),
+            new Column("remarks", Kind.TEXT), new Column("updated_by", Kind.TEXT),
+            new Column("updated_at", Kind.TIMESTAMP)
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.export.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    public void exportOrders(Order.OrderStatus status, LocalDateTime createdFrom, LocalDateTime createdTo,
+                             DataFormat format, OutputStream output) throws IOException {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (status != null) {
+            conditions.add("o.status = ?");
+            args.add(status.name());
+        }
+        if (createdFrom != null) {
+            conditions.add("o.created_at >= ?");
+            args.add(Timestamp.valueOf(createdFrom));
+        }
+        if (createdTo != null) {
+            conditions.add("o.created_at < ?");
+            args.add(Timestamp.valueOf(createdTo));
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        stream("orders", ORDERS_QUERY + where + " ORDER BY o.id", args.toArray(), ORDER_COLUMNS, format, output);
+    }
+
+    public void exportPayments(Payment.PaymentStatus status, DataFormat format, OutputStream output)
+            throws IOException {
+        String sql = PAYMENTS_QUERY + (status != null ? " WHERE p.status = ?" : "") + " ORDER BY p.id";
+        Object[] args = status != null ? new Object[]{status.name()} : new Object[0];
+        stream("payments", sql, args, PAYMENT_COLUMNS, format, output);
+    }
+
+    public void exportStatusHistory(DataFormat format, OutputStream output) throws IOException {
+        stream("status history", HISTORY_QUERY + " ORDER BY st.id", new Object[0], HISTORY_COLUMNS, format, output);
+    }
+
+    private void stream(String name, String sql, Object[] args, Column[] columns, DataFormat format,
+                        OutputStream output) throws IOException {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        RowWriter rowWriter = format == DataFormat.CSV
+                ? new CsvRowWriter(writer, columns) : new JsonRowWriter(writer, columns);
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                new ArgumentPreparedStatementSetter(args).setValues(ps);
+                return ps;
+            }, rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the cursor has been closed by now
+            throw e.getCause();
+        }
+        rowWriter.finish();
+        writer.flush();
+        log.info("Exported {} {} rows as {} in {} ms", rows[0], name, format, System.currentTimeMillis() - start);
+    }
+
+    private enum Kind { TEXT, LONG, DECIMAL, TIMESTAMP }
+
+    private record Column(String name, Kind kind) {}
+
+    private interface RowWriter {
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        default void finish() throws IOException {
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+        private final Column[] columns;
+
+        CsvRowWriter(Writer writer, Column[] columns) throws IOException {
+            this.writer = writer;
+            this.columns = columns;
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns[i].name());
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                int index = i + 1;
+                switch (columns[i].kind()) {
+                    case LONG -> {
+                        long value = rs.getLong(index);
+                        if (!rs.wasNull()) {
+                            writer.write(Long.toString(value));
+                        }
+                    }
+                    case DECIMAL -> {
+                        BigDecimal value = rs.getBigDecimal(index);
+                        if (value != null) {
+                            writer.write(value.toPlainString());
+                        }
+                    }
+                    case TIMESTAMP -> {
+                        Timestamp value = rs.getTimestamp(index);
+                        if (value != null) {
+                            writer.write(value.toLocalDateTime().toString());
+                        }
+                    }
+                    case TEXT -> CsvSupport.writeField(writer, rs.getString(index));
+                }
+            }
+            writer.write('\n');
+        }
+    }
+
+    private final class JsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private final Column[] columns;
+
+        JsonRowWriter(Writer writer, Column[] columns) throws IOException {
+            this.columns = columns;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            // Rows are separated by the newline written after each object, not by Jackson's default space
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                int index = i + 1;
+                generator.writeFieldName(columns[i].name());
+                switch (columns[i].kind()) {
+                    case LONG -> {
+                        long value = rs.getLong(index);
+                        if (rs.wasNull()) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeNumber(value);
+                        }
+                    }
+                    case DECIMAL -> {
+                        BigDecimal value = rs.getBigDecimal(index);
+                        if (value == null) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeNumber(value);
+                        }
+                    }
+                    case TIMESTAMP -> {
+                        Timestamp value = rs.getTimestamp(index);
+                        generator.writeString(value != null ? value.toLocalDateTime().toString() : null);
+                    }
+                    case TEXT -> generator.writeString(rs.getString(index));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.exception.BadRequestException;
+import com.facilitydesk.facility_desk.exception.ConflictException;
+import com.facilitydesk.facility_desk.exception.UnprocessableEntityException;
+import com.facilitydesk.facility_desk.security.UserDetailsImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes create requests sent with an {@code Idempotency-Key} header run at most once per user
+ * and key. Completed responses are kept in a bounded LRU cache in front of the
+ * {@code idempotency_keys} table, so a retry is answered with the stored response without
+ * reaching the service. A duplicate that arrives while the first request is still running waits
+ * for it: on the same node through the in-flight future, across nodes by polling the claimed row.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    public static final String ORDERS = "orders";
+    public static final String PAYMENTS = "payments";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int PURGE_BATCH = 1000;
+    private static final long MIN_POLL_MS = 25;
+    private static final long MAX_POLL_MS = 500;
+
+    private static final String WHERE_KEY = " WHERE scope = ? AND user_id = ? AND idempotency_key = ?";
+    private static final String CLAIM = "INSERT INTO idempotency_keys (scope, user_id, idempotency_key, request_hash, " +
+            "status, locked_by, locked_until, created_at) VALUES (?, ?, ?, ?, 'IN_PROGRESS', ?, ?, ?)";
+    // A claim whose lease ran out belongs to a request that died; its transaction never committed
+    private static final String TAKE_OVER = "UPDATE idempotency_keys SET locked_by = ?, locked_until = ?" + WHERE_KEY +
+            " AND status = 'IN_PROGRESS' AND locked_until < ?";
+    private static final String COMPLETE = "UPDATE idempotency_keys SET status = 'COMPLETED', response_status = ?, " +
+            "response_body = ?, completed_at = ?, locked_by = NULL, locked_until = NULL" + WHERE_KEY + " AND locked_by = ?";
+    private static final String RELEASE = "DELETE FROM idempotency_keys" + WHERE_KEY + " AND locked_by = ?";
+    private static final String LOAD = "SELECT request_hash, status, response_status, response_body, created_at " +
+            "FROM idempotency_keys" + WHERE_KEY;
+    private static final String PURGE = "DELETE FROM idempotency_keys WHERE created_at < ? LIMIT " + PURGE_BATCH;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int cacheSize;
+    private final Duration retention;
+    private final Duration lease;
+    private final long waitTimeoutMs;
+    private final LinkedHashMap<Key, Stored> completed;
+    private final Map<Key, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter replayed;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                            @Value("${app.idempotency.retention-hours:24}") long retentionHours,
+                            @Value("${app.idempotency.lease-seconds:60}") long leaseSeconds,
+                            @Value("${app.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.cacheSize = cacheSize;
+        this.retention = Duration.ofHours(retentionHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Stored> eldest) {
+                return size() > IdempotencyStore.this.cacheSize;
+            }
+        };
+
+        this.executed = Counter.builder("idempotency.requests").tag("outcome", "executed").register(meterRegistry);
+        this.replayed = Counter.builder("idempotency.requests").tag("outcome", "replayed").register(meterRegistry);
+        Gauge.builder("idempotency.cache.size", this, IdempotencyStore::cacheSize).register(meterRegistry);
+        Gauge.builder("idempotency.in_flight", inFlight, Map::size).register(meterRegistry);
+    }
+
+    private record Key(String scope, long userId, String key) {
+    }
+
+    private record Stored(String requestHash, int status, String body, LocalDateTime expiresAt) {
+    }
+
+    private record Outcome<T>(Stored stored, ResponseEntity<T> response) {
+    }
+
+    /**
+     * Runs {@code action} and answers 201 with its result, unless the key was already used by
+     * the current user, in which case the stored response is returned. Without a key the action
+     * simply runs.
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Class<T> type, Supplier<T> action) {
+        if (key == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(action.get());
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        Key id = new Key(scope, getCurrentUserId(), key);
+        String requestHash = hash(request);
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        while (true) {
+            Stored stored = cached(id);
+            if (stored != null) {
+                return replay(id, stored, requestHash, type);
+            }
+            CompletableFuture<Stored> claim = new CompletableFuture<>();
+            CompletableFuture<Stored> running = inFlight.putIfAbsent(id, claim);
+            if (running != null) {
+                stored = await(id, running, deadline);
+                if (stored != null) {
+                    return replay(id, stored, requestHash, type);
+                }
+                // The first request failed and released the key, or replayed a stored response into the cache
+                continue;
+            }
+            try {
+                Outcome<T> outcome = run(id, requestHash, type, action, deadline);
+                claim.complete(outcome.stored());
+                return outcome.response();
+            } catch (RuntimeException e) {
+                claim.complete(null);
+                throw e;
+            } finally {
+                inFlight.remove(id, claim);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.idempotency.purge-interval-ms:3600000}",
+               fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purge() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE, cutoff);
+            total += deleted;
+        } while (deleted >= PURGE_BATCH);
+        if (total > 0) {
+            log.info("Purged {} expired idempotency keys", total);
+        }
+    }
+
+    public int cacheSize() {
+        synchronized (completed) {
+            return completed.size();
+        }
+    }
+
+    private <T> Outcome<T> run(Key id, String requestHash, Class<T> type, Supplier<T> action, long deadline) {
+        long pollMs = MIN_POLL_MS;
+        while (true) {
+            String token = UUID.randomUUID().toString();
+            if (claim(id, requestHash, token)) {
+                return runClaimed(id, requestHash, token, action);
+            }
+            Map<String, Object> row = load(id);
+            if (row != null && "COMPLETED".equals(row.get("status"))) {
+                Stored stored = remember(id, toStored(row));
+                return new Outcome<>(stored, replay(id, stored, requestHash, type));
+            }
+            if (row != null && !requestHash.equals(row.get("request_hash"))) {
+                throw mismatch(id);
+            }
+            if (row != null && takeOver(id, token)) {
+                log.warn("Taking over expired claim on idempotency key {} for user {}", id.key(), id.userId());
+                return runClaimed(id, requestHash, token, action);
+            }
+            // Running on another node, or released between the insert and the read
+            if (System.currentTimeMillis() >= deadline) {
+                throw inProgress(id);
+            }
+            sleep(pollMs);
+            pollMs = Math.min(pollMs * 2, MAX_POLL_MS);
+        }
+    }
+
+    // The response is stored in the action's own transaction, so it exists exactly when the change committed
+    private <T> Outcome<T> runClaimed(Key id, String requestHash, String token, Supplier<T> action) {
+        Outcome<T> outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                T result = action.get();
+                String body = serialize(result);
+                LocalDateTime now = LocalDateTime.now();
+                int updated = jdbcTemplate.update(COMPLETE, HttpStatus.CREATED.value(), body, Timestamp.valueOf(now),
+                        id.scope(), id.userId(), id.key(), token);
+                if (updated == 0) {
+                    throw new ConflictException("The request with " + HEADER + " " + id.key()
+                            + " outlived its claim and was taken over, please retry");
+                }
+                return new Outcome<>(new Stored(requestHash, HttpStatus.CREATED.value(), body, now.plus(retention)),
+                        ResponseEntity.status(HttpStatus.CREATED).body(result));
+            });
+        } catch (RuntimeException e) {
+            // Free the key so the client can retry the failed request under it
+            jdbcTemplate.update(RELEASE, id.scope(), id.userId(), id.key(), token);
+            throw e;
+        }
+        executed.increment();
+        remember(id, outcome.stored());
+        return outcome;
+    }
+
+    private boolean claim(Key id, String requestHash, String token) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(CLAIM, id.scope(), id.userId(), id.key(), requestHash, token,
+                    Timestamp.valueOf(now.plus(lease)), Timestamp.valueOf(now));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private boolean takeOver(Key id, String token) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(TAKE_OVER, token, Timestamp.valueOf(now.plus(lease)),
+                id.scope(), id.userId(), id.key(), Timestamp.valueOf(now)) > 0;
+    }
+
+    private Map<String, Object> load(Key id) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LOAD, id.scope(), id.userId(), id.key());
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private Stored toStored(Map<String, Object> row) {
+        LocalDateTime createdAt = ((Timestamp) row.get("created_at")).toLocalDateTime();
+        return new Stored((String) row.get("request_hash"), ((Number) row.get("response_status")).intValue(),
+                (String) row.get("response_body"), createdAt.plus(retention));
+    }
+
+    private Stored cached(Key id) {
+        synchronized (completed) {
+            Stored stored = completed.get(id);
+            if (stored != null && stored.expiresAt().isBefore(LocalDateTime.now())) {
+                completed.remove(id);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private Stored remember(Key id, Stored stored) {
+        if (cacheSize > 0) {
+            synchronized (completed) {
+                completed.put(id, stored);
+            }
+        }
+        return stored;
+    }
+
+    private <T> ResponseEntity<T> replay(Key id, Stored stored, String requestHash, Class<T> type) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw mismatch(id);
+        }
+        replayed.increment();
+        log.debug("Replaying stored response for idempotency key {} of user {}", id.key(), id.userId());
+        return ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true")
+                .body(deserialize(stored.body(), type));
+    }
+
+    private Stored await(Key id, CompletableFuture<Stored> running, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw inProgress(id);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress(id);
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private static ConflictException inProgress(Key id) {
+        return new ConflictException("A request with " + HEADER + " " + id.key() + " is still in progress, please retry");
+    }
+
+    private static UnprocessableEntityException mismatch(Key id) {
+        return new UnprocessableEntityException(HEADER + " " + id.key() + " was already used with a different request");
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private String serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+
+    private <T> T deserialize(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored response", e);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for an in-progress request, please retry");
+        }
+    }
+
+    private Long getCurrentUserId() {
+        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder
+                .getContext().getAuthentication().getPrincipal();
+        return userDetails.getId();
+    }
+}
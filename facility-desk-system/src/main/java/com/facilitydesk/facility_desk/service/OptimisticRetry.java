@@ -0,0 +1,78 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.exception.ConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write in its own transaction and, when a {@code @Version} check fails,
+ * runs it again in a fresh transaction so the change is re-applied to the current row. The
+ * rolled-back persistence context is cleared by the transaction manager, so each attempt
+ * re-reads the entity. Only when every attempt conflicts does the caller get a 409.
+ */
+@Component
+@Slf4j
+public class OptimisticRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final Counter retried;
+    private final Counter exhausted;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           @Value("${app.concurrency.max-attempts:5}") int maxAttempts,
+                           @Value("${app.concurrency.backoff-ms:20}") long backoffMs,
+                           MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+        this.retried = Counter.builder("concurrency.optimistic.retries").register(meterRegistry);
+        this.exhausted = Counter.builder("concurrency.optimistic.conflicts").register(meterRegistry);
+    }
+
+    public <T> T execute(String resource, Supplier<T> action) {
+        // Inside a caller's transaction a retry would see the same stale entity; let the caller handle it
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Giving up on {} after {} conflicting attempts", resource, attempt);
+                    throw new ConflictException(resource + " was modified concurrently, please retry");
+                }
+                retried.increment();
+                log.debug("Concurrent update of {}, retrying (attempt {})", resource, attempt + 1);
+                pause(attempt);
+            }
+        }
+    }
+
+    // Jittered exponential backoff so two colliding writers do not retry in lockstep
+    private void pause(int attempt) {
+        if (backoffMs <= 0) {
+            return;
+        }
+        long delay = backoffMs << (attempt - 1);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while retrying a concurrent update");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.security.UserDetailsImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Moves many orders to one status in a single transaction: one locking IN query to
+ * read current statuses, one UPDATE for every accepted order and one JDBC batch for
+ * the status history, so the statement count does not grow with the number of orders.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBulkService {
+
+    private static final String SELECT_FOR_UPDATE =
+            "SELECT id, user_id, status, vendor_id, priority, location, created_at FROM orders WHERE id IN (:ids) FOR UPDATE";
+    private static final String UPDATE_STATUS =
+            "UPDATE orders SET status = :status, updated_at = :now, version = version + 1 WHERE id IN (:ids)";
+    private static final String INSERT_TRACKING =
+            "INSERT INTO status_tracking (order_id, status, remarks, updated_by, updated_at) VALUES (?, ?, ?, ?, ?)";
+    private static final Set<Order.OrderStatus> TERMINAL =
+            EnumSet.of(Order.OrderStatus.COMPLETED, Order.OrderStatus.CANCELLED);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public OrderDto.BulkStatusResponse updateStatuses(OrderDto.BulkStatusRequest request) {
+        List<Long> orderIds = new ArrayList<>(new LinkedHashSet<>(request.getOrderIds()));
+        Order.OrderStatus target = request.getStatus();
+
+        Map<Long, Order.OrderStatus> current = new HashMap<>();
+        Map<Long, Long> vendors = new HashMap<>();
+        Map<Long, String> priorities = new HashMap<>();
+        Map<Long, String> locations = new HashMap<>();
+        Map<Long, LocalDateTime> created = new HashMap<>();
+        Map<Long, Long> owners = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_FOR_UPDATE, new MapSqlParameterSource("ids", orderIds),
+                rs -> {
+                    long id = rs.getLong("id");
+                    current.put(id, Order.OrderStatus.valueOf(rs.getString("status")));
+                    owners.put(id, rs.getLong("user_id"));
+                    long vendorId = rs.getLong("vendor_id");
+                    if (!rs.wasNull()) {
+                        vendors.put(id, vendorId);
+                    }
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    if (createdAt != null) {
+                        created.put(id, createdAt.toLocalDateTime());
+                    }
+                    priorities.put(id, rs.getString("priority"));
+                    locations.put(id, rs.getString("location"));
+                });
+
+        List<OrderDto.BulkStatusResult> results = new ArrayList<>(orderIds.size());
+        List<Long> accepted = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            Order.OrderStatus from = current.get(orderId);
+            String rejection = validate(from, target);
+            results.add(new OrderDto.BulkStatusResult(orderId, rejection == null, from, rejection));
+            if (rejection == null) {
+                accepted.add(orderId);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            namedParameterJdbcTemplate.update(UPDATE_STATUS, new MapSqlParameterSource()
+                    .addValue("status", target.name())
+                    .addValue("now", now)
+                    .addValue("ids", accepted));
+
+            String updatedBy = getCurrentUsername();
+            jdbcTemplate.batchUpdate(INSERT_TRACKING, accepted, accepted.size(), (ps, orderId) -> {
+                ps.setLong(1, orderId);
+                ps.setString(2, target.name());
+                ps.setString(3, remarksFor(request, current.get(orderId)));
+                ps.setString(4, updatedBy);
+                ps.setTimestamp(5, now);
+            });
+            List<OrderChanged.Change> changes = new ArrayList<>(accepted.size());
+            for (Long orderId : accepted) {
+                Long vendorId = vendors.get(orderId);
+                changes.add(new OrderChanged.Change(orderId, owners.get(orderId), null, locations.get(orderId),
+                        priorities.get(orderId), created.get(orderId), current.get(orderId), vendorId, target,
+                        vendorId, remarksFor(request, current.get(orderId)), updatedBy, now.toLocalDateTime()));
+            }
+            eventPublisher.publishEvent(new OrderChanged(changes));
+        }
+
+        log.info("Bulk status update to {}: {} of {} orders updated", target, accepted.size(), orderIds.size());
+        return new OrderDto.BulkStatusResponse(orderIds.size(), accepted.size(),
+                orderIds.size() - accepted.size(), results);
+    }
+
+    private static String remarksFor(OrderDto.BulkStatusRequest request, Order.OrderStatus from) {
+        return request.getRemarks() != null ? request.getRemarks() : "Status updated from " + from;
+    }
+
+    private static String validate(Order.OrderStatus from, Order.OrderStatus target) {
+        if (from == null) {
+            return "Order not found";
+        }
+        if (from == target) {
+            return "Order is already " + target;
+        }
+        if (TERMINAL.contains(from)) {
+            return "Cannot change status of a " + from + " order.";
+        }
+        return null;
+    }
+
+    private String getCurrentUsername() {
+        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder
+                .getContext().getAuthentication().getPrincipal();
+        return userDetails.getUsername();
+    }
+}
@@ -0,0 +1,42 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.dto.StatusTrackingDto;
+import com.facilitydesk.facility_desk.model.Order;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published by every order write path inside its transaction, with one entry per created or
+ * changed order. The outbox writes its rows before the commit; the search index, workload
+ * counters, dashboard rollup, SLA clocks and status streams apply it once the commit succeeds.
+ */
+public record OrderChanged(List<Change> changes) {
+
+    public static OrderChanged of(Change change) {
+        return new OrderChanged(List.of(change));
+    }
+
+    /**
+     * One order's move from its previous status and vendor (both null for a new order) to the
+     * current ones. The description is only set for new orders, which the search index adds.
+     */
+    public record Change(long orderId, Long userId, String description, String location, String priority,
+                         LocalDateTime createdAt, Order.OrderStatus previousStatus, Long previousVendorId,
+                         Order.OrderStatus status, Long vendorId, String remarks, String updatedBy,
+                         LocalDateTime updatedAt) {
+
+        public boolean isCreation() {
+            return previousStatus == null;
+        }
+
+        public OrderStatsRollup.Facets facets() {
+            return new OrderStatsRollup.Facets(priority, location, createdAt != null ? createdAt.toLocalDate() : null);
+        }
+
+        public StatusTrackingDto.Change toStatusChange() {
+            return new StatusTrackingDto.Change(orderId, userId, vendorId, previousStatus, status, remarks,
+                    updatedBy, updatedAt);
+        }
+    }
+}
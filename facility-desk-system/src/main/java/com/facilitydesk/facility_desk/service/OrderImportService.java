@@ -0,0 +1,518 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.exception.BadRequestException;
+import com.facilitydesk.facility_desk.exception.ConflictException;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.OrderImportCheckpoint;
+import com.facilitydesk.facility_desk.repository.OrderImportCheckpointRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Streams a CSV or NDJSON order file line by line and commits it in chunks. Each chunk
+ * resolves unseen usernames and vendors with one IN query per kind (answers are kept in
+ * bounded LRU maps), inserts orders and their initial status rows as JDBC batches, and
+ * advances the import checkpoint in the same transaction. Only one chunk is ever held in
+ * memory, and only rejections and per-chunk progress are written back to the client.
+ * An upload first claims its import id, so two uploads never run the same import at once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderImportService {
+
+    private static final String INSERT_ORDER = "INSERT INTO orders " +
+            "(user_id, vendor_id, description, location, priority, status, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_TRACKING =
+            "INSERT INTO status_tracking (order_id, status, remarks, updated_by, updated_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_USERS = "SELECT id, username FROM users WHERE username IN (:keys)";
+    private static final String SELECT_VENDORS_BY_NAME = "SELECT id, name FROM vendors WHERE name IN (:keys)";
+    private static final String SELECT_VENDORS_BY_ID = "SELECT id FROM vendors WHERE id IN (:keys)";
+
+    private static final int MAX_IMPORT_ID_LENGTH = 64;
+
+    // Cached answer for a name that does not resolve to exactly one row
+    private static final long MISSING = -1L;
+    private static final long AMBIGUOUS = -2L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderImportCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.import.orders.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.import.orders.lookup-cache-size:10000}")
+    private int lookupCacheSize;
+
+    @Value("${app.import.orders.claim-lease-seconds:300}")
+    private long claimLeaseSeconds;
+
+    @PostConstruct
+    void checkSettings() {
+        // A smaller cache evicts keys of the chunk it is filled for, so every chunk queries them again
+        if (lookupCacheSize < chunkSize) {
+            throw new IllegalStateException("app.import.orders.lookup-cache-size (" + lookupCacheSize
+                    + ") must be at least app.import.orders.chunk-size (" + chunkSize + ")");
+        }
+    }
+
+    /**
+     * Returns the requested import id, or a fresh one when none was given. Re-using an id
+     * resumes that import after its last committed row.
+     */
+    public String resolveImportId(String requested) {
+        if (!StringUtils.hasText(requested)) {
+            return UUID.randomUUID().toString();
+        }
+        if (requested.trim().length() > MAX_IMPORT_ID_LENGTH) {
+            throw new BadRequestException("Import id must be at most " + MAX_IMPORT_ID_LENGTH + " characters");
+        }
+        return requested.trim();
+    }
+
+    /**
+     * Claims the import for one upload, creating its checkpoint on first use. The claim is a
+     * lease that every committed chunk renews, so an upload that died frees it on its own.
+     *
+     * @throws ConflictException when another upload of the same import id holds the claim
+     */
+    public OrderImportCheckpoint claim(String importId) {
+        try {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                OrderImportCheckpoint checkpoint = checkpointRepository.findById(importId)
+                        .orElseGet(() -> OrderImportCheckpoint.builder().importId(importId).build());
+                if (checkpoint.getClaimedUntil() != null && checkpoint.getClaimedUntil().isAfter(now)) {
+                    throw inProgress(importId);
+                }
+                checkpoint.setClaimedUntil(now.plusSeconds(claimLeaseSeconds));
+                return checkpointRepository.saveAndFlush(checkpoint);
+            });
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // Another upload claimed it between the read and the write
+            throw inProgress(importId);
+        }
+    }
+
+    /** Runs an import claimed with {@link #claim(String)} and releases the claim when it ends. */
+    public void importOrders(InputStream input, DataFormat format, OrderImportCheckpoint claimed, String importedBy,
+                             OutputStream output) throws IOException {
+        ImportState state = new ImportState(claimed, importedBy, output);
+        try {
+            importOrders(input, format, state);
+        } finally {
+            release(state);
+        }
+    }
+
+    private void importOrders(InputStream input, DataFormat format, ImportState state) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> csvColumns = format == DataFormat.CSV
+                ? CsvSupport.readHeader(reader, "username", "description") : null;
+
+        String importId = state.checkpoint.getImportId();
+        long resumeAfter = state.checkpoint.getLastRow();
+        if (resumeAfter > 0) {
+            log.info("Resuming order import {} after row {}", importId, resumeAfter);
+        }
+
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = format == DataFormat.CSV ? 1 : 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (lineNumber <= resumeAfter) {
+                    state.skipped++;
+                    continue;
+                }
+                chunk.add(format == DataFormat.CSV
+                        ? parseCsvRow(lineNumber, line, csvColumns) : parseJsonRow(lineNumber, line));
+                if (chunk.size() >= chunkSize) {
+                    processChunk(chunk, lineNumber, state);
+                    chunk.clear();
+                }
+            }
+            processChunk(chunk, lineNumber, state);
+        } catch (DataAccessException e) {
+            // The checkpoint still points at the last committed chunk, so the same upload can be retried
+            String reason = e instanceof OptimisticLockingFailureException
+                    ? "import was claimed by another upload" : e.getMostSpecificCause().getMessage();
+            log.warn("Order import {} stopped at row {}: {}", importId, state.checkpoint.getLastRow(), reason);
+            state.write(state.progress(false, "Chunk after row " + state.checkpoint.getLastRow()
+                    + " rolled back: " + reason));
+            return;
+        }
+
+        state.write(state.progress(true, null));
+        log.info("Order import {} finished: {} created, {} rejected, {} skipped", importId,
+                state.checkpoint.getCreated(), state.checkpoint.getRejected(), state.skipped);
+    }
+
+    private void processChunk(List<Row> chunk, long lastLine, ImportState state) throws IOException {
+        if (lastLine <= state.checkpoint.getLastRow()) {
+            return;
+        }
+
+        resolveUsers(chunk, state);
+        resolveVendors(chunk, state);
+        List<Row> accepted = chunk.stream().filter(row -> row.error == null).toList();
+
+        // Advanced on a managed copy: a rolled-back chunk leaves the state at the last commit, and a
+        // stale version (the lease was taken over) rolls the chunk back instead of inserting it twice
+        state.checkpoint = transactionTemplate.execute(status -> {
+            OrderImportCheckpoint checkpoint = checkpointRepository.save(state.checkpoint);
+            if (!accepted.isEmpty()) {
+                insert(accepted, state.importedBy, checkpoint.getImportId());
+            }
+            checkpoint.setLastRow(lastLine);
+            checkpoint.setCreated(checkpoint.getCreated() + accepted.size());
+            checkpoint.setRejected(checkpoint.getRejected() + chunk.size() - accepted.size());
+            checkpoint.setClaimedUntil(LocalDateTime.now().plusSeconds(claimLeaseSeconds));
+            return checkpointRepository.saveAndFlush(checkpoint);
+        });
+
+        for (Row row : chunk) {
+            if (row.error != null) {
+                state.write(new OrderDto.ImportRejection(row.line, row.error));
+            }
+        }
+        state.write(state.progress(false, null));
+        state.output.flush();
+    }
+
+    private void release(ImportState state) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                OrderImportCheckpoint checkpoint = checkpointRepository.save(state.checkpoint);
+                checkpoint.setClaimedUntil(null);
+            });
+        } catch (DataAccessException e) {
+            // Taken over by another upload, or the database is gone; either way the lease runs out
+            log.warn("Could not release order import {}: {}", state.checkpoint.getImportId(), e.getMessage());
+        }
+    }
+
+    private static ConflictException inProgress(String importId) {
+        return new ConflictException("Order import " + importId + " is already running, retry once it has finished");
+    }
+
+    private void insert(List<Row> rows, String importedBy, String importId) {
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).index = i;
+        }
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS)) {
+                for (Row row : rows) {
+                    Timestamp createdAt = Timestamp.valueOf(row.createdAt);
+                    ps.setLong(1, row.userId);
+                    if (row.vendorId != null) {
+                        ps.setLong(2, row.vendorId);
+                    } else {
+                        ps.setNull(2, Types.BIGINT);
+                    }
+                    ps.setString(3, row.data.getDescription());
+                    ps.setString(4, row.data.getLocation());
+                    ps.setString(5, row.data.getPriority());
+                    ps.setString(6, row.status.name());
+                    ps.setTimestamp(7, createdAt);
+                    ps.setTimestamp(8, createdAt);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> keys = new ArrayList<>(rows.size());
+                try (ResultSet generated = ps.getGeneratedKeys()) {
+                    while (generated.next()) {
+                        keys.add(generated.getLong(1));
+                    }
+                }
+                return keys;
+            }
+        });
+        if (ids == null || ids.size() != rows.size()) {
+            throw new IllegalStateException("Expected " + rows.size() + " generated order ids");
+        }
+
+        String remarks = "Imported (" + importId + ")";
+        jdbcTemplate.batchUpdate(INSERT_TRACKING, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, ids.get(row.index));
+            ps.setString(2, row.status.name());
+            ps.setString(3, remarks);
+            ps.setString(4, importedBy);
+            ps.setTimestamp(5, Timestamp.valueOf(row.createdAt));
+        });
+
+        List<OrderChanged.Change> changes = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            changes.add(new OrderChanged.Change(ids.get(row.index), row.userId, row.data.getDescription(),
+                    row.data.getLocation(), row.data.getPriority(), row.createdAt, null, null, row.status,
+                    row.vendorId, remarks, importedBy, row.createdAt));
+        }
+        eventPublisher.publishEvent(new OrderChanged(changes));
+    }
+
+    // Rows are matched against a map of this chunk's keys; the LRU only saves queries across chunks
+    private void resolveUsers(List<Row> chunk, ImportState state) {
+        Map<String, Long> resolved = new HashMap<>();
+        Set<String> unknown = new HashSet<>();
+        for (Row row : chunk) {
+            if (row.error == null && !resolved.containsKey(row.username())) {
+                Long cached = state.users.get(row.username());
+                if (cached != null) {
+                    resolved.put(row.username(), cached);
+                } else {
+                    unknown.add(row.username());
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            Map<String, Long> found = new HashMap<>();
+            namedParameterJdbcTemplate.query(SELECT_USERS, new MapSqlParameterSource("keys", unknown), rs -> {
+                found.put(rs.getString("username").toLowerCase(), rs.getLong("id"));
+            });
+            for (String username : unknown) {
+                long userId = found.getOrDefault(username, MISSING);
+                resolved.put(username, userId);
+                state.users.put(username, userId);
+            }
+        }
+
+        for (Row row : chunk) {
+            if (row.error == null) {
+                Long userId = resolved.get(row.username());
+                if (userId == null || userId == MISSING) {
+                    row.error = "Unknown user: " + row.data.getUsername();
+                } else {
+                    row.userId = userId;
+                }
+            }
+        }
+    }
+
+    private void resolveVendors(List<Row> chunk, ImportState state) {
+        Map<String, Long> resolved = new HashMap<>();
+        Set<Long> unknownIds = new HashSet<>();
+        Set<String> unknownNames = new HashSet<>();
+        for (Row row : chunk) {
+            String key = row.vendorKey();
+            if (row.error != null || key == null || resolved.containsKey(key)) {
+                continue;
+            }
+            Long cached = state.vendors.get(key);
+            if (cached != null) {
+                resolved.put(key, cached);
+                continue;
+            }
+            Long id = parseId(key);
+            if (id != null) {
+                unknownIds.add(id);
+            } else {
+                unknownNames.add(row.data.getVendor().trim());
+            }
+        }
+        if (!unknownIds.isEmpty()) {
+            Set<Long> found = new HashSet<>();
+            namedParameterJdbcTemplate.query(SELECT_VENDORS_BY_ID, new MapSqlParameterSource("keys", unknownIds),
+                    rs -> {
+                        found.add(rs.getLong("id"));
+                    });
+            for (Long id : unknownIds) {
+                long vendorId = found.contains(id) ? id : MISSING;
+                resolved.put(id.toString(), vendorId);
+                state.vendors.put(id.toString(), vendorId);
+            }
+        }
+        if (!unknownNames.isEmpty()) {
+            Map<String, Long> found = new HashMap<>();
+            namedParameterJdbcTemplate.query(SELECT_VENDORS_BY_NAME, new MapSqlParameterSource("keys", unknownNames),
+                    rs -> {
+                        found.merge(rs.getString("name").toLowerCase(), rs.getLong("id"), (a, b) -> AMBIGUOUS);
+                    });
+            for (String name : unknownNames) {
+                String key = name.toLowerCase();
+                long vendorId = found.getOrDefault(key, MISSING);
+                resolved.put(key, vendorId);
+                state.vendors.put(key, vendorId);
+            }
+        }
+
+        for (Row row : chunk) {
+            String key = row.vendorKey();
+            if (row.error != null || key == null) {
+                continue;
+            }
+            Long vendorId = resolved.get(key);
+            if (vendorId == null || vendorId == MISSING) {
+                row.error = "Unknown vendor: " + row.data.getVendor();
+            } else if (vendorId == AMBIGUOUS) {
+                row.error = "Vendor name matches several vendors, use the vendor id: " + row.data.getVendor();
+            } else {
+                row.vendorId = vendorId;
+            }
+        }
+    }
+
+    private Row parseCsvRow(long lineNumber, String line, Map<String, Integer> columns) {
+        List<String> values = CsvSupport.split(line);
+        OrderDto.ImportRow data = new OrderDto.ImportRow();
+        data.setUsername(CsvSupport.column(values, columns, "username"));
+        data.setVendor(CsvSupport.column(values, columns, "vendor"));
+        data.setDescription(CsvSupport.column(values, columns, "description"));
+        data.setLocation(CsvSupport.column(values, columns, "location"));
+        data.setPriority(CsvSupport.column(values, columns, "priority"));
+        data.setStatus(CsvSupport.column(values, columns, "status"));
+        Row row = new Row(lineNumber, data);
+        String createdAt = CsvSupport.column(values, columns, "createdAt");
+        if (createdAt != null) {
+            try {
+                data.setCreatedAt(LocalDateTime.parse(createdAt));
+            } catch (DateTimeParseException e) {
+                row.error = "Invalid createdAt: " + createdAt;
+                return row;
+            }
+        }
+        return validate(row);
+    }
+
+    private Row parseJsonRow(long lineNumber, String line) {
+        try {
+            return validate(new Row(lineNumber, objectMapper.readValue(line, OrderDto.ImportRow.class)));
+        } catch (JsonProcessingException e) {
+            Row row = new Row(lineNumber, new OrderDto.ImportRow());
+            row.error = "Malformed JSON: " + e.getOriginalMessage();
+            return row;
+        }
+    }
+
+    private Row validate(Row row) {
+        OrderDto.ImportRow data = row.data;
+        if (!StringUtils.hasText(data.getUsername())) {
+            row.error = "Username is required";
+        } else if (!StringUtils.hasText(data.getDescription())) {
+            row.error = "Description is required";
+        } else {
+            try {
+                row.status = StringUtils.hasText(data.getStatus())
+                        ? Order.OrderStatus.valueOf(data.getStatus().trim().toUpperCase())
+                        : row.vendorKey() != null ? Order.OrderStatus.ASSIGNED : Order.OrderStatus.PENDING;
+            } catch (IllegalArgumentException e) {
+                row.error = "Invalid status: " + data.getStatus();
+            }
+        }
+        row.createdAt = data.getCreatedAt() != null ? data.getCreatedAt() : LocalDateTime.now();
+        return row;
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static <K> Map<K, Long> lruMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private static final class Row {
+
+        private final long line;
+        private final OrderDto.ImportRow data;
+        private int index;
+        private long userId;
+        private Long vendorId;
+        private Order.OrderStatus status;
+        private LocalDateTime createdAt;
+        private String error;
+
+        Row(long line, OrderDto.ImportRow data) {
+            this.line = line;
+            this.data = data;
+        }
+
+        String username() {
+            return data.getUsername().trim().toLowerCase();
+        }
+
+        // Ids in canonical form, so "007" and "7" are one key; names lower-cased
+        String vendorKey() {
+            if (!StringUtils.hasText(data.getVendor())) {
+                return null;
+            }
+            String vendor = data.getVendor().trim();
+            Long id = parseId(vendor);
+            return id != null ? id.toString() : vendor.toLowerCase();
+        }
+    }
+
+    private final class ImportState {
+
+        private OrderImportCheckpoint checkpoint;
+        private final String importedBy;
+        private final OutputStream output;
+        private final Map<String, Long> users = lruMap(lookupCacheSize);
+        private final Map<String, Long> vendors = lruMap(lookupCacheSize);
+        private long skipped;
+
+        ImportState(OrderImportCheckpoint checkpoint, String importedBy, OutputStream output) {
+            this.checkpoint = checkpoint;
+            this.importedBy = importedBy;
+            this.output = output;
+        }
+
+        OrderDto.ImportProgress progress(boolean done, String error) {
+            return new OrderDto.ImportProgress(checkpoint.getImportId(), checkpoint.getLastRow(),
+                    checkpoint.getCreated(), checkpoint.getRejected(), skipped, done, error);
+        }
+
+        void write(Object value) throws IOException {
+            output.write(objectMapper.writeValueAsBytes(value));
+            output.write('\n');
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.Order;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over order description and location, ranked with BM25.
+ * New orders and status changes are applied after their transaction commits, and the
+ * whole index is rebuilt from the {@code orders} table once the application is ready.
+ * Internal document numbers are assigned in insertion order, so every posting list is
+ * sorted. A query is a document-at-a-time MaxScore merge into a bounded top-k heap: each
+ * term carries an upper bound on its BM25 contribution, and once the heap is full the terms
+ * whose bounds together cannot reach its weakest hit no longer produce candidates. They are
+ * only looked up, by binary search, for documents the other terms make competitive.
+ */
+@Component
+@Slf4j
+public class OrderSearchIndex {
+
+    public static final int MAX_RESULTS = 1000;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float BOUND_SLACK = 1.0001f;
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "at", "be", "by", "for", "from", "in", "is", "it",
+            "near", "of", "on", "or", "the", "to", "with");
+    private static final String REBUILD_QUERY =
+            "SELECT id, description, location, status FROM orders WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int rebuildBatchSize;
+    private final Timer queryTimer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    // Changes that arrive while a rebuild is reading the table, replayed onto the new segment
+    private List<Consumer<Segment>> pendingDuringRebuild;
+
+    public OrderSearchIndex(JdbcTemplate jdbcTemplate,
+                            @Value("${app.search.orders.rebuild-batch-size:5000}") int rebuildBatchSize,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.queryTimer = Timer.builder("orders.search.query").publishPercentiles(0.5, 0.99).register(meterRegistry);
+        Gauge.builder("orders.search.documents", this, OrderSearchIndex::documentCount).register(meterRegistry);
+        Gauge.builder("orders.search.terms", this, OrderSearchIndex::termCount).register(meterRegistry);
+    }
+
+    /**
+     * {@code total} is exact below {@link #MAX_RESULTS}; a total of {@code MAX_RESULTS} means
+     * that many or more, since matches are not counted past the ranking cap.
+     */
+    public record Hits(List<Long> orderIds, long total) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment fresh = new Segment();
+        long[] lastId = {0};
+        int read;
+        do {
+            int before = fresh.docCount;
+            jdbcTemplate.query(REBUILD_QUERY, rs -> {
+                long id = rs.getLong("id");
+                fresh.add(id, rs.getString("description") + " " + Objects.toString(rs.getString("location"), ""),
+                        Order.OrderStatus.valueOf(rs.getString("status")));
+                lastId[0] = id;
+            }, lastId[0], rebuildBatchSize);
+            read = fresh.docCount - before;
+        } while (read == rebuildBatchSize);
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild.forEach(change -> change.accept(fresh));
+            pendingDuringRebuild = null;
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Order search index rebuilt with {} orders and {} terms in {} ms",
+                fresh.docCount, fresh.postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChanged event) {
+        List<Consumer<Segment>> changes = new ArrayList<>(event.changes().size());
+        for (OrderChanged.Change change : event.changes()) {
+            changes.add(change.isCreation()
+                    ? addition(change.orderId(), change.description(), change.location(), change.status())
+                    : s -> s.updateStatus(change.orderId(), change.status()));
+        }
+        apply(s -> changes.forEach(c -> c.accept(s)));
+    }
+
+    public void index(long orderId, String description, String location, Order.OrderStatus status) {
+        apply(addition(orderId, description, location, status));
+    }
+
+    public void updateStatus(Long orderId, Order.OrderStatus status) {
+        apply(s -> s.updateStatus(orderId, status));
+    }
+
+    /**
+     * Returns order ids ranked by BM25 over all query terms (any term may match), limited
+     * to the given statuses when the set is non-empty. Ranking and counting stop at
+     * {@link #MAX_RESULTS}.
+     */
+    public Hits search(String query, Set<Order.OrderStatus> statuses, int offset, int limit) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty() || offset >= MAX_RESULTS) {
+            return new Hits(List.of(), 0);
+        }
+        int k = Math.min(offset + limit, MAX_RESULTS);
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            return segment.search(terms, statusMask(statuses), offset, k);
+        } finally {
+            lock.readLock().unlock();
+            queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void apply(Consumer<Segment> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(segment);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Consumer<Segment> addition(long orderId, String description, String location,
+                                              Order.OrderStatus status) {
+        String text = description + " " + Objects.toString(location, "");
+        return s -> s.add(orderId, text, status);
+    }
+
+    private static int statusMask(Set<Order.OrderStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return -1;
+        }
+        int mask = 0;
+        for (Order.OrderStatus status : statuses) {
+            mask |= 1 << status.ordinal();
+        }
+        return mask;
+    }
+
+    // Lower-cased word tokens without stop words; a trailing plural "s" is folded so "pipes" finds "pipe"
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.isEmpty() || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+                token = token.substring(0, token.length() - 1);
+            }
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private int documentCount() {
+        lock.readLock().lock();
+        try {
+            return segment.docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return segment.postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record ScoredDoc(int doc, float score) {}
+
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+        // Documents are never removed, so these only widen and the score bound stays safe
+        private int maxFreq;
+        private int minLength = Integer.MAX_VALUE;
+
+        void add(int doc, int freq, int length) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            maxFreq = Math.max(maxFreq, freq);
+            minLength = Math.min(minLength, length);
+        }
+
+        // First position at or after `from` whose doc is at least `target`
+        int advance(int from, int target) {
+            int low = from;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (docs[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    // Order id to document number, open addressing over primitive arrays. Slots hold doc + 1,
+    // so zero marks an empty slot
+    private static final class DocNumbers {
+
+        private long[] orderIds = new long[2048];
+        private int[] docs = new int[2048];
+        private int size;
+
+        int get(long orderId) {
+            int mask = orderIds.length - 1;
+            for (int i = slot(orderId, mask); docs[i] != 0; i = (i + 1) & mask) {
+                if (orderIds[i] == orderId) {
+                    return docs[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        void put(long orderId, int doc) {
+            if ((size + 1) * 2 > orderIds.length) {
+                long[] oldIds = orderIds;
+                int[] oldDocs = docs;
+                orderIds = new long[oldIds.length * 2];
+                docs = new int[oldDocs.length * 2];
+                for (int i = 0; i < oldIds.length; i++) {
+                    if (oldDocs[i] != 0) {
+                        insert(oldIds[i], oldDocs[i]);
+                    }
+                }
+            }
+            insert(orderId, doc + 1);
+            size++;
+        }
+
+        private void insert(long orderId, int slotValue) {
+            int mask = orderIds.length - 1;
+            int i = slot(orderId, mask);
+            while (docs[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            orderIds[i] = orderId;
+            docs[i] = slotValue;
+        }
+
+        private static int slot(long orderId, int mask) {
+            long h = orderId * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final DocNumbers docByOrderId = new DocNumbers();
+        private long[] orderIds = new long[1024];
+        private int[] lengths = new int[1024];
+        private byte[] statuses = new byte[1024];
+        private int docCount;
+        private long totalLength;
+
+        void add(long orderId, String text, Order.OrderStatus status) {
+            int existing = docByOrderId.get(orderId);
+            if (existing >= 0) {
+                statuses[existing] = (byte) status.ordinal();
+                return;
+            }
+            if (docCount == orderIds.length) {
+                int capacity = docCount * 2;
+                orderIds = Arrays.copyOf(orderIds, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+            }
+
+            List<String> tokens = tokenize(text);
+            int doc = docCount++;
+            orderIds[doc] = orderId;
+            lengths[doc] = tokens.size();
+            statuses[doc] = (byte) status.ordinal();
+            totalLength += tokens.size();
+            docByOrderId.put(orderId, doc);
+
+            Map<String, Integer> frequencies = new HashMap<>();
+            tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+            frequencies.forEach((term, freq) ->
+                    postings.computeIfAbsent(term, t -> new Postings()).add(doc, freq, tokens.size()));
+        }
+
+        void updateStatus(long orderId, Order.OrderStatus status) {
+            int doc = docByOrderId.get(orderId);
+            if (doc >= 0) {
+                statuses[doc] = (byte) status.ordinal();
+            }
+        }
+
+        Hits search(List<String> terms, int statusMask, int offset, int k) {
+            List<Postings> matched = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null) {
+                    matched.add(list);
+                }
+            }
+            if (matched.isEmpty()) {
+                return new Hits(List.of(), 0);
+            }
+
+            int n = matched.size();
+            int[][] docs = new int[n][];
+            int[][] freqs = new int[n][];
+            int[] sizes = new int[n];
+            float[] weights = new float[n];
+            float[] bounds = new float[n];
+            float lengthFactor = K1 * B / Math.max(1f, (float) totalLength / docCount);
+            float baseNorm = K1 * (1 - B);
+            for (int t = 0; t < n; t++) {
+                Postings list = matched.get(t);
+                docs[t] = list.docs;
+                freqs[t] = list.freqs;
+                sizes[t] = list.size;
+                // idf * (k1 + 1), the per-term factor of the BM25 numerator
+                weights[t] = (float) Math.log(1 + (docCount - list.size + 0.5) / (list.size + 0.5)) * (K1 + 1);
+                // The most this term adds to any score: its highest frequency in its shortest document
+                bounds[t] = weights[t] * list.maxFreq / (list.maxFreq + baseNorm + lengthFactor * list.minLength);
+            }
+            long total = count(docs, sizes, statusMask);
+
+            // Terms by ascending bound, with reach[i] the sum of the bounds up to and including position i.
+            // Terms before firstEssential cannot reach the heap on their own and produce no candidates
+            Integer[] boxed = new Integer[n];
+            for (int t = 0; t < n; t++) {
+                boxed[t] = t;
+            }
+            Arrays.sort(boxed, Comparator.comparingDouble(t -> bounds[t]));
+            int[] byBound = new int[n];
+            float[] reach = new float[n];
+            for (int i = 0; i < n; i++) {
+                byBound[i] = boxed[i];
+                reach[i] = (i > 0 ? reach[i - 1] : 0) + bounds[byBound[i]];
+            }
+            int firstEssential = 0;
+
+            int[] cursors = new int[n];
+            float[] contributions = new float[n];
+            // Min-heap on (score, doc): the root is the weakest hit, and on equal scores the older order
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(k + 1,
+                    Comparator.comparingDouble(ScoredDoc::score).thenComparingInt(ScoredDoc::doc));
+
+            while (firstEssential < n) {
+                int doc = Integer.MAX_VALUE;
+                for (int i = firstEssential; i < n; i++) {
+                    int t = byBound[i];
+                    if (cursors[t] < sizes[t] && docs[t][cursors[t]] < doc) {
+                        doc = docs[t][cursors[t]];
+                    }
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+
+                boolean wanted = (statusMask & (1 << statuses[doc])) != 0;
+                float norm = baseNorm + lengthFactor * lengths[doc];
+                float partial = 0;
+                Arrays.fill(contributions, 0);
+                for (int i = firstEssential; i < n; i++) {
+                    int t = byBound[i];
+                    int c = cursors[t];
+                    if (c < sizes[t] && docs[t][c] == doc) {
+                        if (wanted) {
+                            int freq = freqs[t][c];
+                            contributions[t] = weights[t] * freq / (freq + norm);
+                            partial += contributions[t];
+                        }
+                        cursors[t] = c + 1;
+                    }
+                }
+                if (!wanted) {
+                    continue;
+                }
+                float threshold = top.size() < k ? Float.NEGATIVE_INFINITY : top.peek().score();
+                boolean competitive = true;
+                for (int i = firstEssential - 1; i >= 0; i--) {
+                    if (!canReach(partial + reach[i], threshold)) {
+                        competitive = false;
+                        break;
+                    }
+                    int t = byBound[i];
+                    cursors[t] = matched.get(t).advance(cursors[t], doc);
+                    if (cursors[t] < sizes[t] && docs[t][cursors[t]] == doc) {
+                        int freq = freqs[t][cursors[t]];
+                        contributions[t] = weights[t] * freq / (freq + norm);
+                        partial += contributions[t];
+                    }
+                }
+                if (!competitive) {
+                    continue;
+                }
+                // Summed in query term order, so the score does not depend on which terms were essential
+                float score = 0;
+                for (int t = 0; t < n; t++) {
+                    score += contributions[t];
+                }
+
+                // A later doc with an equal score is newer, so it also displaces the current weakest hit
+                if (top.size() < k) {
+                    top.offer(new ScoredDoc(doc, score));
+                } else if (score >= threshold) {
+                    top.poll();
+                    top.offer(new ScoredDoc(doc, score));
+                } else {
+                    continue;
+                }
+                if (top.size() == k) {
+                    float weakest = top.peek().score();
+                    while (firstEssential < n && !canReach(reach[firstEssential], weakest)) {
+                        firstEssential++;
+                    }
+                }
+            }
+
+            List<Long> ranked = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ranked.add(orderIds[top.poll().doc()]);
+            }
+            Collections.reverse(ranked);
+            List<Long> page = offset < ranked.size() ? ranked.subList(offset, ranked.size()) : List.of();
+            return new Hits(List.copyOf(page), total);
+        }
+
+        // Docs in the wanted statuses that match any term, counted up to MAX_RESULTS and no further
+        private long count(int[][] docs, int[] sizes, int statusMask) {
+            int n = docs.length;
+            if (statusMask == -1) {
+                for (int size : sizes) {
+                    if (size >= MAX_RESULTS) {
+                        return MAX_RESULTS;
+                    }
+                }
+            }
+            int[] cursors = new int[n];
+            long total = 0;
+            while (total < MAX_RESULTS) {
+                int doc = Integer.MAX_VALUE;
+                for (int t = 0; t < n; t++) {
+                    if (cursors[t] < sizes[t] && docs[t][cursors[t]] < doc) {
+                        doc = docs[t][cursors[t]];
+                    }
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+                for (int t = 0; t < n; t++) {
+                    if (cursors[t] < sizes[t] && docs[t][cursors[t]] == doc) {
+                        cursors[t]++;
+                    }
+                }
+                if ((statusMask & (1 << statuses[doc])) != 0) {
+                    total++;
+                }
+            }
+            return total;
+        }
+
+        // Bounds and partial scores are float sums in a different order from the final score, so
+        // they are given a little slack: a doc that would tie the weakest hit is never pruned
+        private static boolean canReach(float upperBound, float threshold) {
+            return upperBound * BOUND_SLACK >= threshold;
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package com.facilitydesk.facility_desk.service;
 
+import com.facilitydesk.facility_desk.dto.CursorPage;
+import com.facilitydesk.facility_desk.dto.EntityTag;
 import com.facilitydesk.facility_desk.dto.OrderDto;
 import com.facilitydesk.facility_desk.exception.BadRequestException;
 import com.facilitydesk.facility_desk.exception.ResourceNotFoundException;
 import com.facilitydesk.facility_desk.model.*;
 import com.facilitydesk.facility_desk.repository.OrderRepository;
+import com.facilitydesk.facility_desk.repository.OrderSpecifications;
 import com.facilitydesk.facility_desk.repository.StatusTrackingRepository;
 import com.facilitydesk.facility_desk.repository.UserRepository;
 import com.facilitydesk.facility_desk.security.UserDetailsImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -27,24 +40,69 @@ public class OrderService {
     private final UserRepository userRepository;
     private final VendorService vendorService;
     private final StatusTrackingRepository statusTrackingRepository;
+    private final OrderSearchIndex orderSearchIndex;
+    private final OptimisticRetry optimisticRetry;
+    private final VendorAssignmentEngine vendorAssignmentEngine;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public Page<OrderDto.Response> getAllOrders(Order.OrderStatus status, Pageable pageable) {
-        return orderRepository.findAllWithFilters(status, pageable).map(this::toResponse);
+    public Page<OrderDto.Response> getAllOrders(OrderDto.SearchCriteria criteria, Pageable pageable) {
+        return orderRepository.search(OrderSpecifications.matching(criteria), pageable);
     }
 
     public Page<OrderDto.Response> getOrdersByCurrentUser(Pageable pageable) {
         Long userId = getCurrentUserId();
-        return orderRepository.findByUserId(userId, pageable).map(this::toResponse);
+        return orderRepository.findResponsesByUserId(userId, pageable);
     }
 
     public Page<OrderDto.Response> getOrdersByVendor(Long vendorId, Pageable pageable) {
-        return orderRepository.findByVendorId(vendorId, pageable).map(this::toResponse);
+        return orderRepository.findResponsesByVendorId(vendorId, pageable);
+    }
+
+    public CursorPage<OrderDto.Response> getOrdersAfter(Order.OrderStatus status, String cursor, int size) {
+        CursorPage.Key after = CursorPage.Key.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = CursorPage.probeLimit(pageSize);
+        List<OrderDto.Response> rows;
+        if (after.isFirst()) {
+            rows = status == null ? orderRepository.findFirstPage(limit)
+                    : orderRepository.findFirstPageByStatus(status, limit);
+        } else {
+            rows = status == null ? orderRepository.findPageAfter(after.createdAt(), after.id(), limit)
+                    : orderRepository.findPageAfterByStatus(status, after.createdAt(), after.id(), limit);
+        }
+        return CursorPage.of(rows, pageSize, r -> new CursorPage.Key(r.getCreatedAt(), r.getId()), r -> r);
+    }
+
+    // Ranked by relevance; rows are loaded in one projection query and kept in index order
+    public Page<OrderDto.Response> searchOrders(String query, Set<Order.OrderStatus> statuses, Pageable pageable) {
+        OrderSearchIndex.Hits hits = orderSearchIndex.search(query, statuses,
+                (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits.orderIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.total());
+        }
+        Map<Long, OrderDto.Response> byId = orderRepository.findResponsesByIdIn(hits.orderIds()).stream()
+                .collect(Collectors.toMap(OrderDto.Response::getId, Function.identity()));
+        List<OrderDto.Response> content = hits.orderIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, hits.total());
     }
 
     public OrderDto.Response getOrderById(Long id) {
         return toResponse(findOrderById(id));
     }
 
+    // Answers conditional requests without loading the order
+    public EntityTag getOrderTag(Long id) {
+        OrderRepository.OrderVersionStamp stamp = orderRepository.findVersionStampById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", id));
+        LocalDateTime lastModified = stamp.getVendorUpdatedAt() != null && stamp.getUpdatedAt() != null
+                && stamp.getVendorUpdatedAt().isAfter(stamp.getUpdatedAt())
+                ? stamp.getVendorUpdatedAt() : stamp.getUpdatedAt();
+        return EntityTag.of(lastModified, id, stamp.getVersion(), stamp.getVendorVersion());
+    }
+
     @Transactional
     public OrderDto.Response createOrder(OrderDto.Request request) {
         Long userId = getCurrentUserId();
@@ -58,25 +116,52 @@ public class OrderService {
                 .priority(request.getPriority())
                 .status(Order.OrderStatus.PENDING);
 
+        String remarks = "Order created";
         if (request.getVendorId() != null) {
             Vendor vendor = vendorService.findVendorById(request.getVendorId());
             builder.vendor(vendor).status(Order.OrderStatus.ASSIGNED);
+        } else if (vendorAssignmentEngine.isEnabled()) {
+            Optional<Long> vendorId = vendorAssignmentEngine.reserveLeastLoaded();
+            if (vendorId.isPresent()) {
+                Vendor vendor = vendorService.findVendorById(vendorId.get());
+                builder.vendor(vendor).status(Order.OrderStatus.ASSIGNED);
+                remarks = "Order created, auto-assigned to vendor: " + vendor.getName();
+            }
         }
 
         Order order = orderRepository.save(builder.build());
 
         // Create initial status tracking entry
-        addStatusTracking(order, order.getStatus(), "Order created", getCurrentUsername());
+        StatusTracking tracking = addStatusTracking(order, order.getStatus(), remarks, getCurrentUsername());
+        publishChange(order, null, null, tracking);
 
         log.info("Order created with id: {}", order.getId());
         return toResponse(order);
     }
 
-    @Transactional
-    public OrderDto.Response updateOrderStatus(Long orderId, OrderDto.StatusUpdateRequest request) {
-        Order order = findOrderById(orderId);
+    public OrderDto.Response updateOrderStatus(Long orderId, OrderDto.StatusUpdateRequest request, String ifMatch) {
+        return optimisticRetry.execute("Order " + orderId, () -> applyStatusUpdate(orderId, request, ifMatch));
+    }
+
+    public OrderDto.Response assignVendor(Long orderId, OrderDto.AssignRequest request, String ifMatch) {
+        return optimisticRetry.execute("Order " + orderId, () -> applyVendorAssignment(orderId, request, ifMatch));
+    }
+
+    public void deleteOrder(Long id) {
+        optimisticRetry.execute("Order " + id, () -> {
+            applyCancellation(id);
+            return null;
+        });
+    }
+
+    // Each apply* method runs in one retry attempt's transaction and re-reads the order first, so
+    // an If-Match tag is compared with the version the update is actually applied to
+    private OrderDto.Response applyStatusUpdate(Long orderId, OrderDto.StatusUpdateRequest request, String ifMatch) {
+        Order order = findOrderForChange(orderId);
+        tagOf(order).checkIfMatch(ifMatch, "Order " + orderId);
 
         Order.OrderStatus oldStatus = order.getStatus();
+        Long oldVendorId = vendorIdOf(order);
         order.setStatus(request.getStatus());
 
         if (request.getVendorId() != null) {
@@ -84,42 +169,48 @@ public class OrderService {
             order.setVendor(vendor);
         }
 
-        Order saved = orderRepository.save(order);
-        addStatusTracking(saved, request.getStatus(),
+        Order saved = orderRepository.saveAndFlush(order);
+        StatusTracking tracking = addStatusTracking(saved, request.getStatus(),
                 request.getRemarks() != null ? request.getRemarks() : "Status updated from " + oldStatus,
                 getCurrentUsername());
+        publishChange(saved, oldStatus, oldVendorId, tracking);
 
         log.info("Order {} status changed from {} to {}", orderId, oldStatus, request.getStatus());
         return toResponse(saved);
     }
 
-    @Transactional
-    public OrderDto.Response assignVendor(Long orderId, OrderDto.AssignRequest request) {
-        Order order = findOrderById(orderId);
+    private OrderDto.Response applyVendorAssignment(Long orderId, OrderDto.AssignRequest request, String ifMatch) {
+        Order order = findOrderForChange(orderId);
+        tagOf(order).checkIfMatch(ifMatch, "Order " + orderId);
 
         if (order.getStatus() == Order.OrderStatus.COMPLETED || order.getStatus() == Order.OrderStatus.CANCELLED) {
             throw new BadRequestException("Cannot assign vendor to a " + order.getStatus() + " order.");
         }
 
+        Order.OrderStatus oldStatus = order.getStatus();
+        Long oldVendorId = vendorIdOf(order);
         Vendor vendor = vendorService.findVendorById(request.getVendorId());
         order.setVendor(vendor);
         order.setStatus(Order.OrderStatus.ASSIGNED);
 
-        Order saved = orderRepository.save(order);
-        addStatusTracking(saved, Order.OrderStatus.ASSIGNED,
+        Order saved = orderRepository.saveAndFlush(order);
+        StatusTracking tracking = addStatusTracking(saved, Order.OrderStatus.ASSIGNED,
                 request.getRemarks() != null ? request.getRemarks() : "Assigned to vendor: " + vendor.getName(),
                 getCurrentUsername());
+        publishChange(saved, oldStatus, oldVendorId, tracking);
 
         log.info("Order {} assigned to vendor {}", orderId, vendor.getName());
         return toResponse(saved);
     }
 
-    @Transactional
-    public void deleteOrder(Long id) {
-        Order order = findOrderById(id);
+    private void applyCancellation(Long id) {
+        Order order = findOrderForChange(id);
+        Order.OrderStatus oldStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CANCELLED);
-        addStatusTracking(order, Order.OrderStatus.CANCELLED, "Order cancelled", getCurrentUsername());
-        orderRepository.save(order);
+        orderRepository.saveAndFlush(order);
+        StatusTracking tracking = addStatusTracking(order, Order.OrderStatus.CANCELLED, "Order cancelled",
+                getCurrentUsername());
+        publishChange(order, oldStatus, vendorIdOf(order), tracking);
         log.info("Order {} cancelled", id);
     }
 
@@ -132,14 +223,36 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", id));
     }
 
-    private void addStatusTracking(Order order, Order.OrderStatus status, String remarks, String updatedBy) {
+    private Order findOrderForChange(Long id) {
+        return orderRepository.findForChangeById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", id));
+    }
+
+    private void publishChange(Order order, Order.OrderStatus previousStatus, Long previousVendorId,
+                               StatusTracking tracking) {
+        eventPublisher.publishEvent(OrderChanged.of(new OrderChanged.Change(order.getId(), order.getUser().getId(),
+                order.getDescription(), order.getLocation(), order.getPriority(), order.getCreatedAt(),
+                previousStatus, previousVendorId, tracking.getStatus(), vendorIdOf(order), tracking.getRemarks(),
+                tracking.getUpdatedBy(), tracking.getUpdatedAt())));
+    }
+
+    private static EntityTag tagOf(Order order) {
+        return EntityTag.of(order.getUpdatedAt(), order.getId(), order.getVersion(),
+                order.getVendor() != null ? order.getVendor().getVersion() : null);
+    }
+
+    private static Long vendorIdOf(Order order) {
+        return order.getVendor() != null ? order.getVendor().getId() : null;
+    }
+
+    private StatusTracking addStatusTracking(Order order, Order.OrderStatus status, String remarks, String updatedBy) {
         StatusTracking tracking = StatusTracking.builder()
                 .order(order)
                 .status(status)
                 .remarks(remarks)
                 .updatedBy(updatedBy)
                 .build();
-        statusTrackingRepository.save(tracking);
+        return statusTrackingRepository.save(tracking);
     }
 
     private Long getCurrentUserId() {
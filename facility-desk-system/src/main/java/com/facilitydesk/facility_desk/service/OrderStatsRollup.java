@@ -0,0 +1,238 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.OrderStat;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Order dashboard counts by status, overall and per priority, location and creation day,
+ * kept in the {@code order_stats} table. Committed order changes are coalesced in memory
+ * and applied as one batched upsert per flush, so hot cells such as "all PENDING orders"
+ * take one write per interval instead of one per order. A rebuild recomputes the table
+ * from a single grouped scan of {@code orders} at startup and on a fixed interval.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatsRollup {
+
+    // MySQL 8.0.19+ takes a row alias and deprecates VALUES() in the update clause; MariaDB and
+    // H2 only understand VALUES(), so the statement is picked from the database on the first flush
+    private static final String UPSERT = "INSERT INTO order_stats (dimension, bucket, status, orders) " +
+            "VALUES (?, ?, ?, ?) AS new ON DUPLICATE KEY UPDATE orders = order_stats.orders + new.orders";
+    private static final String UPSERT_VALUES = "INSERT INTO order_stats (dimension, bucket, status, orders) " +
+            "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE orders = orders + VALUES(orders)";
+    private static final Pattern VERSION = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)");
+    private static final String INSERT = "INSERT INTO order_stats (dimension, bucket, status, orders) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_ALL = "DELETE FROM order_stats";
+    private static final String SCAN_QUERY = "SELECT status, priority, location, CAST(created_at AS DATE) AS created_day, " +
+            "COUNT(*) AS orders FROM orders GROUP BY status, priority, location, CAST(created_at AS DATE)";
+    private static final String READ_QUERY = "SELECT dimension, bucket, status, orders FROM order_stats " +
+            "WHERE orders <> 0 AND (dimension <> 'DAY' OR bucket >= ?)";
+    private static final Comparator<Cell> CELL_ORDER = Comparator.comparing(Cell::dimension)
+            .thenComparing(Cell::bucket)
+            .thenComparing(Cell::status);
+
+    public static final int MAX_DAYS = 366;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Net change per cell since the last flush; cells that net out to zero are removed. A rebuild
+    // replaces the map with a new generation, and each change is applied whole to one generation
+    private volatile Map<Cell, Long> pending = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile String upsert;
+
+    /** The dimension values of one order that the rollup counts it under. */
+    public record Facets(String priority, String location, LocalDate day) {
+    }
+
+    private record Cell(OrderStat.Dimension dimension, String bucket, Order.OrderStatus status) {
+    }
+
+    // Moves each order from its previous status to the new one (none for a new order) once the change commits
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChanged event) {
+        Map<Cell, Long> generation = pending;
+        for (OrderChanged.Change change : event.changes()) {
+            if (change.previousStatus() == change.status()) {
+                continue;
+            }
+            if (change.previousStatus() != null) {
+                cellsOf(change.facets(), change.previousStatus()).forEach(cell -> addPending(generation, cell, -1));
+            }
+            if (change.status() != null) {
+                cellsOf(change.facets(), change.status()).forEach(cell -> addPending(generation, cell, 1));
+            }
+        }
+    }
+
+    public OrderDto.Stats getStats(int days) {
+        LocalDate since = LocalDate.now().minusDays(Math.max(1, Math.min(days, MAX_DAYS)) - 1L);
+        Map<Order.OrderStatus, Long> byStatus = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            byStatus.put(status, 0L);
+        }
+        Map<String, Map<Order.OrderStatus, Long>> byPriority = new TreeMap<>();
+        Map<String, Map<Order.OrderStatus, Long>> byLocation = new TreeMap<>();
+        Map<LocalDate, Map<Order.OrderStatus, Long>> byDay = new TreeMap<>(Comparator.reverseOrder());
+
+        jdbcTemplate.query(READ_QUERY, rs -> {
+            String bucket = rs.getString("bucket");
+            Order.OrderStatus status = Order.OrderStatus.valueOf(rs.getString("status"));
+            long orders = rs.getLong("orders");
+            switch (OrderStat.Dimension.valueOf(rs.getString("dimension"))) {
+                case ALL -> byStatus.put(status, orders);
+                case PRIORITY -> byPriority.computeIfAbsent(bucket, b -> new EnumMap<>(Order.OrderStatus.class))
+                        .put(status, orders);
+                case LOCATION -> byLocation.computeIfAbsent(bucket, b -> new EnumMap<>(Order.OrderStatus.class))
+                        .put(status, orders);
+                case DAY -> byDay.computeIfAbsent(LocalDate.parse(bucket), d -> new EnumMap<>(Order.OrderStatus.class))
+                        .put(status, orders);
+            }
+        }, since.toString());
+
+        OrderDto.Stats stats = new OrderDto.Stats();
+        stats.setTotalOrders(byStatus.values().stream().mapToLong(Long::longValue).sum());
+        stats.setOpenOrders(byStatus.entrySet().stream()
+                .filter(e -> VendorWorkload.isOpen(e.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum());
+        stats.setByStatus(byStatus);
+        stats.setByPriority(byPriority);
+        stats.setByLocation(byLocation);
+        stats.setByDay(byDay);
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            Map<Cell, Long> generation = pending;
+            List<Map.Entry<Cell, Long>> deltas = new ArrayList<>(generation.size());
+            for (Cell cell : generation.keySet()) {
+                Long delta = generation.remove(cell);
+                if (delta != null) {
+                    deltas.add(Map.entry(cell, delta));
+                }
+            }
+            // A fixed cell order keeps concurrent flushes from several instances from deadlocking
+            deltas.sort(Map.Entry.comparingByKey(CELL_ORDER));
+            try {
+                String sql = upsertStatement();
+                transactionTemplate.executeWithoutResult(status -> write(sql, deltas));
+            } catch (DataAccessException e) {
+                deltas.forEach(d -> addPending(generation, d.getKey(), d.getValue()));
+                log.warn("Order stats flush failed, keeping {} cells for the next attempt: {}",
+                        deltas.size(), e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.stats.rebuild-interval-ms:86400000}",
+               fixedDelayString = "${app.stats.rebuild-interval-ms:86400000}")
+    public void rebuild() {
+        synchronized (writeLock) {
+            long started = System.currentTimeMillis();
+            // Changes recorded before the scan starts are counted by it, so their generation is dropped
+            // whole; later ones go to the new generation and are flushed on top of the rebuilt table.
+            // Clearing the map in place instead could keep some cells of a change that was being
+            // applied, and count them twice. A change whose commit lands just as the scan starts can
+            // still be seen by both, which the next rebuild corrects
+            pending = new ConcurrentHashMap<>();
+            Map<Cell, Long> cells = new HashMap<>();
+            jdbcTemplate.query(SCAN_QUERY, rs -> {
+                Date day = rs.getDate("created_day");
+                Facets facets = new Facets(rs.getString("priority"), rs.getString("location"),
+                        day != null ? day.toLocalDate() : null);
+                long orders = rs.getLong("orders");
+                for (Cell cell : cellsOf(facets, Order.OrderStatus.valueOf(rs.getString("status")))) {
+                    cells.merge(cell, orders, Long::sum);
+                }
+            });
+            List<Map.Entry<Cell, Long>> rows = new ArrayList<>(cells.entrySet());
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_ALL);
+                write(INSERT, rows);
+            });
+            log.info("Order stats rebuilt: {} cells in {} ms", rows.size(), System.currentTimeMillis() - started);
+        }
+    }
+
+    private String upsertStatement() {
+        if (upsert == null) {
+            upsert = jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+                DatabaseMetaData metaData = con.getMetaData();
+                return supportsRowAlias(metaData.getDatabaseProductName(), metaData.getDatabaseProductVersion())
+                        ? UPSERT : UPSERT_VALUES;
+            });
+        }
+        return upsert;
+    }
+
+    // MariaDB reports itself as MySQL through Connector/J, with a version such as 5.5.5-10.11.5-MariaDB
+    static boolean supportsRowAlias(String product, String version) {
+        if (!"MySQL".equals(product) || version == null || version.contains("MariaDB")) {
+            return false;
+        }
+        Matcher matcher = VERSION.matcher(version);
+        if (!matcher.lookingAt()) {
+            return false;
+        }
+        int[] parsed = {Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                Integer.parseInt(matcher.group(3))};
+        return Arrays.compare(parsed, new int[]{8, 0, 19}) >= 0;
+    }
+
+    private void write(String sql, List<Map.Entry<Cell, Long>> rows) {
+        jdbcTemplate.batchUpdate(sql, rows, 1000, (ps, row) -> {
+            ps.setString(1, row.getKey().dimension().name());
+            ps.setString(2, row.getKey().bucket());
+            ps.setString(3, row.getKey().status().name());
+            ps.setLong(4, row.getValue());
+        });
+    }
+
+    private static void addPending(Map<Cell, Long> generation, Cell cell, long delta) {
+        generation.merge(cell, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static List<Cell> cellsOf(Facets facets, Order.OrderStatus status) {
+        return List.of(
+                new Cell(OrderStat.Dimension.ALL, "", status),
+                new Cell(OrderStat.Dimension.PRIORITY, bucketOf(facets.priority()), status),
+                new Cell(OrderStat.Dimension.LOCATION, bucketOf(facets.location()), status),
+                new Cell(OrderStat.Dimension.DAY, facets.day() != null ? facets.day().toString() : "", status));
+    }
+
+    private static String bucketOf(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,123 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.config.WebhookProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records order and payment events for webhook delivery inside the caller's transaction, one
+ * row per subscribed endpoint, so an event is sent if and only if its change committed and the
+ * caller never waits on a receiver. {@link WebhookDispatcher} delivers the rows.
+ */
+@Component
+@EnableConfigurationProperties(WebhookProperties.class)
+public class Outbox {
+
+    public static final String ORDER = "order";
+    public static final String PAYMENT = "payment";
+
+    public static final String ORDER_CREATED = "order.created";
+    public static final String ORDER_STATUS_CHANGED = "order.status_changed";
+    public static final String ORDER_SLA_BREACHED = "order.sla_breached";
+    public static final String PAYMENT_CREATED = "payment.created";
+    public static final String PAYMENT_STATUS_CHANGED = "payment.status_changed";
+    public static final String PAYMENT_DELETED = "payment.deleted";
+
+    private static final String INSERT = "INSERT INTO outbox_events (event_id, endpoint, aggregate_type, aggregate_id, " +
+            "event_type, payload, status, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    private final WebhookProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public Outbox(WebhookProperties properties, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public record Event(String aggregateType, long aggregateId, String type, Object data) {
+    }
+
+    // The request body sent to every endpoint
+    record Envelope(String id, String type, String aggregateType, long aggregateId, LocalDateTime occurredAt,
+                    Object data) {
+    }
+
+    private record Row(String eventId, String endpoint, Event event, String payload) {
+    }
+
+    // Runs in the publishing transaction, so the rows commit or roll back with the orders they describe
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrderChanged(OrderChanged event) {
+        recordAll(event.changes().stream()
+                .map(c -> new Event(ORDER, c.orderId(), c.isCreation() ? ORDER_CREATED : ORDER_STATUS_CHANGED,
+                        c.toStatusChange()))
+                .toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String aggregateType, long aggregateId, String type, Object data) {
+        recordAll(List.of(new Event(aggregateType, aggregateId, type, data)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<Event> events) {
+        if (!properties.isEnabled() || properties.getEndpoints().isEmpty() || events.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Row> rows = new ArrayList<>();
+        for (Event event : events) {
+            String eventId = null;
+            String payload = null;
+            for (Map.Entry<String, WebhookProperties.Endpoint> endpoint : properties.getEndpoints().entrySet()) {
+                if (!endpoint.getValue().accepts(event.type())) {
+                    continue;
+                }
+                if (payload == null) {
+                    eventId = UUID.randomUUID().toString();
+                    payload = serialize(new Envelope(eventId, event.type(), event.aggregateType(),
+                            event.aggregateId(), now, event.data()));
+                }
+                rows.add(new Row(eventId, endpoint.getKey(), event, payload));
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.eventId());
+            ps.setString(2, row.endpoint());
+            ps.setString(3, row.event().aggregateType());
+            ps.setLong(4, row.event().aggregateId());
+            ps.setString(5, row.event().type());
+            ps.setString(6, row.payload());
+            ps.setTimestamp(7, timestamp);
+            ps.setTimestamp(8, timestamp);
+        });
+    }
+
+    private String serialize(Envelope envelope) {
+        try {
+            return objectMapper.writeValueAsString(envelope);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + envelope.type() + " event", e);
+        }
+    }
+}
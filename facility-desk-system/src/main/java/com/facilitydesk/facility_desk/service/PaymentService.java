@@ -1,19 +1,24 @@
 package com.facilitydesk.facility_desk.service;
 
+import com.facilitydesk.facility_desk.dto.CursorPage;
+import com.facilitydesk.facility_desk.dto.EntityTag;
 import com.facilitydesk.facility_desk.dto.PaymentDto;
 import com.facilitydesk.facility_desk.exception.BadRequestException;
 import com.facilitydesk.facility_desk.exception.ResourceNotFoundException;
 import com.facilitydesk.facility_desk.model.Order;
 import com.facilitydesk.facility_desk.model.Payment;
 import com.facilitydesk.facility_desk.repository.PaymentRepository;
+import com.facilitydesk.facility_desk.repository.VersionStamp;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -22,15 +27,33 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final OrderService orderService;
+    private final OptimisticRetry optimisticRetry;
+    private final Outbox outbox;
 
     public Page<PaymentDto.Response> getAllPayments(Pageable pageable) {
         return paymentRepository.findAll(pageable).map(this::toResponse);
     }
 
+    public CursorPage<PaymentDto.Response> getPaymentsAfter(String cursor, int size) {
+        CursorPage.Key after = CursorPage.Key.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = CursorPage.probeLimit(pageSize);
+        List<Payment> rows = after.isFirst() ? paymentRepository.findFirstPage(limit)
+                : paymentRepository.findPageAfter(after.createdAt(), after.id(), limit);
+        return CursorPage.of(rows, pageSize, p -> new CursorPage.Key(p.getCreatedAt(), p.getId()), this::toResponse);
+    }
+
     public PaymentDto.Response getPaymentById(Long id) {
         return toResponse(findPaymentById(id));
     }
 
+    // Answers conditional requests without loading the payment
+    public EntityTag getPaymentTag(Long id) {
+        VersionStamp stamp = paymentRepository.findVersionStampById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Payment", "id", id));
+        return EntityTag.of(stamp.getUpdatedAt(), id, stamp.getVersion());
+    }
+
     public PaymentDto.Response getPaymentByOrderId(Long orderId) {
         Payment payment = paymentRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment", "orderId", orderId));
@@ -57,13 +80,19 @@ public class PaymentService {
                 .build();
 
         Payment saved = paymentRepository.save(payment);
+        PaymentDto.Response response = toResponse(saved);
+        outbox.record(Outbox.PAYMENT, saved.getId(), Outbox.PAYMENT_CREATED, response);
         log.info("Payment created for order {}: {}", request.getOrderId(), saved.getId());
-        return toResponse(saved);
+        return response;
     }
 
-    @Transactional
-    public PaymentDto.Response updatePaymentStatus(Long id, PaymentDto.StatusUpdateRequest request) {
+    public PaymentDto.Response updatePaymentStatus(Long id, PaymentDto.StatusUpdateRequest request, String ifMatch) {
+        return optimisticRetry.execute("Payment " + id, () -> applyStatusUpdate(id, request, ifMatch));
+    }
+
+    private PaymentDto.Response applyStatusUpdate(Long id, PaymentDto.StatusUpdateRequest request, String ifMatch) {
         Payment payment = findPaymentById(id);
+        EntityTag.of(null, id, payment.getVersion()).checkIfMatch(ifMatch, "Payment " + id);
         payment.setStatus(request.getStatus());
 
         if (request.getTransactionId() != null) {
@@ -74,15 +103,19 @@ public class PaymentService {
             payment.setPaymentDate(LocalDateTime.now());
         }
 
-        Payment saved = paymentRepository.save(payment);
+        Payment saved = paymentRepository.saveAndFlush(payment);
+        PaymentDto.Response response = toResponse(saved);
+        outbox.record(Outbox.PAYMENT, id, Outbox.PAYMENT_STATUS_CHANGED, response);
         log.info("Payment {} status updated to {}", id, request.getStatus());
-        return toResponse(saved);
+        return response;
     }
 
     @Transactional
     public void deletePayment(Long id) {
         Payment payment = findPaymentById(id);
+        PaymentDto.Response response = toResponse(payment);
         paymentRepository.delete(payment);
+        outbox.record(Outbox.PAYMENT, id, Outbox.PAYMENT_DELETED, response);
         log.info("Payment {} deleted", id);
     }
 
@@ -0,0 +1,118 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.exception.BadRequestException;
+import com.facilitydesk.facility_desk.model.RefreshToken;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.repository.RefreshTokenRepository;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.security.UserDetailsImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens. Each rotation revokes the presented token
+ * and issues a successor in the same family; presenting an already-rotated token is
+ * treated as theft and revokes the whole family.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${app.jwt.refresh-expiration-ms}")
+    private long refreshExpirationMs;
+
+    @Transactional
+    public String issue(Long userId) {
+        return issue(userRepository.getReferenceById(userId), UUID.randomUUID().toString());
+    }
+
+    @Transactional(noRollbackFor = BadRequestException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHashWithUser(hash(rawToken))
+                .orElseThrow(() -> new BadRequestException("Invalid refresh token"));
+
+        if (!current.isRevoked() && current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadRequestException("Refresh token has expired");
+        }
+        if (current.isRevoked() || refreshTokenRepository.markRotated(current.getId()) == 0) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            log.warn("Refresh token reuse detected for user {}, family {} revoked",
+                    current.getUser().getUsername(), current.getFamilyId());
+            throw new BadRequestException("Refresh token has already been used");
+        }
+
+        User user = current.getUser();
+        if (!user.isActive()) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            throw new BadRequestException("Account is disabled");
+        }
+
+        String next = issue(user, current.getFamilyId());
+        return new Rotation(UserDetailsImpl.build(user), next);
+    }
+
+    @Transactional
+    public void revokeFamily(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        int revoked = refreshTokenRepository.revokeAllByUserId(userId);
+        log.debug("Revoked {} refresh tokens for user id {}", revoked, userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.refresh-purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    private String issue(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .user(user)
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(refreshExpirationMs)))
+                .build());
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record Rotation(UserDetailsImpl principal, String refreshToken) {}
+}
@@ -0,0 +1,13 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.SlaBreach;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published once a missed SLA deadline has been recorded, for escalation channels to pick up.
+ */
+public record SlaBreachEvent(long orderId, SlaBreach.Kind kind, String priority, Order.OrderStatus status,
+                             LocalDateTime deadline, LocalDateTime breachedAt) {
+}
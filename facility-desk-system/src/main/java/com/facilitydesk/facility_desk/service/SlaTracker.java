@@ -0,0 +1,370 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.config.SlaProperties;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.SlaBreach;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks response, resolution and on-hold SLA deadlines of every open order. Each order holds
+ * one timeout on a {@link TimingWheel} for its nearest unmet deadline; status transitions
+ * replace it after commit, and the open orders are loaded once at startup, so the orders table
+ * is never polled. When a deadline passes, the breach is recorded together with a status-history
+ * remark, counted, logged for escalation and published as a {@link SlaBreachEvent}.
+ */
+@Component
+@EnableConfigurationProperties(SlaProperties.class)
+@Slf4j
+public class SlaTracker {
+
+    private static final String SYSTEM_USER = "sla";
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_LEVELS = 4;
+
+    private static final Map<SlaBreach.Kind, Set<Order.OrderStatus>> APPLIES_TO = new EnumMap<>(Map.of(
+            SlaBreach.Kind.RESPONSE, EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.ASSIGNED),
+            SlaBreach.Kind.RESOLUTION, EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.ASSIGNED,
+                    Order.OrderStatus.IN_PROGRESS, Order.OrderStatus.ON_HOLD),
+            SlaBreach.Kind.HOLD, EnumSet.of(Order.OrderStatus.ON_HOLD)));
+    private static final SlaBreach.Kind[] KINDS = SlaBreach.Kind.values();
+
+    private static final String OPEN = "status NOT IN ('COMPLETED', 'CANCELLED')";
+    private static final String LOAD_BREACHES = "SELECT b.order_id, b.kind, b.deadline FROM sla_breaches b " +
+            "JOIN orders o ON o.id = b.order_id WHERE o." + OPEN;
+    // updated_at is when an open order last changed, which for ON_HOLD orders is when the hold began
+    private static final String LOAD_OPEN_ORDERS =
+            "SELECT id, priority, status, created_at, updated_at FROM orders WHERE " + OPEN;
+    // Written only while the order is still in a status the SLA covers, and only once per deadline.
+    // IGNORE turns a row another instance inserted after the NOT EXISTS check into a count of 0
+    // instead of a duplicate key on uk_sla_breach that rolls back the batch; ON DUPLICATE KEY UPDATE
+    // would count that row as 1 under Connector/J's default found-rows flag
+    private static final String INSERT_BREACH = "INSERT IGNORE INTO sla_breaches (order_id, kind, status, deadline, breached_at) " +
+            "SELECT o.id, ?, o.status, ?, ? FROM orders o WHERE o.id = ? AND o.status IN (%s) " +
+            "AND NOT EXISTS (SELECT 1 FROM sla_breaches b WHERE b.order_id = o.id AND b.kind = ? AND b.deadline = ?)";
+    private static final String INSERT_TRACKING = "INSERT INTO status_tracking (order_id, status, remarks, updated_by, updated_at) " +
+            "SELECT id, status, ?, ?, ? FROM orders WHERE id = ?";
+
+    private final SlaProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Outbox outbox;
+    private final Map<String, SlaProperties.Targets> targetsByPriority = new HashMap<>();
+    private final Map<SlaBreach.Kind, String> insertBreach = new EnumMap<>(SlaBreach.Kind.class);
+    private final Map<SlaBreach.Kind, Counter> breaches = new EnumMap<>(SlaBreach.Kind.class);
+    private final Map<Long, Tracked> orders = new ConcurrentHashMap<>();
+    private final TimingWheel<Tracked> wheel;
+
+    public SlaTracker(SlaProperties properties,
+                      JdbcTemplate jdbcTemplate,
+                      TransactionTemplate transactionTemplate,
+                      ApplicationEventPublisher eventPublisher,
+                      Outbox outbox,
+                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.outbox = outbox;
+        this.wheel = new TimingWheel<>(properties.getTickMs(), WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+        properties.getPriorities().forEach((priority, targets) ->
+                targetsByPriority.put(priority.toUpperCase(Locale.ROOT), targets));
+        for (SlaBreach.Kind kind : KINDS) {
+            String statuses = APPLIES_TO.get(kind).stream()
+                    .map(status -> "'" + status.name() + "'")
+                    .reduce((a, b) -> a + ", " + b)
+                    .orElseThrow();
+            insertBreach.put(kind, INSERT_BREACH.formatted(statuses));
+            breaches.put(kind, Counter.builder("orders.sla.breaches").tag("kind", kind.name()).register(meterRegistry));
+        }
+        Gauge.builder("orders.sla.tracked", orders, Map::size).register(meterRegistry);
+    }
+
+    // SLA state of one open order; replaced as a whole on every status transition
+    private static final class Tracked {
+        private final long orderId;
+        private final String priority;
+        private final long createdMs;
+        private final Order.OrderStatus status;
+        private final long statusSinceMs;
+        // Kinds already breached, by ordinal
+        private int breached;
+        private TimingWheel.Timeout<Tracked> timeout;
+
+        private Tracked(long orderId, String priority, long createdMs, Order.OrderStatus status,
+                        long statusSinceMs, int breached) {
+            this.orderId = orderId;
+            this.priority = priority;
+            this.createdMs = createdMs;
+            this.status = status;
+            this.statusSinceMs = statusSinceMs;
+            this.breached = breached;
+        }
+    }
+
+    private record Breach(Tracked order, SlaBreach.Kind kind, LocalDateTime deadline, LocalDateTime breachedAt) {
+    }
+
+    /** Starts, moves or stops the SLA clocks of each changed order once its transaction commits. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChanged event) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (OrderChanged.Change change : event.changes()) {
+            track(change.orderId(), change.priority(), change.createdAt(), change.status());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        Map<Long, Integer> breached = new HashMap<>();
+        Map<Long, Long> holdBreachedUntil = new HashMap<>();
+        jdbcTemplate.query(LOAD_BREACHES, rs -> {
+            long orderId = rs.getLong("order_id");
+            SlaBreach.Kind kind = SlaBreach.Kind.valueOf(rs.getString("kind"));
+            if (kind == SlaBreach.Kind.HOLD) {
+                holdBreachedUntil.merge(orderId, toMillis(rs.getTimestamp("deadline").toLocalDateTime()), Math::max);
+            } else {
+                breached.merge(orderId, bit(kind), (a, b) -> a | b);
+            }
+        });
+
+        Integer loaded = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(LOAD_OPEN_ORDERS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(properties.getFetchSize());
+                int count = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long orderId = rs.getLong("id");
+                        Order.OrderStatus status = Order.OrderStatus.valueOf(rs.getString("status"));
+                        long createdMs = toMillis(rs.getTimestamp("created_at"), started);
+                        long statusSinceMs = toMillis(rs.getTimestamp("updated_at"), createdMs);
+                        int bits = breached.getOrDefault(orderId, 0);
+                        // A HOLD breach only counts against the hold that is still running
+                        if (status == Order.OrderStatus.ON_HOLD
+                                && holdBreachedUntil.getOrDefault(orderId, Long.MIN_VALUE) >= statusSinceMs) {
+                            bits |= bit(SlaBreach.Kind.HOLD);
+                        }
+                        Tracked tracked = new Tracked(orderId, rs.getString("priority"), createdMs, status,
+                                statusSinceMs, bits);
+                        // Transitions committed while loading are newer than this row
+                        if (orders.putIfAbsent(orderId, tracked) == null) {
+                            schedule(tracked);
+                            count++;
+                        }
+                    }
+                }
+                return count;
+            }
+        });
+        log.info("SLA tracking loaded {} open orders in {} ms", loaded, System.currentTimeMillis() - started);
+    }
+
+    @Scheduled(fixedDelayString = "${app.sla.tick-ms:1000}")
+    public void advance() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Breach> due = new ArrayList<>();
+        for (Tracked expired : wheel.advance(now)) {
+            orders.computeIfPresent(expired.orderId, (id, tracked) -> {
+                // A transition may have replaced the state after the timeout fired
+                if (tracked == expired) {
+                    for (SlaBreach.Kind kind : KINDS) {
+                        long deadline = deadline(tracked, kind);
+                        if (deadline <= now) {
+                            tracked.breached |= bit(kind);
+                            due.add(new Breach(tracked, kind, toDateTime(deadline), toDateTime(now)));
+                        }
+                    }
+                    schedule(tracked);
+                }
+                return tracked;
+            });
+        }
+        if (!due.isEmpty()) {
+            record(due);
+        }
+    }
+
+    private void track(Long orderId, String priority, LocalDateTime createdAt, Order.OrderStatus status) {
+        if (!APPLIES_TO.get(SlaBreach.Kind.RESOLUTION).contains(status)) {
+            Tracked removed = orders.remove(orderId);
+            if (removed != null) {
+                wheel.cancel(removed.timeout);
+            }
+            return;
+        }
+        long now = System.currentTimeMillis();
+        orders.compute(orderId, (id, previous) -> {
+            int breached = 0;
+            long statusSinceMs = now;
+            if (previous != null) {
+                wheel.cancel(previous.timeout);
+                breached = previous.breached;
+                if (previous.status == status) {
+                    statusSinceMs = previous.statusSinceMs;
+                } else {
+                    // Every stretch on hold gets its own HOLD deadline
+                    breached &= ~bit(SlaBreach.Kind.HOLD);
+                }
+            }
+            Tracked tracked = new Tracked(orderId, priority, createdAt != null ? toMillis(createdAt) : now,
+                    status, statusSinceMs, breached);
+            schedule(tracked);
+            return tracked;
+        });
+    }
+
+    private void schedule(Tracked tracked) {
+        long next = Long.MAX_VALUE;
+        for (SlaBreach.Kind kind : KINDS) {
+            next = Math.min(next, deadline(tracked, kind));
+        }
+        tracked.timeout = next != Long.MAX_VALUE ? wheel.schedule(next, tracked) : null;
+    }
+
+    // Long.MAX_VALUE when the kind does not apply, has no target or has already been breached
+    private long deadline(Tracked tracked, SlaBreach.Kind kind) {
+        if ((tracked.breached & bit(kind)) != 0 || !APPLIES_TO.get(kind).contains(tracked.status)) {
+            return Long.MAX_VALUE;
+        }
+        Duration target = target(tracked.priority, kind);
+        if (target == null) {
+            return Long.MAX_VALUE;
+        }
+        long start = kind == SlaBreach.Kind.HOLD ? tracked.statusSinceMs : tracked.createdMs;
+        return start + target.toMillis();
+    }
+
+    private Duration target(String priority, SlaBreach.Kind kind) {
+        SlaProperties.Targets targets = priority != null ? targetsByPriority.get(priority.toUpperCase(Locale.ROOT)) : null;
+        Duration target = targets != null ? targetOf(targets, kind) : null;
+        return target != null ? target : targetOf(properties.getDefaults(), kind);
+    }
+
+    private static Duration targetOf(SlaProperties.Targets targets, SlaBreach.Kind kind) {
+        return switch (kind) {
+            case RESPONSE -> targets.getResponse();
+            case RESOLUTION -> targets.getResolution();
+            case HOLD -> targets.getHold();
+        };
+    }
+
+    private void record(List<Breach> due) {
+        List<Breach> recorded = new ArrayList<>(due.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBreaches(due, recorded));
+        } catch (DataAccessException e) {
+            log.error("Could not record {} SLA breaches, retrying: {}", due.size(), e.getMessage());
+            retry(due);
+            return;
+        }
+
+        for (Breach breach : recorded) {
+            Tracked order = breach.order();
+            breaches.get(breach.kind()).increment();
+            log.warn("SLA breach, escalating: order {} (priority {}, {}) missed its {} deadline of {}",
+                    order.orderId, order.priority, order.status, breach.kind(), breach.deadline());
+            eventPublisher.publishEvent(toEvent(breach));
+        }
+    }
+
+    // Deadlines already passed, so each order fires again on the next tick
+    private void retry(List<Breach> failed) {
+        for (Breach breach : failed) {
+            orders.computeIfPresent(breach.order().orderId, (id, tracked) -> {
+                if (tracked == breach.order()) {
+                    wheel.cancel(tracked.timeout);
+                    tracked.breached &= ~bit(breach.kind());
+                    schedule(tracked);
+                }
+                return tracked;
+            });
+        }
+    }
+
+    private void insertBreaches(List<Breach> due, List<Breach> recorded) {
+        for (SlaBreach.Kind kind : KINDS) {
+            List<Breach> ofKind = due.stream().filter(b -> b.kind() == kind).toList();
+            if (ofKind.isEmpty()) {
+                continue;
+            }
+            int[] counts = jdbcTemplate.batchUpdate(insertBreach.get(kind), ofKind.stream()
+                    .map(b -> new Object[]{kind.name(), Timestamp.valueOf(b.deadline()),
+                            Timestamp.valueOf(b.breachedAt()), b.order().orderId, kind.name(),
+                            Timestamp.valueOf(b.deadline())})
+                    .toList());
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    recorded.add(ofKind.get(i));
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRACKING, recorded.stream()
+                .map(b -> new Object[]{remark(b), SYSTEM_USER, Timestamp.valueOf(b.breachedAt()), b.order().orderId})
+                .toList());
+        outbox.recordAll(recorded.stream()
+                .map(b -> new Outbox.Event(Outbox.ORDER, b.order().orderId, Outbox.ORDER_SLA_BREACHED, toEvent(b)))
+                .toList());
+    }
+
+    private static SlaBreachEvent toEvent(Breach breach) {
+        Tracked order = breach.order();
+        return new SlaBreachEvent(order.orderId, breach.kind(), order.priority, order.status, breach.deadline(),
+                breach.breachedAt());
+    }
+
+    private static String remark(Breach breach) {
+        return "SLA breached: " + breach.kind().name().toLowerCase(Locale.ROOT) + " deadline "
+                + breach.deadline().withNano(0) + " missed";
+    }
+
+    private static int bit(SlaBreach.Kind kind) {
+        return 1 << kind.ordinal();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long toMillis(Timestamp timestamp, long fallback) {
+        return timestamp != null ? timestamp.getTime() : fallback;
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,306 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.dto.StatusTrackingDto;
+import com.facilitydesk.facility_desk.exception.ServiceUnavailableException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed order status changes out to Server-Sent Event subscribers of an order, a
+ * user's orders or a vendor's orders. Subscribers are async {@link SseEmitter}s, so none holds a
+ * servlet thread; each has a bounded queue drained by a small shared dispatch pool, so the
+ * committing request only enqueues. The socket write of each event runs on a writer thread
+ * that the dispatcher waits on for a bounded time, so a stalled client cannot pin the pool.
+ * A subscriber whose queue overflows or whose write times out is evicted, and idle streams
+ * get a heartbeat comment so proxies keep them open and dead clients are detected.
+ */
+@Component
+@Slf4j
+public class StatusStreamHub {
+
+    public enum Scope {
+        ORDER,
+        USER,
+        VENDOR
+    }
+
+    public record Topic(Scope scope, long id) {
+    }
+
+    private static final String EVENT_NAME = "status";
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int maxQueued;
+    private final int maxSubscribers;
+    private final long sendTimeoutMs;
+    private final ExecutorService dispatcher;
+    // Unbounded, but each subscriber has at most one write in it, and a stalled one is evicted
+    private final ExecutorService writers;
+    private final Map<Topic, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+    private final Counter evicted;
+
+    public StatusStreamHub(ObjectMapper objectMapper,
+                           @Value("${app.status-stream.timeout-ms:1800000}") long timeoutMs,
+                           @Value("${app.status-stream.max-queued:256}") int maxQueued,
+                           @Value("${app.status-stream.max-subscribers:10000}") int maxSubscribers,
+                           @Value("${app.status-stream.dispatch-threads:4}") int dispatchThreads,
+                           @Value("${app.status-stream.send-timeout-ms:5000}") long sendTimeoutMs,
+                           MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.maxQueued = maxQueued;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutMs = sendTimeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, dispatchThreads), r -> {
+            Thread t = new Thread(r, "status-stream-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger writerCount = new AtomicInteger();
+        this.writers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "status-stream-writer-" + writerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.evicted = Counter.builder("status.stream.evicted").register(meterRegistry);
+        Gauge.builder("status.stream.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /** Opens a stream on the topic; {@code initial}, when given, is sent as its first event. */
+    public SseEmitter subscribe(Topic topic, StatusTrackingDto.Change initial) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ServiceUnavailableException("Too many open status streams, please retry shortly", 5);
+        }
+        SseEmitter emitter = createEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(topic, emitter);
+        topics.compute(topic, (t, subscribers) -> {
+            Set<Subscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(e -> subscriber.remove());
+        if (initial != null) {
+            subscriber.offer(toEvent(initial));
+        }
+        return emitter;
+    }
+
+    /**
+     * Delivers each status change to subscribers of its order, its owner and its vendor once the
+     * transaction commits. A vendor the order was just moved away from is told as well.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChanged event) {
+        for (OrderChanged.Change change : event.changes()) {
+            publish(change.toStatusChange(), change.previousVendorId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.status-stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        for (Set<Subscriber> subscribers : topics.values()) {
+            subscribers.forEach(subscriber -> subscriber.offer(heartbeat));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Set<Subscriber> subscribers : topics.values()) {
+            subscribers.forEach(subscriber -> subscriber.close(false));
+        }
+        dispatcher.shutdown();
+        writers.shutdown();
+    }
+
+    SseEmitter createEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void publish(StatusTrackingDto.Change change, Long previousVendorId) {
+        List<Set<Subscriber>> targets = new ArrayList<>(4);
+        addTargets(targets, Scope.ORDER, change.getOrderId());
+        addTargets(targets, Scope.USER, change.getUserId());
+        addTargets(targets, Scope.VENDOR, change.getVendorId());
+        if (previousVendorId != null && !previousVendorId.equals(change.getVendorId())) {
+            addTargets(targets, Scope.VENDOR, previousVendorId);
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+        // Serialized once and shared by every subscriber
+        Set<ResponseBodyEmitter.DataWithMediaType> event = toEvent(change);
+        for (Set<Subscriber> subscribers : targets) {
+            subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    private void addTargets(List<Set<Subscriber>> targets, Scope scope, Long id) {
+        if (id != null) {
+            Set<Subscriber> subscribers = topics.get(new Topic(scope, id));
+            if (subscribers != null && !subscribers.isEmpty()) {
+                targets.add(subscribers);
+            }
+        }
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> toEvent(StatusTrackingDto.Change change) {
+        try {
+            return SseEmitter.event().name(EVENT_NAME).data(objectMapper.writeValueAsString(change)).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize status change", e);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Topic topic;
+        private final SseEmitter emitter;
+        private final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean evictedSlow;
+        private volatile boolean stalled;
+
+        private Subscriber(Topic topic, SseEmitter emitter) {
+            this.topic = topic;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (closed) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                close(true);
+                return;
+            }
+            queue.add(event);
+            scheduleDrain();
+        }
+
+        // Completing the emitter can block behind a send in progress, so it is left to the dispatcher
+        void close(boolean slow) {
+            if (closed) {
+                return;
+            }
+            evictedSlow = slow;
+            closed = true;
+            remove();
+            scheduleDrain();
+        }
+
+        void remove() {
+            if (removed.compareAndSet(false, true)) {
+                closed = true;
+                topics.computeIfPresent(topic, (t, subscribers) -> {
+                    subscribers.remove(this);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+                subscriberCount.decrementAndGet();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                while (!closed && (event = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    send(event);
+                }
+            } catch (TimeoutException e) {
+                evictedSlow = true;
+                stalled = true;
+                closed = true;
+                remove();
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container reports the error and completion callbacks
+                closed = true;
+                remove();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+                remove();
+            } finally {
+                draining.set(false);
+            }
+            if (closed && completed.compareAndSet(false, true)) {
+                queue.clear();
+                if (evictedSlow) {
+                    evicted.increment();
+                    log.debug("Evicted slow status stream subscriber on {}", topic);
+                }
+                complete();
+            } else if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(Set<ResponseBodyEmitter.DataWithMediaType> event)
+                throws IOException, TimeoutException, InterruptedException {
+            Future<?> write = writers.submit(() -> {
+                emitter.send(event);
+                return null;
+            });
+            try {
+                write.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        // The emitter is locked by a stalled write until the container fails it, so completing it
+        // is left to a writer thread rather than blocking the dispatcher
+        private void complete() {
+            if (!stalled) {
+                emitter.complete();
+                return;
+            }
+            try {
+                writers.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                log.debug("Status stream writers stopped, leaving {} to time out", topic);
+            }
+        }
+    }
+}
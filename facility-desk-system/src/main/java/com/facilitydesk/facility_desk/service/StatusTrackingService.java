@@ -1,20 +1,38 @@
 package com.facilitydesk.facility_desk.service;
 
 import com.facilitydesk.facility_desk.dto.StatusTrackingDto;
+import com.facilitydesk.facility_desk.exception.BadRequestException;
 import com.facilitydesk.facility_desk.exception.ResourceNotFoundException;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.Role;
 import com.facilitydesk.facility_desk.model.StatusTracking;
+import com.facilitydesk.facility_desk.repository.OrderRepository;
 import com.facilitydesk.facility_desk.repository.StatusTrackingRepository;
+import com.facilitydesk.facility_desk.repository.VendorRepository;
+import com.facilitydesk.facility_desk.security.UserDetailsImpl;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class StatusTrackingService {
 
+    private static final Set<String> STAFF_ROLES = Set.of(Role.RoleName.ROLE_ADMIN.name(),
+            Role.RoleName.ROLE_EMPLOYEE.name(), Role.RoleName.ROLE_VENDOR.name());
+
     private final StatusTrackingRepository statusTrackingRepository;
+    private final OrderRepository orderRepository;
+    private final VendorRepository vendorRepository;
+    private final StatusStreamHub statusStreamHub;
 
     public List<StatusTrackingDto.Response> getStatusHistoryForOrder(Long orderId) {
         return statusTrackingRepository.findByOrderIdOrderByUpdatedAtDesc(orderId)
@@ -31,6 +49,52 @@ public class StatusTrackingService {
         return toResponse(latest);
     }
 
+    /**
+     * Opens a live stream of status changes for one order, one user's orders or one vendor's
+     * orders, defaulting to the caller's own orders. Customers may only follow their own.
+     */
+    public SseEmitter subscribe(Long orderId, Long userId, Long vendorId) {
+        if (Stream.of(orderId, userId, vendorId).filter(id -> id != null).count() > 1) {
+            throw new BadRequestException("Specify at most one of orderId, userId and vendorId");
+        }
+        UserDetailsImpl current = (UserDetailsImpl) SecurityContextHolder
+                .getContext().getAuthentication().getPrincipal();
+        boolean staff = current.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(STAFF_ROLES::contains);
+
+        if (orderId != null) {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+            Long ownerId = order.getUser().getId();
+            if (!staff && !ownerId.equals(current.getId())) {
+                throw new AccessDeniedException("Not allowed to follow this order");
+            }
+            // The current state goes out first, so a client needs no separate read to catch up
+            StatusTracking latest = statusTrackingRepository.findTopByOrderIdOrderByUpdatedAtDesc(orderId);
+            StatusTrackingDto.Change initial = new StatusTrackingDto.Change(orderId, ownerId,
+                    order.getVendor() != null ? order.getVendor().getId() : null, null, order.getStatus(),
+                    latest != null ? latest.getRemarks() : null,
+                    latest != null ? latest.getUpdatedBy() : null,
+                    latest != null ? latest.getUpdatedAt() : order.getUpdatedAt());
+            return statusStreamHub.subscribe(new StatusStreamHub.Topic(StatusStreamHub.Scope.ORDER, orderId), initial);
+        }
+        if (vendorId != null) {
+            if (!staff) {
+                throw new AccessDeniedException("Not allowed to follow vendor orders");
+            }
+            if (!vendorRepository.existsById(vendorId)) {
+                throw new ResourceNotFoundException("Vendor", "id", vendorId);
+            }
+            return statusStreamHub.subscribe(new StatusStreamHub.Topic(StatusStreamHub.Scope.VENDOR, vendorId), null);
+        }
+        long target = userId != null ? userId : current.getId();
+        if (!staff && target != current.getId()) {
+            throw new AccessDeniedException("Not allowed to follow another user's orders");
+        }
+        return statusStreamHub.subscribe(new StatusStreamHub.Topic(StatusStreamHub.Scope.USER, target), null);
+    }
+
     public StatusTrackingDto.Response toResponse(StatusTracking st) {
         StatusTrackingDto.Response r = new StatusTrackingDto.Response();
         r.setId(st.getId());
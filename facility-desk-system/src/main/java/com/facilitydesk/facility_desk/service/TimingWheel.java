@@ -0,0 +1,169 @@
+package com.facilitydesk.facility_desk.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: {@code levels} wheels of {@code 2^bits} slots, where a slot on
+ * level {@code n} spans {@code 2^(bits*n)} ticks. A timeout is linked into the slot of the
+ * lowest level that can hold its deadline and cascades down a level each time the wheel below
+ * wraps, so scheduling and cancelling are O(1) and advancing costs O(expired + cascaded).
+ * Deadlines beyond the top level are parked in its furthest slot and re-placed on cascade.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int bits;
+    private final int mask;
+    private final Slot<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMs, int bits, int levels, long nowMs) {
+        if (tickMs <= 0 || bits <= 0 || levels <= 0 || (long) bits * levels >= 63) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry");
+        }
+        this.tickMs = tickMs;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.wheels = (Slot<T>[][]) new Slot<?>[levels][1 << bits];
+        for (Slot<T>[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Slot<>();
+            }
+        }
+        this.currentTick = nowMs / tickMs;
+    }
+
+    static final class Timeout<T> {
+        private final T payload;
+        private final long deadlineTick;
+        private Slot<T> slot;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        T payload() {
+            return payload;
+        }
+    }
+
+    // Sentinel-headed circular list, so linking and unlinking never branch on empty/ends
+    private static final class Slot<T> {
+        private final Timeout<T> head = new Timeout<>(null, 0);
+
+        Slot() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void add(Timeout<T> timeout) {
+            timeout.slot = this;
+            timeout.prev = head.prev;
+            timeout.next = head;
+            head.prev.next = timeout;
+            head.prev = timeout;
+        }
+
+        // Unlinks and returns every timeout in the slot
+        Timeout<T> drain() {
+            if (head.next == head) {
+                return null;
+            }
+            Timeout<T> first = head.next;
+            head.prev.next = null;
+            head.prev = head;
+            head.next = head;
+            return first;
+        }
+    }
+
+    synchronized Timeout<T> schedule(long deadlineMs, T payload) {
+        // Rounded up so that a timeout never fires early; one already due fires on the next tick
+        long deadlineTick = Math.floorDiv(deadlineMs, tickMs) + (Math.floorMod(deadlineMs, tickMs) != 0 ? 1 : 0);
+        Timeout<T> timeout = new Timeout<>(payload, Math.max(deadlineTick, currentTick + 1));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.slot == null) {
+            return false;
+        }
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.slot = null;
+        timeout.prev = null;
+        timeout.next = null;
+        size--;
+        return true;
+    }
+
+    /** Moves the wheel to {@code nowMs} and returns the payloads whose deadline has passed. */
+    synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long target = nowMs / tickMs;
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            expire(wheels[0][(int) (currentTick & mask)], expired);
+        }
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // Cascaded timeouts can be due on the current tick, whose slot expires right after the cascade
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int top = wheels.length - 1;
+        for (int level = 0; level <= top; level++) {
+            if (delta >> (bits * (level + 1)) == 0) {
+                wheels[level][(int) ((timeout.deadlineTick >> (bits * level)) & mask)].add(timeout);
+                return;
+            }
+        }
+        // Beyond the span of the wheel: park in the slot that cascades last
+        wheels[top][(int) (((currentTick >> (bits * top)) - 1) & mask)].add(timeout);
+    }
+
+    // When level n wraps, the current slot of level n+1 is redistributed to the levels below
+    private void cascade() {
+        for (int level = 1; level < wheels.length; level++) {
+            if ((currentTick & ((1L << (bits * level)) - 1)) != 0) {
+                return;
+            }
+            Timeout<T> timeout = wheels[level][(int) ((currentTick >> (bits * level)) & mask)].drain();
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void expire(Slot<T> slot, List<T> expired) {
+        Timeout<T> timeout = slot.drain();
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.deadlineTick > currentTick) {
+                place(timeout);
+            } else {
+                timeout.slot = null;
+                timeout.prev = null;
+                timeout.next = null;
+                size--;
+                expired.add(timeout.payload);
+            }
+            timeout = next;
+        }
+    }
+}
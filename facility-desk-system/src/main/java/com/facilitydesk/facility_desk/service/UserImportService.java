@@ -0,0 +1,359 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.dto.AuthDto;
+import com.facilitydesk.facility_desk.dto.UserDto;
+import com.facilitydesk.facility_desk.exception.BadRequestException;
+import com.facilitydesk.facility_desk.exception.ServiceUnavailableException;
+import com.facilitydesk.facility_desk.model.Role;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.security.RoleRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk user provisioning. Rows are read in chunks; each chunk is validated, checked
+ * against existing usernames and emails with one IN query per column, hashed in
+ * parallel on the shared BCrypt pool and written with JDBC batch inserts. One NDJSON
+ * result line is written per input row as each chunk completes, then a summary line.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserImportService {
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (username, email, password, active, created_at, updated_at) VALUES (?, ?, ?, 1, ?, ?)";
+    private static final String INSERT_USER_ROLE = "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+    private static final String SELECT_IDS = "SELECT id, username FROM users WHERE username IN (:usernames)";
+    // Backoff while the hashing pool is full of other callers' work: 10 ms doubling, about 1.3 s in all
+    private static final int MAX_SUBMIT_BACKOFFS = 7;
+    private static final long SUBMIT_BACKOFF_MS = 10;
+
+    private final UserRepository userRepository;
+    private final RoleRegistry roleRegistry;
+    private final PasswordHashingService passwordHashingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${app.import.users.chunk-size:500}")
+    private int chunkSize;
+
+    // Leaves room on the hashing pool for interactive logins while an import runs
+    @Value("${app.import.users.max-in-flight-hashes:16}")
+    private int maxInFlightHashes;
+
+    public void importUsers(InputStream input, DataFormat format, OutputStream output) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> csvColumns = format == DataFormat.CSV
+                ? CsvSupport.readHeader(reader, "username", "email", "password") : null;
+
+        ImportState state = new ImportState(output);
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int lineNumber = format == DataFormat.CSV ? 1 : 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(format == DataFormat.CSV ? parseCsvRow(lineNumber, line, csvColumns) : parseJsonRow(lineNumber, line));
+            if (chunk.size() >= chunkSize) {
+                processChunk(chunk, state);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, state);
+        }
+
+        state.write(new UserDto.ImportSummary(state.total, state.created, state.rejected, state.failed));
+        log.info("User import finished: {} rows, {} created, {} rejected, {} failed",
+                state.total, state.created, state.rejected, state.failed);
+    }
+
+    private void processChunk(List<Row> chunk, ImportState state) throws IOException {
+        List<Row> candidates = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error == null) {
+                row.error = validate(row, state);
+            }
+            if (row.error == null) {
+                candidates.add(row);
+            }
+        }
+
+        rejectExisting(candidates);
+        candidates.removeIf(row -> row.error != null);
+
+        if (!candidates.isEmpty()) {
+            hashPasswords(candidates);
+        }
+        // Rows whose hash failed have been dropped, possibly all of them
+        if (!candidates.isEmpty()) {
+            insert(candidates);
+        }
+
+        for (Row row : chunk) {
+            state.report(row);
+        }
+        state.output.flush();
+    }
+
+    private String validate(Row row, ImportState state) {
+        AuthDto.RegisterRequest request = row.request;
+        Set<ConstraintViolation<AuthDto.RegisterRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+        }
+        try {
+            row.roles = resolveRoles(request.getRoles());
+        } catch (BadRequestException e) {
+            return e.getMessage();
+        }
+        if (!state.usernames.add(request.getUsername().toLowerCase())) {
+            return "Duplicate username in file";
+        }
+        if (!state.emails.add(request.getEmail().toLowerCase())) {
+            return "Duplicate email in file";
+        }
+        return null;
+    }
+
+    private void rejectExisting(List<Row> candidates) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<String> takenUsernames = lowerCase(userRepository.findExistingUsernames(
+                candidates.stream().map(row -> row.request.getUsername()).toList()));
+        Set<String> takenEmails = lowerCase(userRepository.findExistingEmails(
+                candidates.stream().map(row -> row.request.getEmail()).toList()));
+
+        for (Row row : candidates) {
+            if (takenUsernames.contains(row.request.getUsername().toLowerCase())) {
+                row.error = "Username is already taken!";
+            } else if (takenEmails.contains(row.request.getEmail().toLowerCase())) {
+                row.error = "Email is already in use!";
+            }
+        }
+    }
+
+    private void hashPasswords(List<Row> rows) {
+        Deque<CompletableFuture<String>> inFlight = new ArrayDeque<>();
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (inFlight.size() >= maxInFlightHashes) {
+                await(inFlight.poll());
+            }
+            CompletableFuture<String> hash = submitHash(row.request.getPassword(), inFlight);
+            inFlight.add(hash);
+            hashes.add(hash);
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                rows.get(i).encodedPassword = hashes.get(i).join();
+            } catch (CompletionException e) {
+                rows.get(i).failure = e.getCause() instanceof ServiceUnavailableException
+                        ? "Password hashing is busy, please retry this row" : "Password hashing failed";
+            }
+        }
+        rows.removeIf(row -> row.failure != null);
+    }
+
+    // The hashing pool is shared with logins; when it is full, wait for our own oldest hash instead of failing.
+    // With none of ours left to wait for, back off a few times, then fail just this row: the 200 and earlier
+    // chunks have already been streamed, so throwing would cut the response off mid-way
+    private CompletableFuture<String> submitHash(String rawPassword, Deque<CompletableFuture<String>> inFlight) {
+        int backoffs = 0;
+        while (true) {
+            try {
+                return passwordHashingService.encodeAsync(rawPassword);
+            } catch (ServiceUnavailableException e) {
+                CompletableFuture<String> oldest = inFlight.poll();
+                if (oldest != null) {
+                    await(oldest);
+                } else if (backoffs == MAX_SUBMIT_BACKOFFS || !sleep(SUBMIT_BACKOFF_MS << backoffs++)) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void await(CompletableFuture<?> future) {
+        future.handle((value, error) -> null).join();
+    }
+
+    private void insert(List<Row> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.batchUpdate(INSERT_USER, rows, rows.size(), (ps, row) -> {
+                    ps.setString(1, row.request.getUsername());
+                    ps.setString(2, row.request.getEmail());
+                    ps.setString(3, row.encodedPassword);
+                    ps.setTimestamp(4, now);
+                    ps.setTimestamp(5, now);
+                });
+
+                Map<String, Long> ids = new HashMap<>();
+                namedParameterJdbcTemplate.query(SELECT_IDS,
+                        new MapSqlParameterSource("usernames", rows.stream().map(row -> row.request.getUsername()).toList()),
+                        rs -> {
+                            ids.put(rs.getString("username").toLowerCase(), rs.getLong("id"));
+                        });
+
+                List<long[]> userRoles = new ArrayList<>();
+                for (Row row : rows) {
+                    long userId = ids.get(row.request.getUsername().toLowerCase());
+                    row.roles.forEach(role -> userRoles.add(new long[]{userId, role.getId()}));
+                }
+                jdbcTemplate.batchUpdate(INSERT_USER_ROLE, userRoles, userRoles.size(), (ps, pair) -> {
+                    ps.setLong(1, pair[0]);
+                    ps.setLong(2, pair[1]);
+                });
+            });
+            rows.forEach(row -> row.created = true);
+        } catch (DataAccessException e) {
+            // A concurrent registration can win a username between the pre-check and the insert
+            log.warn("User import chunk of {} rows rolled back: {}", rows.size(), e.getMostSpecificCause().getMessage());
+            rows.forEach(row -> row.failure = "Chunk rolled back: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private Set<Role> resolveRoles(Set<String> strRoles) {
+        Set<Role> roles = new HashSet<>();
+        if (strRoles == null || strRoles.isEmpty()) {
+            roles.add(roleRegistry.get(Role.RoleName.ROLE_CUSTOMER));
+            return roles;
+        }
+        for (String role : strRoles) {
+            switch (role.trim().toLowerCase()) {
+                case "admin" -> roles.add(roleRegistry.get(Role.RoleName.ROLE_ADMIN));
+                case "vendor" -> roles.add(roleRegistry.get(Role.RoleName.ROLE_VENDOR));
+                case "employee" -> roles.add(roleRegistry.get(Role.RoleName.ROLE_EMPLOYEE));
+                case "customer" -> roles.add(roleRegistry.get(Role.RoleName.ROLE_CUSTOMER));
+                default -> throw new BadRequestException("Unknown role: " + role);
+            }
+        }
+        return roles;
+    }
+
+    private Row parseCsvRow(int lineNumber, String line, Map<String, Integer> columns) {
+        List<String> values = CsvSupport.split(line);
+        AuthDto.RegisterRequest request = new AuthDto.RegisterRequest();
+        request.setUsername(CsvSupport.column(values, columns, "username"));
+        request.setEmail(CsvSupport.column(values, columns, "email"));
+        request.setPassword(CsvSupport.column(values, columns, "password"));
+        String roles = CsvSupport.column(values, columns, "roles");
+        if (roles != null && !roles.isBlank()) {
+            request.setRoles(Arrays.stream(roles.split("[;|]"))
+                    .map(String::trim)
+                    .filter(role -> !role.isEmpty())
+                    .collect(Collectors.toSet()));
+        }
+        return new Row(lineNumber, request);
+    }
+
+    private Row parseJsonRow(int lineNumber, String line) {
+        try {
+            return new Row(lineNumber, objectMapper.readValue(line, AuthDto.RegisterRequest.class));
+        } catch (JsonProcessingException e) {
+            Row row = new Row(lineNumber, new AuthDto.RegisterRequest());
+            row.error = "Malformed JSON: " + e.getOriginalMessage();
+            return row;
+        }
+    }
+
+    private static Set<String> lowerCase(Collection<String> values) {
+        return values.stream().map(String::toLowerCase).collect(Collectors.toSet());
+    }
+
+    private static final class Row {
+
+        private final int line;
+        private final AuthDto.RegisterRequest request;
+        private Set<Role> roles;
+        private String encodedPassword;
+        private String error;
+        private String failure;
+        private boolean created;
+
+        Row(int line, AuthDto.RegisterRequest request) {
+            this.line = line;
+            this.request = request;
+        }
+    }
+
+    private final class ImportState {
+
+        private final OutputStream output;
+        private final Set<String> usernames = new HashSet<>();
+        private final Set<String> emails = new HashSet<>();
+        private int total;
+        private int created;
+        private int rejected;
+        private int failed;
+
+        ImportState(OutputStream output) {
+            this.output = output;
+        }
+
+        void report(Row row) throws IOException {
+            total++;
+            UserDto.ImportResult result;
+            if (row.created) {
+                created++;
+                result = new UserDto.ImportResult(row.line, row.request.getUsername(), UserDto.ImportStatus.CREATED, null);
+            } else if (row.error != null) {
+                rejected++;
+                result = new UserDto.ImportResult(row.line, row.request.getUsername(), UserDto.ImportStatus.REJECTED, row.error);
+            } else {
+                failed++;
+                result = new UserDto.ImportResult(row.line, row.request.getUsername(), UserDto.ImportStatus.FAILED,
+                        row.failure != null ? row.failure : "Not processed");
+            }
+            write(result);
+        }
+
+        void write(Object value) throws IOException {
+            output.write(objectMapper.writeValueAsBytes(value));
+            output.write('\n');
+        }
+    }
+}
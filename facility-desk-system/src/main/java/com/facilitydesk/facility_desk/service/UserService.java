@@ -1,22 +1,26 @@
 package com.facilitydesk.facility_desk.service;
 
+import com.facilitydesk.facility_desk.dto.CursorPage;
 import com.facilitydesk.facility_desk.dto.UserDto;
 import com.facilitydesk.facility_desk.exception.BadRequestException;
 import com.facilitydesk.facility_desk.exception.ResourceNotFoundException;
 import com.facilitydesk.facility_desk.model.Role;
 import com.facilitydesk.facility_desk.model.User;
-import com.facilitydesk.facility_desk.repository.RoleRepository;
 import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.security.RoleRegistry;
+import com.facilitydesk.facility_desk.security.UserChanged;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -26,8 +30,10 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final RoleRegistry roleRegistry;
+    private final PasswordHashingService passwordHashingService;
+    private final RefreshTokenService refreshTokenService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Page<UserDto.Response> getAllUsers(Pageable pageable) {
         return userRepository.findAll(pageable).map(this::toResponse);
@@ -37,6 +43,19 @@ public class UserService {
         return userRepository.findAllByActiveTrue(pageable).map(this::toResponse);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<UserDto.Response> getUsersAfter(String cursor, int size) {
+        CursorPage.Key after = CursorPage.Key.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+        Limit limit = CursorPage.probeLimit(pageSize);
+        List<User> rows = after.isFirst() ? userRepository.findFirstPage(limit)
+                : userRepository.findPageAfter(after.createdAt(), after.id(), limit);
+        if (!rows.isEmpty()) {
+            userRepository.fetchRoles(rows);
+        }
+        return CursorPage.of(rows, pageSize, u -> new CursorPage.Key(u.getCreatedAt(), u.getId()), this::toResponse);
+    }
+
     public UserDto.Response getUserById(Long id) {
         return toResponse(findUserById(id));
     }
@@ -44,27 +63,49 @@ public class UserService {
     @Transactional
     public UserDto.Response updateUser(Long id, UserDto.UpdateRequest request) {
         User user = findUserById(id);
+        boolean principalChanged = false;
+        boolean revokeTokens = false;
+        boolean revokeSessions = false;
 
         if (StringUtils.hasText(request.getEmail()) && !request.getEmail().equals(user.getEmail())) {
             if (userRepository.existsByEmail(request.getEmail())) {
                 throw new BadRequestException("Email is already in use!");
             }
             user.setEmail(request.getEmail());
+            principalChanged = true;
         }
 
         if (StringUtils.hasText(request.getPassword())) {
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            user.setPassword(passwordHashingService.encode(request.getPassword()));
+            principalChanged = true;
+            revokeTokens = true;
+            revokeSessions = true;
         }
 
-        if (request.getActive() != null) {
+        if (request.getActive() != null && request.getActive() != user.isActive()) {
             user.setActive(request.getActive());
+            principalChanged = true;
+            revokeTokens |= !request.getActive();
+            revokeSessions |= !request.getActive();
         }
 
         if (request.getRoles() != null && !request.getRoles().isEmpty()) {
-            user.setRoles(resolveRoles(request.getRoles()));
+            Set<Role> roles = resolveRoles(request.getRoles());
+            if (!roleNames(roles).equals(roleNames(user.getRoles()))) {
+                user.setRoles(roles);
+                principalChanged = true;
+                revokeTokens = true;
+            }
         }
 
         User saved = userRepository.save(user);
+        // Role changes only need fresh access tokens; refreshing re-reads roles from the database
+        if (principalChanged) {
+            eventPublisher.publishEvent(new UserChanged(saved.getId(), saved.getUsername(), revokeTokens));
+        }
+        if (revokeSessions) {
+            refreshTokenService.revokeAllForUser(saved.getId());
+        }
         log.info("User {} updated", saved.getUsername());
         return toResponse(saved);
     }
@@ -74,6 +115,8 @@ public class UserService {
         User user = findUserById(id);
         user.setActive(false);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChanged(user.getId(), user.getUsername(), true));
+        refreshTokenService.revokeAllForUser(user.getId());
         log.info("User {} deactivated", user.getUsername());
     }
 
@@ -91,12 +134,15 @@ public class UserService {
             } catch (IllegalArgumentException e) {
                 throw new BadRequestException("Invalid role: " + role);
             }
-            roles.add(roleRepository.findByName(roleName)
-                    .orElseThrow(() -> new ResourceNotFoundException("Role", "name", roleName)));
+            roles.add(roleRegistry.get(roleName));
         });
         return roles;
     }
 
+    private Set<Role.RoleName> roleNames(Set<Role> roles) {
+        return roles.stream().map(Role::getName).collect(Collectors.toSet());
+    }
+
     public UserDto.Response toResponse(User user) {
         UserDto.Response response = new UserDto.Response();
         response.setId(user.getId());
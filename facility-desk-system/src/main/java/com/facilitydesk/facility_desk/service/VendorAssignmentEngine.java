@@ -0,0 +1,140 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.StatusTracking;
+import com.facilitydesk.facility_desk.model.Vendor;
+import com.facilitydesk.facility_desk.repository.OrderRepository;
+import com.facilitydesk.facility_desk.repository.StatusTrackingRepository;
+import com.facilitydesk.facility_desk.repository.VendorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Picks the least-loaded active vendor for orders created without one, and periodically
+ * assigns the backlog of unassigned pending orders. Loads come from the in-memory
+ * {@link VendorWorkload} counters, so a pick never queries the database.
+ */
+@Component
+@Slf4j
+public class VendorAssignmentEngine {
+
+    private static final String SYSTEM_USER = "system";
+
+    private final VendorWorkload vendorWorkload;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderRepository orderRepository;
+    private final VendorRepository vendorRepository;
+    private final StatusTrackingRepository statusTrackingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Counter autoAssigned;
+
+    public VendorAssignmentEngine(VendorWorkload vendorWorkload,
+                                  TransactionTemplate transactionTemplate,
+                                  OrderRepository orderRepository,
+                                  VendorRepository vendorRepository,
+                                  StatusTrackingRepository statusTrackingRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${app.assignment.enabled:true}") boolean enabled,
+                                  @Value("${app.assignment.batch-size:200}") int batchSize,
+                                  MeterRegistry meterRegistry) {
+        this.vendorWorkload = vendorWorkload;
+        this.transactionTemplate = transactionTemplate;
+        this.orderRepository = orderRepository;
+        this.vendorRepository = vendorRepository;
+        this.statusTrackingRepository = statusTrackingRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.autoAssigned = Counter.builder("orders.assignment.auto").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves one open-order slot on the least-loaded active vendor for the current
+     * transaction; once it ends, the committed order's {@link OrderChanged} event counts it
+     * instead, or nothing does if it rolled back.
+     */
+    public Optional<Long> reserveLeastLoaded() {
+        Optional<Long> vendorId = vendorWorkload.leastLoadedActiveVendor();
+        vendorId.ifPresent(id -> vendorWorkload.reserve(id, Order.OrderStatus.ASSIGNED));
+        return vendorId;
+    }
+
+    @Scheduled(initialDelayString = "${app.assignment.sweep-interval-ms:60000}",
+               fixedDelayString = "${app.assignment.sweep-interval-ms:60000}")
+    public void assignBacklog() {
+        if (!enabled) {
+            return;
+        }
+        int total = 0;
+        while (true) {
+            List<Long> ids = orderRepository.findUnassignedPendingIds(Limit.of(batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer assigned;
+            try {
+                assigned = transactionTemplate.execute(status -> assignBatch(ids));
+            } catch (OptimisticLockingFailureException e) {
+                // An order in the batch was changed by someone else; the next sweep picks the rest up
+                log.debug("Backlog batch conflicted with a concurrent update, retrying on next sweep");
+                break;
+            }
+            total += assigned != null ? assigned : 0;
+            if (assigned == null || assigned < ids.size() || ids.size() < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Auto-assigned {} backlog orders", total);
+        }
+    }
+
+    private int assignBatch(List<Long> ids) {
+        List<OrderChanged.Change> changes = new ArrayList<>();
+        for (Order order : orderRepository.findAllById(ids)) {
+            if (order.getVendor() != null || order.getStatus() != Order.OrderStatus.PENDING) {
+                continue;
+            }
+            Optional<Long> vendorId = reserveLeastLoaded();
+            if (vendorId.isEmpty()) {
+                break;
+            }
+            Vendor vendor = vendorRepository.getReferenceById(vendorId.get());
+            order.setVendor(vendor);
+            order.setStatus(Order.OrderStatus.ASSIGNED);
+            StatusTracking tracking = statusTrackingRepository.save(StatusTracking.builder()
+                    .order(order)
+                    .status(Order.OrderStatus.ASSIGNED)
+                    .remarks("Auto-assigned to vendor: " + vendor.getName())
+                    .updatedBy(SYSTEM_USER)
+                    .build());
+            changes.add(new OrderChanged.Change(order.getId(), order.getUser().getId(), null, order.getLocation(),
+                    order.getPriority(), order.getCreatedAt(), Order.OrderStatus.PENDING, null,
+                    Order.OrderStatus.ASSIGNED, vendor.getId(), tracking.getRemarks(), SYSTEM_USER,
+                    tracking.getUpdatedAt()));
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new OrderChanged(changes));
+        }
+        autoAssigned.increment(changes.size());
+        return changes.size();
+    }
+}
@@ -0,0 +1,7 @@
+package com.facilitydesk.facility_desk.service;
+
+/**
+ * Published inside the transaction that creates, renames, activates or deactivates a vendor.
+ */
+public record VendorChanged(long vendorId, String name, boolean active) {
+}
@@ -1,12 +1,15 @@
 package com.facilitydesk.facility_desk.service;
 
+import com.facilitydesk.facility_desk.dto.EntityTag;
 import com.facilitydesk.facility_desk.dto.VendorDto;
 import com.facilitydesk.facility_desk.exception.BadRequestException;
 import com.facilitydesk.facility_desk.exception.ResourceNotFoundException;
 import com.facilitydesk.facility_desk.model.Vendor;
 import com.facilitydesk.facility_desk.repository.VendorRepository;
+import com.facilitydesk.facility_desk.repository.VersionStamp;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -21,6 +24,9 @@ import org.springframework.util.StringUtils;
 public class VendorService {
 
     private final VendorRepository vendorRepository;
+    private final VendorWorkload vendorWorkload;
+    private final OptimisticRetry optimisticRetry;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Page<VendorDto.Response> getAllVendors(Pageable pageable) {
         return vendorRepository.findAllByActiveTrue(pageable).map(this::toResponse);
@@ -34,6 +40,14 @@ public class VendorService {
         return toResponse(findVendorById(id));
     }
 
+    // The live order count is part of the representation, so the tag carries it after the
+    // version and there is no Last-Modified: updatedAt does not move when the count does
+    public EntityTag getVendorTag(Long id) {
+        VersionStamp stamp = vendorRepository.findVersionStampById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Vendor", "id", id));
+        return EntityTag.of(null, id, stamp.getVersion(), vendorWorkload.totalOrders(id));
+    }
+
     @Transactional
     public VendorDto.Response createVendor(VendorDto.Request request) {
         if (vendorRepository.existsByContactEmail(request.getContactEmail())) {
@@ -50,13 +64,20 @@ public class VendorService {
                 .build();
 
         Vendor saved = vendorRepository.save(vendor);
+        eventPublisher.publishEvent(new VendorChanged(saved.getId(), saved.getName(), saved.isActive()));
         log.info("Vendor created: {}", saved.getName());
         return toResponse(saved);
     }
 
-    @Transactional
-    public VendorDto.Response updateVendor(Long id, VendorDto.Request request) {
+    public VendorDto.Response updateVendor(Long id, VendorDto.Request request, String ifMatch) {
+        return optimisticRetry.execute("Vendor " + id, () -> applyUpdate(id, request, ifMatch));
+    }
+
+    private VendorDto.Response applyUpdate(Long id, VendorDto.Request request, String ifMatch) {
         Vendor vendor = findVendorById(id);
+        // Only the vendor's own version decides; the order count in the tag moves with order
+        // traffic and differs between nodes, and an update does not depend on it
+        EntityTag.of(null, id, vendor.getVersion()).checkIfMatchPrefix(ifMatch, "Vendor " + id);
 
         if (StringUtils.hasText(request.getName())) vendor.setName(request.getName());
         if (StringUtils.hasText(request.getServices())) vendor.setServices(request.getServices());
@@ -71,17 +92,29 @@ public class VendorService {
         if (StringUtils.hasText(request.getContactPhone())) vendor.setContactPhone(request.getContactPhone());
         if (StringUtils.hasText(request.getAddress())) vendor.setAddress(request.getAddress());
 
-        Vendor saved = vendorRepository.save(vendor);
+        Vendor saved = vendorRepository.saveAndFlush(vendor);
+        eventPublisher.publishEvent(new VendorChanged(saved.getId(), saved.getName(), saved.isActive()));
         log.info("Vendor updated: {}", saved.getName());
         return toResponse(saved);
     }
 
-    @Transactional
     public void deleteVendor(Long id) {
-        Vendor vendor = findVendorById(id);
-        vendor.setActive(false);
-        vendorRepository.save(vendor);
-        log.info("Vendor deactivated: {}", vendor.getName());
+        optimisticRetry.execute("Vendor " + id, () -> {
+            Vendor vendor = findVendorById(id);
+            vendor.setActive(false);
+            vendorRepository.saveAndFlush(vendor);
+            eventPublisher.publishEvent(new VendorChanged(id, vendor.getName(), false));
+            log.info("Vendor deactivated: {}", vendor.getName());
+            return null;
+        });
+    }
+
+    public VendorDto.Workload getWorkload(Long id) {
+        return vendorWorkload.getWorkload(id);
+    }
+
+    public VendorDto.FleetWorkload getFleetWorkload() {
+        return vendorWorkload.getFleetWorkload();
     }
 
     public Vendor findVendorById(Long id) {
@@ -99,7 +132,7 @@ public class VendorService {
         r.setContactPhone(vendor.getContactPhone());
         r.setAddress(vendor.getAddress());
         r.setActive(vendor.isActive());
-        r.setTotalOrders(vendor.getOrders().size());
+        r.setTotalOrders((int) vendorWorkload.totalOrders(vendor.getId()));
         r.setCreatedAt(vendor.getCreatedAt());
         r.setUpdatedAt(vendor.getUpdatedAt());
         return r;
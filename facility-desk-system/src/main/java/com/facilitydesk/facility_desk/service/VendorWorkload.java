@@ -0,0 +1,247 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.dto.VendorDto;
+import com.facilitydesk.facility_desk.exception.ResourceNotFoundException;
+import com.facilitydesk.facility_desk.model.Order;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live order counts per vendor and status, plus fleet-wide totals, held in {@link LongAdder}s
+ * so writers on different vendors never contend. Counts are loaded with one grouped query
+ * at startup, moved after every committed order change, and reconciled with the database on
+ * a fixed interval so that a missed or racing update is only visible until the next pass.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VendorWorkload {
+
+    private static final String LOAD_QUERY = "SELECT v.id, v.name, v.active, o.status, COUNT(o.id) AS orders " +
+            "FROM vendors v LEFT JOIN orders o ON o.vendor_id = v.id " +
+            "GROUP BY v.id, v.name, v.active, o.status";
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Counters> vendors = new ConcurrentHashMap<>();
+    private final Counters fleet = new Counters(null, true);
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.workload.reconcile-interval-ms:300000}",
+               fixedDelayString = "${app.workload.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        // Vendors created while the query runs are missing from it but not gone
+        Set<Long> known = new HashSet<>(vendors.keySet());
+        Map<Long, long[]> actual = new HashMap<>();
+        jdbcTemplate.query(LOAD_QUERY, rs -> {
+            long vendorId = rs.getLong("id");
+            Counters counters = vendors.computeIfAbsent(vendorId, id -> new Counters(null, false));
+            counters.name = rs.getString("name");
+            counters.active = rs.getBoolean("active");
+            long[] byStatus = actual.computeIfAbsent(vendorId, id -> new long[STATUSES.length]);
+            String status = rs.getString("status");
+            if (status != null) {
+                byStatus[Order.OrderStatus.valueOf(status).ordinal()] = rs.getLong("orders");
+            }
+        });
+
+        long corrected = 0;
+        for (Map.Entry<Long, long[]> entry : actual.entrySet()) {
+            Counters counters = vendors.get(entry.getKey());
+            for (int i = 0; i < STATUSES.length; i++) {
+                long drift = entry.getValue()[i] - counters.byStatus[i].sum();
+                if (drift != 0) {
+                    counters.byStatus[i].add(drift);
+                    fleet.byStatus[i].add(drift);
+                    corrected += Math.abs(drift);
+                }
+            }
+        }
+        // Rows deleted behind the application's back, which must not be picked for assignment any more
+        known.removeAll(actual.keySet());
+        for (Long vendorId : known) {
+            Counters removed = vendors.remove(vendorId);
+            if (removed != null) {
+                for (int i = 0; i < STATUSES.length; i++) {
+                    fleet.byStatus[i].add(-removed.byStatus[i].sum());
+                }
+                corrected += removed.total();
+            }
+        }
+        if (!loaded) {
+            loaded = true;
+            log.info("Vendor workload loaded for {} vendors", actual.size());
+        } else if (corrected > 0) {
+            log.info("Vendor workload reconciled for {} vendors, {} counts corrected", actual.size(), corrected);
+        }
+    }
+
+    // Moves each order between (vendor, status) buckets once the change that caused it has committed
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderChanged(OrderChanged event) {
+        for (OrderChanged.Change change : event.changes()) {
+            if (change.previousVendorId() != null && change.previousStatus() != null) {
+                add(change.previousVendorId(), change.previousStatus(), -1);
+            }
+            if (change.vendorId() != null && change.status() != null) {
+                add(change.vendorId(), change.status(), 1);
+            }
+        }
+    }
+
+    /**
+     * Counts a new order for the vendor immediately, so concurrent assignments see it, for as
+     * long as the current transaction runs. A commit counts the order through its
+     * {@link OrderChanged} event instead, which lands just before the hold is released;
+     * without a transaction there is nothing to hold and only the event counts.
+     */
+    public void reserve(Long vendorId, Order.OrderStatus status) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        add(vendorId, status, 1);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int completion) {
+                add(vendorId, status, -1);
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVendorChanged(VendorChanged event) {
+        Counters counters = vendors.computeIfAbsent(event.vendorId(), id -> new Counters(event.name(), event.active()));
+        counters.name = event.name();
+        counters.active = event.active();
+    }
+
+    // Active vendor with the fewest open orders, lowest id on a tie
+    public Optional<Long> leastLoadedActiveVendor() {
+        Long best = null;
+        long bestLoad = Long.MAX_VALUE;
+        for (Map.Entry<Long, Counters> entry : vendors.entrySet()) {
+            Counters counters = entry.getValue();
+            if (!counters.active) {
+                continue;
+            }
+            long open = counters.open();
+            if (best == null || open < bestLoad || (open == bestLoad && entry.getKey() < best)) {
+                best = entry.getKey();
+                bestLoad = open;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    public long totalOrders(Long vendorId) {
+        Counters counters = vendors.get(vendorId);
+        return counters != null ? counters.total() : 0;
+    }
+
+    public VendorDto.Workload getWorkload(Long vendorId) {
+        Counters counters = vendors.get(vendorId);
+        if (counters == null) {
+            throw new ResourceNotFoundException("Vendor", "id", vendorId);
+        }
+        return toWorkload(vendorId, counters);
+    }
+
+    public VendorDto.FleetWorkload getFleetWorkload() {
+        List<VendorDto.Workload> perVendor = new ArrayList<>(vendors.size());
+        int active = 0;
+        for (Map.Entry<Long, Counters> entry : vendors.entrySet()) {
+            perVendor.add(toWorkload(entry.getKey(), entry.getValue()));
+            if (entry.getValue().active) {
+                active++;
+            }
+        }
+        perVendor.sort(Comparator.comparingLong(VendorDto.Workload::getOpenOrders).reversed()
+                .thenComparing(VendorDto.Workload::getVendorId));
+
+        VendorDto.FleetWorkload summary = new VendorDto.FleetWorkload();
+        summary.setVendors(perVendor.size());
+        summary.setActiveVendors(active);
+        summary.setTotalOrders(fleet.total());
+        summary.setOpenOrders(fleet.open());
+        summary.setByStatus(fleet.snapshot());
+        summary.setWorkloads(perVendor);
+        return summary;
+    }
+
+    private VendorDto.Workload toWorkload(Long vendorId, Counters counters) {
+        VendorDto.Workload workload = new VendorDto.Workload();
+        workload.setVendorId(vendorId);
+        workload.setVendorName(counters.name);
+        workload.setActive(counters.active);
+        workload.setTotalOrders(counters.total());
+        workload.setOpenOrders(counters.open());
+        workload.setByStatus(counters.snapshot());
+        return workload;
+    }
+
+    private void add(Long vendorId, Order.OrderStatus status, long delta) {
+        vendors.computeIfAbsent(vendorId, id -> new Counters(null, false)).byStatus[status.ordinal()].add(delta);
+        fleet.byStatus[status.ordinal()].add(delta);
+    }
+
+    static boolean isOpen(Order.OrderStatus status) {
+        return status != Order.OrderStatus.COMPLETED && status != Order.OrderStatus.CANCELLED;
+    }
+
+    private static final class Counters {
+
+        private final LongAdder[] byStatus = new LongAdder[STATUSES.length];
+        private volatile String name;
+        // Vendors first seen through an order change stay inactive until the next reconcile
+        private volatile boolean active;
+
+        Counters(String name, boolean active) {
+            this.name = name;
+            this.active = active;
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new LongAdder();
+            }
+        }
+
+        long total() {
+            long total = 0;
+            for (LongAdder counter : byStatus) {
+                total += counter.sum();
+            }
+            return total;
+        }
+
+        long open() {
+            long open = 0;
+            for (int i = 0; i < byStatus.length; i++) {
+                if (isOpen(STATUSES[i])) {
+                    open += byStatus[i].sum();
+                }
+            }
+            return open;
+        }
+
+        Map<Order.OrderStatus, Long> snapshot() {
+            Map<Order.OrderStatus, Long> snapshot = new EnumMap<>(Order.OrderStatus.class);
+            for (int i = 0; i < byStatus.length; i++) {
+                snapshot.put(STATUSES[i], byStatus[i].sum());
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.config.WebhookProperties;
+import com.facilitydesk.facility_desk.model.OutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers outbox rows to their webhook endpoints. Each round claims a batch of due rows with a
+ * lease instead of row locks, so writers are never blocked, and hands each endpoint's rows to
+ * that endpoint's own bounded pool: its max-concurrency caps the requests in flight to it, and a
+ * slow receiver cannot hold up the others. Rows of one aggregate go out one after another in id
+ * order, and a row is not claimed while an earlier one of its aggregate waits for a retry.
+ * Failures back off exponentially with jitter until max-attempts, then the row is marked FAILED.
+ */
+@Component
+@Slf4j
+public class WebhookDispatcher {
+
+    private static final String USER_AGENT = "FacilityDesk-Webhooks/1.0";
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+    private static final int PURGE_BATCH = 5000;
+
+    // Skips rows whose aggregate has an earlier row that is backing off or claimed by another round
+    private static final String SELECT_DUE = "SELECT o.id FROM outbox_events o " +
+            "WHERE o.status = 'PENDING' AND o.endpoint IN (:endpoints) AND o.next_attempt_at <= :now " +
+            "AND (o.locked_until IS NULL OR o.locked_until < :now) " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.endpoint = o.endpoint " +
+            "AND p.aggregate_type = o.aggregate_type AND p.aggregate_id = o.aggregate_id " +
+            "AND p.status = 'PENDING' AND p.id < o.id AND (p.next_attempt_at > :now OR p.locked_until >= :now)) " +
+            "ORDER BY o.id LIMIT :limit";
+    private static final String CLAIM = "UPDATE outbox_events SET locked_by = :token, locked_until = :until " +
+            "WHERE id IN (:ids) AND status = 'PENDING' AND (locked_until IS NULL OR locked_until < :now)";
+    private static final String LOAD_CLAIMED = "SELECT id, event_id, endpoint, aggregate_type, aggregate_id, " +
+            "event_type, payload, attempts, created_at FROM outbox_events WHERE id IN (:ids) AND locked_by = :token " +
+            "ORDER BY id";
+    private static final String MARK_DELIVERED = "UPDATE outbox_events SET status = 'DELIVERED', " +
+            "attempts = attempts + 1, delivered_at = ?, last_error = NULL, locked_by = NULL, locked_until = NULL " +
+            "WHERE id = ? AND locked_by = ?";
+    private static final String MARK_FAILED = "UPDATE outbox_events SET status = ?, attempts = attempts + 1, " +
+            "next_attempt_at = ?, last_error = ?, locked_by = NULL, locked_until = NULL WHERE id = ? AND locked_by = ?";
+    private static final String RELEASE = "UPDATE outbox_events SET locked_by = NULL, locked_until = NULL " +
+            "WHERE id IN (:ids) AND locked_by = :token";
+    private static final String PURGE = "DELETE FROM outbox_events WHERE status = 'DELIVERED' AND delivered_at < ? " +
+            "LIMIT " + PURGE_BATCH;
+
+    private final WebhookProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final HttpClient httpClient;
+    private final Map<String, Target> targets = new LinkedHashMap<>();
+
+    public WebhookDispatcher(WebhookProperties properties,
+                             JdbcTemplate jdbcTemplate,
+                             NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        if (properties.isEnabled()) {
+            properties.getEndpoints().forEach((name, endpoint) ->
+                    targets.put(name, new Target(name, endpoint, meterRegistry)));
+        }
+    }
+
+    private enum Outcome {
+        DELIVERED,
+        RETRY,
+        FAILED
+    }
+
+    private static final class Target {
+        private final String name;
+        private final URI uri;
+        private final byte[] secret;
+        private final Duration timeout;
+        private final ExecutorService executor;
+        private final Map<Outcome, Timer> deliveries = new EnumMap<>(Outcome.class);
+        private final Timer lag;
+
+        private Target(String name, WebhookProperties.Endpoint endpoint, MeterRegistry meterRegistry) {
+            if (!StringUtils.hasText(endpoint.getUrl())) {
+                throw new IllegalStateException("app.webhooks.endpoints." + name + ".url is required");
+            }
+            this.name = name;
+            this.uri = URI.create(endpoint.getUrl());
+            this.secret = StringUtils.hasText(endpoint.getSecret())
+                    ? endpoint.getSecret().getBytes(StandardCharsets.UTF_8) : null;
+            this.timeout = endpoint.getTimeout();
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(Math.max(1, endpoint.getMaxConcurrency()), r -> {
+                Thread t = new Thread(r, "webhook-" + name + "-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            for (Outcome outcome : Outcome.values()) {
+                deliveries.put(outcome, Timer.builder("webhooks.delivery")
+                        .tag("endpoint", name)
+                        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                        .register(meterRegistry));
+            }
+            // From the committing transaction to a successful delivery
+            this.lag = Timer.builder("webhooks.lag").tag("endpoint", name).register(meterRegistry);
+        }
+    }
+
+    private record Claimed(long id, String eventId, String endpoint, String aggregateType, long aggregateId,
+                           String eventType, String payload, int attempts, LocalDateTime createdAt) {
+    }
+
+    private record Attempt(Outcome outcome, String error, Duration retryAfter) {
+    }
+
+    private record Failure(Claimed row, OutboxEvent.Status status, LocalDateTime nextAttemptAt, String error) {
+    }
+
+    // Filled concurrently by the endpoint pools during one round
+    private static final class Results {
+        private final Queue<Long> delivered = new ConcurrentLinkedQueue<>();
+        private final Queue<Failure> failed = new ConcurrentLinkedQueue<>();
+        private final Queue<Long> released = new ConcurrentLinkedQueue<>();
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhooks.poll-interval-ms:1000}")
+    public void dispatch() {
+        if (targets.isEmpty()) {
+            return;
+        }
+        try {
+            while (dispatchBatch() >= properties.getBatchSize()) {
+                // A full batch suggests a backlog, so keep going without waiting for the next poll
+            }
+        } catch (DataAccessException e) {
+            // Claimed rows are picked up again once their lease runs out
+            log.error("Webhook dispatch round failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.webhooks.purge-interval-ms:3600000}",
+               fixedDelayString = "${app.webhooks.purge-interval-ms:3600000}")
+    public void purge() {
+        if (targets.isEmpty()) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(properties.getRetention()));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE, cutoff);
+            total += deleted;
+        } while (deleted >= PURGE_BATCH);
+        if (total > 0) {
+            log.info("Purged {} delivered webhook events", total);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        targets.values().forEach(target -> target.executor.shutdown());
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = namedParameterJdbcTemplate.queryForList(SELECT_DUE, new MapSqlParameterSource()
+                .addValue("endpoints", targets.keySet())
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("limit", properties.getBatchSize()), Long.class);
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        String token = UUID.randomUUID().toString();
+        long leaseEndsMs = System.currentTimeMillis() + properties.getLease().toMillis();
+        MapSqlParameterSource claim = new MapSqlParameterSource()
+                .addValue("token", token)
+                .addValue("until", Timestamp.valueOf(now.plus(properties.getLease())))
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("ids", due);
+        namedParameterJdbcTemplate.update(CLAIM, claim);
+        List<Claimed> claimed = namedParameterJdbcTemplate.query(LOAD_CLAIMED, claim, (rs, i) -> new Claimed(
+                rs.getLong("id"), rs.getString("event_id"), rs.getString("endpoint"),
+                rs.getString("aggregate_type"), rs.getLong("aggregate_id"), rs.getString("event_type"),
+                rs.getString("payload"), rs.getInt("attempts"), rs.getTimestamp("created_at").toLocalDateTime()));
+
+        Map<String, List<Claimed>> byAggregate = new LinkedHashMap<>();
+        for (Claimed row : claimed) {
+            byAggregate.computeIfAbsent(row.endpoint() + '\u0000' + row.aggregateType() + '\u0000' + row.aggregateId(),
+                    key -> new ArrayList<>()).add(row);
+        }
+        Results results = new Results();
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(byAggregate.size());
+        for (List<Claimed> rows : byAggregate.values()) {
+            Target target = targets.get(rows.get(0).endpoint());
+            try {
+                deliveries.add(CompletableFuture.runAsync(
+                        () -> deliverInOrder(target, rows, leaseEndsMs, results), target.executor));
+            } catch (RejectedExecutionException e) {
+                rows.forEach(row -> results.released.add(row.id()));
+            }
+        }
+        CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)).join();
+        writeResults(token, results);
+        return due.size();
+    }
+
+    private void deliverInOrder(Target target, List<Claimed> rows, long leaseEndsMs, Results results) {
+        for (int i = 0; i < rows.size(); i++) {
+            Claimed row = rows.get(i);
+            // A request must not outlive the claim, or another round could send the row again meanwhile
+            if (System.currentTimeMillis() + target.timeout.toMillis() >= leaseEndsMs) {
+                rows.subList(i, rows.size()).forEach(rest -> results.released.add(rest.id()));
+                return;
+            }
+            Attempt attempt = send(target, row);
+            if (attempt.outcome() == Outcome.DELIVERED) {
+                results.delivered.add(row.id());
+                target.lag.record(Duration.between(row.createdAt(), LocalDateTime.now()));
+                continue;
+            }
+            results.failed.add(failure(target, row, attempt));
+            if (attempt.outcome() == Outcome.RETRY) {
+                // Later events of the aggregate wait for this one
+                rows.subList(i + 1, rows.size()).forEach(rest -> results.released.add(rest.id()));
+                return;
+            }
+        }
+    }
+
+    private Attempt send(Target target, Claimed row) {
+        String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+        HttpRequest.Builder request = HttpRequest.newBuilder(target.uri)
+                .timeout(target.timeout)
+                .header("Content-Type", "application/json")
+                .header("User-Agent", USER_AGENT)
+                .header("X-Webhook-Id", row.eventId())
+                .header("X-Webhook-Event", row.eventType())
+                .header("X-Webhook-Timestamp", timestamp)
+                .POST(HttpRequest.BodyPublishers.ofString(row.payload(), StandardCharsets.UTF_8));
+        if (target.secret != null) {
+            request.header("X-Webhook-Signature", "sha256=" + sign(target.secret, timestamp + "." + row.payload()));
+        }
+
+        long started = System.nanoTime();
+        Attempt attempt;
+        try {
+            HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            int code = response.statusCode();
+            if (code >= 200 && code < 300) {
+                attempt = new Attempt(Outcome.DELIVERED, null, null);
+            } else {
+                // Other client errors will not go away by sending the same body again
+                boolean retryable = code == 408 || code == 429 || code >= 500;
+                attempt = new Attempt(retryable ? Outcome.RETRY : Outcome.FAILED, "HTTP " + code,
+                        retryAfter(response));
+            }
+        } catch (IOException e) {
+            attempt = new Attempt(Outcome.RETRY, e.getClass().getSimpleName() + ": " + e.getMessage(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            attempt = new Attempt(Outcome.RETRY, "Interrupted", null);
+        }
+        target.deliveries.get(attempt.outcome()).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return attempt;
+    }
+
+    private Failure failure(Target target, Claimed row, Attempt attempt) {
+        int attempts = row.attempts() + 1;
+        String error = attempt.error() != null && attempt.error().length() > 500
+                ? attempt.error().substring(0, 500) : attempt.error();
+        if (attempt.outcome() == Outcome.FAILED || attempts >= properties.getMaxAttempts()) {
+            log.warn("Webhook {} ({} {} {}) to {} failed after {} attempts: {}", row.eventId(), row.eventType(),
+                    row.aggregateType(), row.aggregateId(), target.name, attempts, error);
+            return new Failure(row, OutboxEvent.Status.FAILED, LocalDateTime.now(), error);
+        }
+        Duration delay = backoff(attempts);
+        if (attempt.retryAfter() != null && attempt.retryAfter().compareTo(delay) > 0) {
+            delay = attempt.retryAfter().compareTo(properties.getMaxBackoff()) > 0
+                    ? properties.getMaxBackoff() : attempt.retryAfter();
+        }
+        log.debug("Webhook {} to {} failed (attempt {}), retrying in {}: {}", row.eventId(), target.name,
+                attempts, delay, error);
+        return new Failure(row, OutboxEvent.Status.PENDING, LocalDateTime.now().plus(delay), error);
+    }
+
+    // Exponential, capped, with the upper half jittered so that retries of a burst spread out
+    private Duration backoff(int attempts) {
+        long initialMs = properties.getInitialBackoff().toMillis();
+        long maxMs = properties.getMaxBackoff().toMillis();
+        long delayMs = initialMs << Math.min(attempts - 1, 30);
+        if (delayMs <= 0 || delayMs > maxMs) {
+            delayMs = maxMs;
+        }
+        long half = delayMs / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private void writeResults(String token, Results results) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!results.delivered.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_DELIVERED, results.delivered.stream()
+                    .map(id -> new Object[]{Timestamp.valueOf(now), id, token})
+                    .toList());
+        }
+        if (!results.failed.isEmpty()) {
+            jdbcTemplate.batchUpdate(MARK_FAILED, results.failed.stream()
+                    .map(f -> new Object[]{f.status().name(), Timestamp.valueOf(f.nextAttemptAt()), f.error(),
+                            f.row().id(), token})
+                    .toList());
+        }
+        if (!results.released.isEmpty()) {
+            namedParameterJdbcTemplate.update(RELEASE, new MapSqlParameterSource()
+                    .addValue("ids", new ArrayList<>(results.released))
+                    .addValue("token", token));
+        }
+    }
+
+    private static Duration retryAfter(HttpResponse<?> response) {
+        Optional<String> value = response.headers().firstValue("Retry-After");
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.get().trim()));
+        } catch (NumberFormatException e) {
+            // HTTP-date form; the regular backoff applies
+            return null;
+        }
+    }
+
+    private static String sign(byte[] secret, String content) {
+        try {
+            Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, SIGNATURE_ALGORITHM));
+            return HexFormat.of().formatHex(mac.doFinal(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign webhook", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.facilitydesk.facility_desk.controller;
+
+import com.facilitydesk.facility_desk.dto.VendorDto;
+import com.facilitydesk.facility_desk.exception.PreconditionFailedException;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.Vendor;
+import com.facilitydesk.facility_desk.repository.VendorRepository;
+import com.facilitydesk.facility_desk.service.OptimisticRetry;
+import com.facilitydesk.facility_desk.service.OrderChanged;
+import com.facilitydesk.facility_desk.service.VendorService;
+import com.facilitydesk.facility_desk.service.VendorWorkload;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Conditional requests on one vendor against H2 with real commits: a matching If-None-Match
+ * gets 304 until the vendor or its order count changes, and If-Match on an update is decided
+ * by the vendor's version alone, so order traffic does not fail it but another update does.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({VendorController.class, VendorService.class, VendorWorkload.class, OptimisticRetry.class,
+        VendorControllerTest.Metrics.class})
+class VendorControllerTest {
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private VendorController vendorController;
+
+    @Autowired
+    private VendorWorkload vendorWorkload;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long vendorId;
+
+    @BeforeEach
+    void seed() {
+        vendorId = vendorRepository.save(Vendor.builder().name("Tagged Electric").contactPerson("Ann")
+                .contactEmail("tagged@example.com").build()).getId();
+        vendorWorkload.reconcile();
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM vendors WHERE id = ?", vendorId);
+        vendorWorkload.reconcile();
+    }
+
+    @Test
+    void aMatchingIfNoneMatchIsAnsweredWith304UntilTheRepresentationChanges() {
+        MockHttpServletResponse first = get(null);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(first.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(etag).isEqualTo("\"" + vendorId + "-0-0\"");
+
+        assertThat(get(etag).getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+
+        // An order assigned to the vendor changes the count the body shows
+        vendorWorkload.onOrderChanged(assigned());
+        MockHttpServletResponse afterOrder = get(etag);
+        assertThat(afterOrder.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(afterOrder.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + vendorId + "-0-1\"");
+    }
+
+    @Test
+    void ifMatchOnAnUpdateDependsOnTheVersionOnly() {
+        String etag = get(null).getHeader(HttpHeaders.ETAG);
+        vendorWorkload.onOrderChanged(assigned());
+
+        // The tag was read before the order arrived, but the vendor itself has not changed
+        VendorDto.Response renamed = vendorController.updateVendor(vendorId, update("Tagged Electric Ltd"), etag)
+                .getBody();
+        assertThat(renamed.getName()).isEqualTo("Tagged Electric Ltd");
+        assertThat(renamed.getTotalOrders()).isEqualTo(1);
+
+        // The same tag is now stale, since the rename moved the version
+        assertThatThrownBy(() -> vendorController.updateVendor(vendorId, update("Tagged Electric Inc"), etag))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Vendor " + vendorId + " has changed since it was read");
+        assertThat(vendorRepository.findById(vendorId).orElseThrow().getName()).isEqualTo("Tagged Electric Ltd");
+    }
+
+    private MockHttpServletResponse get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/vendors/" + vendorId);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<VendorDto.Response> entity = vendorController.getVendorById(vendorId,
+                new ServletWebRequest(request, response));
+        if (entity != null) {
+            response.setStatus(entity.getStatusCode().value());
+        }
+        return response;
+    }
+
+    private OrderChanged assigned() {
+        LocalDateTime now = LocalDateTime.now();
+        return OrderChanged.of(new OrderChanged.Change(1L, 1L, null, null, "MEDIUM", now, Order.OrderStatus.PENDING,
+                null, Order.OrderStatus.ASSIGNED, vendorId, null, "tester", now));
+    }
+
+    private static VendorDto.Request update(String name) {
+        VendorDto.Request request = new VendorDto.Request();
+        request.setName(name);
+        return request;
+    }
+}
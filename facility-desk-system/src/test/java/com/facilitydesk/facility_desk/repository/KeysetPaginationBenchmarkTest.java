@@ -0,0 +1,134 @@
+package com.facilitydesk.facility_desk.repository;
+
+import com.facilitydesk.facility_desk.dto.CursorPage;
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.support.Benchmark;
+import com.facilitydesk.facility_desk.support.MySqlJpaTest;
+import com.facilitydesk.facility_desk.support.OrderDataSet;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset pages cost the same at any depth: page 1 and page 5000 of the order, payment and user
+ * listings are timed against MySQL with {@link OrderDataSet}, next to the OFFSET query the
+ * cursor replaced. The deep page is also checked against OFFSET for the same rows.
+ */
+@EnabledIf("com.facilitydesk.facility_desk.support.MySqlTestDatabase#isAvailable")
+@Tag("benchmark")
+class KeysetPaginationBenchmarkTest extends MySqlJpaTest {
+
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 5_000;
+    // Each status holds a sixth of the orders, so its listing is shorter
+    private static final int DEEP_STATUS_PAGE = OrderDataSet.ORDERS / OrderDataSet.STATUSES.length / PAGE_SIZE;
+    private static final Limit LIMIT = CursorPage.probeLimit(PAGE_SIZE);
+    // Deep pages may be at most this much slower than the first page, plus fixed noise
+    private static final double TOLERANCE = 1.5;
+    private static final double NOISE_MICROS = 200;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void orderPagesCostTheSameAtAnyDepth() {
+        CursorPage.Key deep = keyBefore("SELECT created_at, id FROM orders", DEEP_PAGE);
+
+        Benchmark.Result first = Benchmark.run("orders keyset page 1", WARMUP, ITERATIONS,
+                () -> orderRepository.findFirstPage(LIMIT));
+        Benchmark.Result last = Benchmark.run("orders keyset page " + DEEP_PAGE, WARMUP, ITERATIONS,
+                () -> orderRepository.findPageAfter(deep.createdAt(), deep.id(), LIMIT));
+        offset("orders offset page " + DEEP_PAGE, "SELECT * FROM orders", DEEP_PAGE);
+
+        assertSimilar(first, last);
+        assertThat(ids(orderRepository.findPageAfter(deep.createdAt(), deep.id(), LIMIT)))
+                .startsWith(offsetIds("SELECT id FROM orders", DEEP_PAGE).toArray(Long[]::new));
+    }
+
+    @Test
+    void orderPagesByStatusCostTheSameAtAnyDepth() {
+        Order.OrderStatus status = Order.OrderStatus.ASSIGNED;
+        String filtered = "SELECT created_at, id FROM orders WHERE status = '" + status + "'";
+        CursorPage.Key deep = keyBefore(filtered, DEEP_STATUS_PAGE);
+
+        Benchmark.Result first = Benchmark.run("orders by status keyset page 1", WARMUP, ITERATIONS,
+                () -> orderRepository.findFirstPageByStatus(status, LIMIT));
+        Benchmark.Result last = Benchmark.run("orders by status keyset page " + DEEP_STATUS_PAGE, WARMUP,
+                ITERATIONS, () -> orderRepository.findPageAfterByStatus(status, deep.createdAt(), deep.id(), LIMIT));
+        offset("orders by status offset page " + DEEP_STATUS_PAGE,
+                "SELECT * FROM orders WHERE status = '" + status + "'", DEEP_STATUS_PAGE);
+
+        assertSimilar(first, last);
+        assertThat(ids(orderRepository.findPageAfterByStatus(status, deep.createdAt(), deep.id(), LIMIT)))
+                .startsWith(offsetIds("SELECT id FROM orders WHERE status = '" + status + "'", DEEP_STATUS_PAGE)
+                        .toArray(Long[]::new));
+    }
+
+    @Test
+    void paymentPagesCostTheSameAtAnyDepth() {
+        CursorPage.Key deep = keyBefore("SELECT created_at, id FROM payments", DEEP_PAGE);
+
+        Benchmark.Result first = Benchmark.run("payments keyset page 1", WARMUP, ITERATIONS,
+                () -> paymentRepository.findFirstPage(LIMIT));
+        Benchmark.Result last = Benchmark.run("payments keyset page " + DEEP_PAGE, WARMUP, ITERATIONS,
+                () -> paymentRepository.findPageAfter(deep.createdAt(), deep.id(), LIMIT));
+        offset("payments offset page " + DEEP_PAGE, "SELECT * FROM payments", DEEP_PAGE);
+
+        assertSimilar(first, last);
+    }
+
+    @Test
+    void userPagesCostTheSameAtAnyDepth() {
+        CursorPage.Key deep = keyBefore("SELECT created_at, id FROM users", DEEP_PAGE);
+
+        Benchmark.Result first = Benchmark.run("users keyset page 1", WARMUP, ITERATIONS,
+                () -> userRepository.findFirstPage(LIMIT));
+        Benchmark.Result last = Benchmark.run("users keyset page " + DEEP_PAGE, WARMUP, ITERATIONS,
+                () -> userRepository.findPageAfter(deep.createdAt(), deep.id(), LIMIT));
+        offset("users offset page " + DEEP_PAGE, "SELECT * FROM users", DEEP_PAGE);
+
+        assertSimilar(first, last);
+    }
+
+    // The sort key of the last row of the page before `page`, which is what its cursor holds
+    private CursorPage.Key keyBefore(String select, int page) {
+        return jdbcTemplate.queryForObject(select + " ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET ?",
+                (rs, row) -> new CursorPage.Key(rs.getObject(1, LocalDateTime.class), rs.getLong(2)),
+                (page - 1) * PAGE_SIZE - 1);
+    }
+
+    private void offset(String name, String select, int page) {
+        String sql = select + " ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?";
+        Benchmark.run(name, WARMUP / 10, ITERATIONS / 10,
+                () -> jdbcTemplate.queryForList(sql, PAGE_SIZE + 1, (page - 1) * PAGE_SIZE));
+    }
+
+    private List<Long> offsetIds(String select, int page) {
+        return jdbcTemplate.queryForList(select + " ORDER BY created_at DESC, id DESC LIMIT ? OFFSET ?",
+                Long.class, PAGE_SIZE, (page - 1) * PAGE_SIZE);
+    }
+
+    private static List<Long> ids(List<OrderDto.Response> rows) {
+        return rows.stream().map(OrderDto.Response::getId).toList();
+    }
+
+    private static void assertSimilar(Benchmark.Result first, Benchmark.Result deep) {
+        assertThat(deep.p50Micros()).isLessThan(first.p50Micros() * TOLERANCE + NOISE_MICROS);
+    }
+}
@@ -0,0 +1,98 @@
+package com.facilitydesk.facility_desk.repository;
+
+import com.facilitydesk.facility_desk.dto.CursorPage;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.support.MySqlJpaTest;
+import com.facilitydesk.facility_desk.support.OrderDataSet;
+import com.facilitydesk.facility_desk.support.QueryPlans;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The keyset statements read their table through its {@code (…, created_at, id)} index in sort
+ * order: no full scan and no filesort, so a page costs the same at any depth.
+ */
+@EnabledIf("com.facilitydesk.facility_desk.support.MySqlTestDatabase#isAvailable")
+class KeysetQueryPlanTest extends MySqlJpaTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final Limit LIMIT = CursorPage.probeLimit(PAGE_SIZE);
+    private static final Order.OrderStatus STATUS = Order.OrderStatus.ASSIGNED;
+    // A cursor in the middle of the data set
+    private static final LocalDateTime CREATED_AT = OrderDataSet.createdAt(OrderDataSet.ORDERS / 2);
+    private static final long ID = OrderDataSet.ORDERS / 2;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void orderPagesUseTheCreatedAtIndex() {
+        assertIndexed("orders", "idx_order_created_id",
+                () -> orderRepository.findFirstPage(LIMIT));
+        assertIndexed("orders", "idx_order_created_id",
+                () -> orderRepository.findPageAfter(CREATED_AT, ID, LIMIT), CREATED_AT, CREATED_AT, ID);
+    }
+
+    @Test
+    void orderPagesByStatusUseTheStatusIndex() {
+        assertIndexed("orders", "idx_order_status_created_id",
+                () -> orderRepository.findFirstPageByStatus(STATUS, LIMIT), STATUS.name());
+        assertIndexed("orders", "idx_order_status_created_id",
+                () -> orderRepository.findPageAfterByStatus(STATUS, CREATED_AT, ID, LIMIT),
+                STATUS.name(), CREATED_AT, CREATED_AT, ID);
+    }
+
+    @Test
+    void paymentPagesUseTheCreatedAtIndex() {
+        assertIndexed("payments", "idx_payment_created_id",
+                () -> paymentRepository.findFirstPage(LIMIT));
+        assertIndexed("payments", "idx_payment_created_id",
+                () -> paymentRepository.findPageAfter(CREATED_AT, ID, LIMIT), CREATED_AT, CREATED_AT, ID);
+    }
+
+    @Test
+    void userPagesUseTheCreatedAtIndex() {
+        assertIndexed("users", "idx_user_created_id",
+                () -> userRepository.findFirstPage(LIMIT));
+        assertIndexed("users", "idx_user_created_id",
+                () -> userRepository.findPageAfter(CREATED_AT, ID, LIMIT), CREATED_AT, CREATED_AT, ID);
+    }
+
+    // `parameters` are bound in placeholder order; the remaining placeholder is the row limit
+    private void assertIndexed(String table, String index, Supplier<?> page, Object... parameters) {
+        List<String> statements = QueryPlans.capture(page);
+        assertThat(statements).hasSize(1);
+        String sql = statements.get(0);
+
+        List<Object> bound = new ArrayList<>(Arrays.asList(parameters));
+        while (bound.size() < sql.chars().filter(c -> c == '?').count()) {
+            bound.add(LIMIT.max());
+        }
+        List<Map<String, Object>> plan = QueryPlans.explain(jdbcTemplate, sql, bound.toArray());
+        List<Map<String, Object>> rows = QueryPlans.rowsFor(plan, sql, table);
+
+        assertThat(rows).as("%s%s", sql, QueryPlans.describe(plan)).singleElement().satisfies(row -> {
+            assertThat(row.get("key")).isEqualTo(index);
+            assertThat(row.get("type")).isNotEqualTo("ALL");
+        });
+        assertThat(plan).as("%s%s", sql, QueryPlans.describe(plan))
+                .noneMatch(row -> String.valueOf(row.get("Extra")).contains("filesort"));
+    }
+}
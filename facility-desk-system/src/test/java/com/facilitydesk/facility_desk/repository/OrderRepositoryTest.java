@@ -0,0 +1,90 @@
+package com.facilitydesk.facility_desk.repository;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.model.Vendor;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OrderRepositoryTest {
+
+    private static final int ORDERS = 25;
+    private static final PageRequest PAGE = PageRequest.of(1, 10, Sort.by("createdAt").descending());
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private User user;
+    private Vendor vendor;
+
+    @BeforeEach
+    void seed() {
+        user = User.builder().username("alice").email("alice@example.com").password("hashed").build();
+        vendor = Vendor.builder().name("ACME").contactPerson("John").contactEmail("john@acme.com").build();
+        entityManager.persist(user);
+        entityManager.persist(vendor);
+        for (int i = 0; i < ORDERS; i++) {
+            entityManager.persist(Order.builder()
+                    .user(user).vendor(vendor)
+                    .description("Order " + i).location("Floor " + i % 3).priority("HIGH")
+                    .status(Order.OrderStatus.ASSIGNED)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void userPageIsOneSelectPlusCount() {
+        Page<OrderDto.Response> page = orderRepository.findResponsesByUserId(user.getId(), PAGE);
+
+        assertPage(page);
+    }
+
+    @Test
+    void vendorPageIsOneSelectPlusCount() {
+        Page<OrderDto.Response> page = orderRepository.findResponsesByVendorId(vendor.getId(), PAGE);
+
+        assertPage(page);
+    }
+
+    private void assertPage(Page<OrderDto.Response> page) {
+        assertThat(page.getContent()).hasSize(10);
+        assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+        assertThat(page.getContent()).allSatisfy(response -> {
+            assertThat(response.getUsername()).isEqualTo("alice");
+            assertThat(response.getVendorName()).isEqualTo("ACME");
+        });
+
+        // One page query and one count query; the names come from the select list, not lazy loads
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(Vendor.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(Order.class.getName()).getLoadCount()).isZero();
+    }
+}
@@ -0,0 +1,111 @@
+package com.facilitydesk.facility_desk.repository;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.support.MySqlJpaTest;
+import com.facilitydesk.facility_desk.support.OrderDataSet;
+import com.facilitydesk.facility_desk.support.QueryPlans;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every combination of the filters {@link OrderSpecifications} emits is served by an index:
+ * EXPLAIN of both the page query and its count never shows a full scan of {@code orders}.
+ * Each filter value is selective on its own. The date bounds take the newest or oldest 1% of
+ * the orders, since a half-open range through the middle of the table matches half of it,
+ * and reading that with a full scan is the right plan.
+ */
+@EnabledIf("com.facilitydesk.facility_desk.support.MySqlTestDatabase#isAvailable")
+class OrderSearchQueryPlanTest extends MySqlJpaTest {
+
+    private static final int FILTERS = 9;
+    private static final long EDGE = OrderDataSet.ORDERS / 100;
+    private static final LocalDateTime NEWEST = OrderDataSet.createdAt(OrderDataSet.ORDERS - EDGE);
+    private static final LocalDateTime OLDEST = OrderDataSet.createdAt(EDGE);
+    // The second one-row page is either empty or full, so the count query always runs
+    private static final PageRequest PAGE = PageRequest.of(1, 1, Sort.by("createdAt").descending());
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void noFilterCombinationScansOrders() {
+        for (int combination = 0; combination < 1 << FILTERS; combination++) {
+            OrderDto.SearchCriteria criteria = new OrderDto.SearchCriteria();
+            List<Object> parameters = new ArrayList<>();
+            // Same order as the predicates in OrderSpecifications, which is the placeholder order
+            if (has(combination, 0)) {
+                criteria.setStatus(Order.OrderStatus.ASSIGNED);
+                parameters.add(criteria.getStatus().name());
+            }
+            if (has(combination, 1)) {
+                criteria.setPriority("URGENT");
+                parameters.add(criteria.getPriority());
+            }
+            if (has(combination, 2)) {
+                criteria.setLocation("Building C");
+                parameters.add(criteria.getLocation() + "%");
+            }
+            if (has(combination, 3)) {
+                criteria.setVendorId(7L);
+                parameters.add(criteria.getVendorId());
+            }
+            if (has(combination, 4)) {
+                criteria.setUserId(42L);
+                parameters.add(criteria.getUserId());
+            }
+            if (has(combination, 5)) {
+                criteria.setCreatedFrom(NEWEST);
+                parameters.add(criteria.getCreatedFrom());
+            }
+            if (has(combination, 6)) {
+                criteria.setCreatedTo(OLDEST);
+                parameters.add(criteria.getCreatedTo());
+            }
+            if (has(combination, 7)) {
+                // Orders are updated up to three days after they are created
+                criteria.setUpdatedFrom(NEWEST.plusDays(3));
+                parameters.add(criteria.getUpdatedFrom());
+            }
+            if (has(combination, 8)) {
+                criteria.setUpdatedTo(OLDEST);
+                parameters.add(criteria.getUpdatedTo());
+            }
+
+            List<String> statements = QueryPlans.capture(
+                    () -> orderRepository.search(OrderSpecifications.matching(criteria), PAGE));
+            assertThat(statements).as("page and count for %s", criteria).hasSize(2);
+            for (String sql : statements) {
+                assertNoFullScan(sql, parameters);
+            }
+        }
+    }
+
+    private static boolean has(int combination, int filter) {
+        return (combination & 1 << filter) != 0;
+    }
+
+    // The page query ends with the offset and row limit placeholders, which the count query lacks
+    private void assertNoFullScan(String sql, List<Object> parameters) {
+        List<Object> bound = new ArrayList<>(parameters);
+        int paging = (int) sql.chars().filter(c -> c == '?').count() - parameters.size();
+        List<Object> limit = List.of(PAGE.getOffset(), PAGE.getPageSize());
+        assertThat(paging).as(sql).isBetween(0, limit.size());
+        bound.addAll(limit.subList(limit.size() - paging, limit.size()));
+
+        List<Map<String, Object>> plan = QueryPlans.explain(jdbcTemplate, sql, bound.toArray());
+        assertThat(QueryPlans.rowsFor(plan, sql, "orders"))
+                .as("%s%s", sql, QueryPlans.describe(plan))
+                .noneMatch(row -> "ALL".equals(row.get("type")));
+    }
+}
@@ -0,0 +1,159 @@
+package com.facilitydesk.facility_desk.security;
+
+import com.facilitydesk.facility_desk.model.Role;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.repository.RoleRepository;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.support.Benchmark;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registration and principal building before and after {@link RoleRegistry}. The "before" paths
+ * reproduce the code the registry replaced: one {@code findByName} query per requested role, and
+ * a new {@link SimpleGrantedAuthority} per role on every {@code UserDetailsImpl.build}. Password
+ * hashing is left out of the registration path, since it did not change and would dominate it.
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RoleRegistry.class)
+@Tag("benchmark")
+class RoleRegistryBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+    private static final Set<String> REQUESTED = Set.of("admin", "employee");
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seedRoles() {
+        for (Role.RoleName name : Role.RoleName.values()) {
+            if (roleRepository.findByName(name).isEmpty()) {
+                roleRepository.save(new Role(null, name));
+            }
+        }
+        roleRegistry.load();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void registrationNoLongerQueriesRoles() {
+        Function<Role.RoleName, Role> repository = name -> roleRepository.findByName(name).orElseThrow();
+        Function<Role.RoleName, Role> registry = roleRegistry::get;
+
+        long beforeStatements = statementsPerCall(() -> resolve(REQUESTED, repository));
+        long afterStatements = statementsPerCall(() -> resolve(REQUESTED, registry));
+        assertThat(beforeStatements).isEqualTo(REQUESTED.size());
+        assertThat(afterStatements).isZero();
+
+        Benchmark.Result resolveBefore = Benchmark.run("resolve roles: findByName per role", WARMUP, ITERATIONS,
+                () -> resolve(REQUESTED, repository));
+        Benchmark.Result resolveAfter = Benchmark.run("resolve roles: registry", WARMUP, ITERATIONS,
+                () -> resolve(REQUESTED, registry));
+        assertThat(resolveAfter.meanMicros()).isLessThan(resolveBefore.meanMicros());
+        assertThat(resolveAfter.bytesPerOp()).isLessThan(resolveBefore.bytesPerOp());
+
+        AtomicInteger sequence = new AtomicInteger();
+        Benchmark.Result registerBefore = Benchmark.run("register (no hashing): findByName", WARMUP, ITERATIONS,
+                () -> register("before" + sequence.incrementAndGet(), repository));
+        Benchmark.Result registerAfter = Benchmark.run("register (no hashing): registry", WARMUP, ITERATIONS,
+                () -> register("after" + sequence.incrementAndGet(), registry));
+        assertThat(registerAfter.meanMicros()).isLessThan(registerBefore.meanMicros());
+        assertThat(registerAfter.bytesPerOp()).isLessThan(registerBefore.bytesPerOp());
+    }
+
+    @Test
+    void principalsShareAuthorities() {
+        User user = User.builder()
+                .id(1L).username("bench").email("bench@example.com").password("x").active(true)
+                .roles(resolve(REQUESTED, roleRegistry::get))
+                .build();
+
+        Benchmark.Result before = Benchmark.run("UserDetailsImpl.build: new authorities", WARMUP * 10,
+                ITERATIONS * 10, () -> buildWithNewAuthorities(user));
+        Benchmark.Result after = Benchmark.run("UserDetailsImpl.build: shared authorities", WARMUP * 10,
+                ITERATIONS * 10, () -> UserDetailsImpl.build(user));
+        assertThat(after.bytesPerOp()).isLessThan(before.bytesPerOp());
+
+        GrantedAuthority first = UserDetailsImpl.build(user).getAuthorities().iterator().next();
+        GrantedAuthority second = UserDetailsImpl.build(user).getAuthorities().iterator().next();
+        assertThat(first).isSameAs(second);
+    }
+
+    private long statementsPerCall(Runnable operation) {
+        statistics.clear();
+        operation.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // The role mapping of AuthService.resolveRoles
+    private static Set<Role> resolve(Set<String> requested, Function<Role.RoleName, Role> lookup) {
+        Set<Role> roles = new HashSet<>();
+        requested.forEach(role -> {
+            switch (role.toLowerCase()) {
+                case "admin" -> roles.add(lookup.apply(Role.RoleName.ROLE_ADMIN));
+                case "vendor" -> roles.add(lookup.apply(Role.RoleName.ROLE_VENDOR));
+                case "employee" -> roles.add(lookup.apply(Role.RoleName.ROLE_EMPLOYEE));
+                default -> roles.add(lookup.apply(Role.RoleName.ROLE_CUSTOMER));
+            }
+        });
+        return roles;
+    }
+
+    // AuthService.registerUser without password hashing
+    private void register(String username, Function<Role.RoleName, Role> lookup) {
+        userRepository.existsByUsername(username);
+        userRepository.existsByEmail(username + "@example.com");
+        User user = User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("hashed")
+                .build();
+        user.setRoles(resolve(REQUESTED, lookup));
+        userRepository.save(user);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static UserDetailsImpl buildWithNewAuthorities(User user) {
+        List<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
+                .collect(Collectors.toList());
+        return new UserDetailsImpl(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+                user.isActive(), authorities);
+    }
+}
@@ -0,0 +1,47 @@
+package com.facilitydesk.facility_desk.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * User-wide revocation against iat, which JWTs carry in whole seconds: tokens from before the
+ * revocation second are rejected, and a token issued right after it, in the same second, is not.
+ */
+class TokenRevocationStoreTest {
+
+    private static final long USER_ID = 7L;
+
+    private final TokenRevocationStore store = new TokenRevocationStore(1000, 0.01, 900_000, new SimpleMeterRegistry());
+
+    @Test
+    void rejectsTokensIssuedBeforeTheRevocation() {
+        long revokedSecond = System.currentTimeMillis() / 1000 * 1000;
+        store.revokeAllForUser(USER_ID);
+
+        assertThat(store.isRevoked(issuedAt(USER_ID, revokedSecond - 1000))).isTrue();
+        assertThat(store.isRevoked(issuedAt(USER_ID + 1, revokedSecond - 1000))).isFalse();
+    }
+
+    @Test
+    void acceptsATokenIssuedInTheSameSecondAfterTheRevocation() {
+        store.revokeAllForUser(USER_ID);
+        // What a login right after the revocation gets back once iat is truncated on the wire
+        long issuedSecond = System.currentTimeMillis() / 1000 * 1000;
+
+        assertThat(store.isRevoked(issuedAt(USER_ID, issuedSecond))).isFalse();
+    }
+
+    private static Claims issuedAt(long userId, long issuedAtMs) {
+        Claims claims = Jwts.claims();
+        claims.setId("jti-" + userId + "-" + issuedAtMs);
+        claims.put(JwtUtils.CLAIM_USER_ID, userId);
+        claims.setIssuedAt(new Date(issuedAtMs));
+        return claims;
+    }
+}
@@ -0,0 +1,245 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.exception.ConflictException;
+import com.facilitydesk.facility_desk.exception.UnprocessableEntityException;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.security.UserDetailsImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Idempotent creates against H2 with real commits, with two stores standing in for two nodes
+ * that share only the {@code idempotency_keys} table: duplicates racing on and across nodes
+ * create one order, a claim whose lease ran out is taken over and fenced off, a key reused
+ * with another request is refused with 422, and a failed request frees its key for a retry.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyStoreTest {
+
+    record Created(long orderId, String description) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger actions = new AtomicInteger();
+    private User user;
+
+    @BeforeEach
+    void seed() {
+        user = userRepository.save(User.builder().username("idem-owner").email("idem-owner@example.com")
+                .password("hashed").build());
+    }
+
+    @AfterEach
+    void clean() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void racingDuplicatesCreateOneOrder() throws Exception {
+        List<IdempotencyStore> nodes = List.of(store(60), store(60));
+        int callers = 8;
+        CyclicBarrier barrier = new CyclicBarrier(callers);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<ResponseEntity<Created>>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                IdempotencyStore node = nodes.get(i % nodes.size());
+                responses.add(executor.submit(asUser(() -> {
+                    barrier.await();
+                    return node.execute(IdempotencyStore.ORDERS, "race", request("Leaking tap"), Created.class,
+                            () -> createOrder("Leaking tap", 100));
+                })));
+            }
+            List<ResponseEntity<Created>> results = new ArrayList<>();
+            for (Future<ResponseEntity<Created>> response : responses) {
+                results.add(response.get(10, TimeUnit.SECONDS));
+            }
+
+            assertThat(orders()).containsExactly("Leaking tap");
+            assertThat(actions.get()).isEqualTo(1);
+            assertThat(results).allSatisfy(result -> {
+                assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                assertThat(result.getBody()).isEqualTo(results.get(0).getBody());
+            });
+            assertThat(results).filteredOn(result -> result.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER))
+                    .hasSize(callers - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void anExpiredClaimIsTakenOverAndTheStalledRequestCommitsNothing() throws Exception {
+        // A lease of zero runs out as soon as the claim is made
+        IdempotencyStore stalledNode = store(0);
+        IdempotencyStore otherNode = store(0);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<Created>> stalled = executor.submit(asUser(() -> stalledNode.execute(
+                    IdempotencyStore.ORDERS, "stalled", request("Broken door"), Created.class, () -> {
+                        claimed.countDown();
+                        await(resume);
+                        return createOrder("Broken door", 0);
+                    })));
+            assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(10);
+
+            ResponseEntity<Created> takenOver = asUser(() -> otherNode.execute(IdempotencyStore.ORDERS, "stalled",
+                    request("Broken door"), Created.class, () -> createOrder("Broken door", 0))).call();
+            resume.countDown();
+
+            assertThat(takenOver.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(takenOver.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+            assertThatThrownBy(() -> stalled.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ConflictException.class)
+                    .hasMessageContaining("outlived its claim");
+            assertThat(orders()).containsExactly("Broken door");
+            assertThat(jdbcTemplate.queryForObject("SELECT status FROM idempotency_keys WHERE user_id = ? " +
+                    "AND idempotency_key = 'stalled'", String.class, user.getId())).isEqualTo("COMPLETED");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void aKeyReusedWithAnotherRequestIsRefused() throws Exception {
+        IdempotencyStore node = store(60);
+        IdempotencyStore otherNode = store(60);
+        asUser(() -> node.execute(IdempotencyStore.ORDERS, "reused", request("Flickering light"), Created.class,
+                () -> createOrder("Flickering light", 0))).call();
+
+        // Answered from this node's cache and from the other node's read of the stored row alike
+        for (IdempotencyStore store : List.of(node, otherNode)) {
+            assertThatThrownBy(() -> asUser(() -> store.execute(IdempotencyStore.ORDERS, "reused",
+                    request("Cracked window"), Created.class, () -> createOrder("Cracked window", 0))).call())
+                    .isInstanceOf(UnprocessableEntityException.class)
+                    .hasMessageContaining("different request");
+        }
+        assertThat(orders()).containsExactly("Flickering light");
+    }
+
+    @Test
+    void aFailedRequestReleasesItsKey() throws Exception {
+        IdempotencyStore node = store(60);
+
+        assertThatThrownBy(() -> asUser(() -> node.execute(IdempotencyStore.ORDERS, "retried", request("Blocked drain"),
+                Created.class, () -> {
+                    createOrder("Blocked drain", 0);
+                    throw new IllegalStateException("Vendor lookup failed");
+                })).call())
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(orders()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE user_id = ?",
+                Integer.class, user.getId())).isZero();
+
+        ResponseEntity<Created> retried = asUser(() -> node.execute(IdempotencyStore.ORDERS, "retried",
+                request("Blocked drain"), Created.class, () -> createOrder("Blocked drain", 0))).call();
+
+        assertThat(retried.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+        assertThat(orders()).containsExactly("Blocked drain");
+    }
+
+    private IdempotencyStore store(long leaseSeconds) {
+        return new IdempotencyStore(jdbcTemplate, new TransactionTemplate(transactionManager), objectMapper, 100, 24,
+                leaseSeconds, 5_000, meterRegistry);
+    }
+
+    // Runs in the store's transaction, and holds it open for a while so that duplicates overlap it
+    private Created createOrder(String description, long holdMs) {
+        actions.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO orders (user_id, description, status, priority, version, created_at, " +
+                "updated_at) VALUES (?, ?, 'PENDING', 'MEDIUM', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                user.getId(), description);
+        sleep(holdMs);
+        return new Created(jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders WHERE user_id = ?", Long.class,
+                user.getId()), description);
+    }
+
+    private <T> Callable<T> asUser(Callable<T> call) {
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        return () -> {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+            try {
+                return call.call();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+    }
+
+    private List<String> orders() {
+        return jdbcTemplate.queryForList("SELECT description FROM orders WHERE user_id = ? ORDER BY id", String.class,
+                user.getId());
+    }
+
+    private static Map<String, String> request(String description) {
+        return Map.of("description", description);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.exception.ConflictException;
+import com.facilitydesk.facility_desk.model.Vendor;
+import com.facilitydesk.facility_desk.repository.VendorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Read-modify-writes of a versioned vendor against H2 with real commits, where another writer
+ * commits between the read and the write: a conflict is retried on a fresh read and keeps both
+ * changes, and a row that keeps changing ends in a 409 with nothing of the action written.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OptimisticRetryTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private OptimisticRetry optimisticRetry;
+    private long vendorId;
+
+    @BeforeEach
+    void seed() {
+        optimisticRetry = new OptimisticRetry(transactionManager, MAX_ATTEMPTS, 1, meterRegistry);
+        vendorId = vendorRepository.save(Vendor.builder().name("Retry Plumbing").contactPerson("Ann")
+                .contactEmail("ann@example.com").build()).getId();
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM vendors WHERE id = ?", vendorId);
+    }
+
+    @Test
+    void aConflictIsRetriedOnTheCurrentRow() {
+        Vendor updated = optimisticRetry.execute("Vendor " + vendorId, () -> renameContact(1));
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(updated.getContactPerson()).isEqualTo("Bob");
+        assertThat(jdbcTemplate.queryForMap("SELECT contact_person, contact_phone, version FROM vendors WHERE id = ?",
+                vendorId)).containsEntry("CONTACT_PERSON", "Bob").containsEntry("CONTACT_PHONE", "555-0101")
+                .containsEntry("VERSION", 2L);
+        assertThat(meterRegistry.get("concurrency.optimistic.retries").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("concurrency.optimistic.conflicts").counter().count()).isZero();
+    }
+
+    @Test
+    void conflictsOnEveryAttemptEndInA409() {
+        assertThatThrownBy(() -> optimisticRetry.execute("Vendor " + vendorId, () -> renameContact(MAX_ATTEMPTS)))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Vendor " + vendorId + " was modified concurrently, please retry");
+
+        assertThat(attempts.get()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(jdbcTemplate.queryForMap("SELECT contact_person, version FROM vendors WHERE id = ?", vendorId))
+                .containsEntry("CONTACT_PERSON", "Ann").containsEntry("VERSION", (long) MAX_ATTEMPTS);
+        assertThat(meterRegistry.get("concurrency.optimistic.retries").counter().count()).isEqualTo(MAX_ATTEMPTS - 1);
+        assertThat(meterRegistry.get("concurrency.optimistic.conflicts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void inACallersTransactionTheConflictIsLeftToTheCaller() {
+        TransactionTemplate callers = new TransactionTemplate(transactionManager);
+
+        assertThatThrownBy(() -> callers.executeWithoutResult(status ->
+                optimisticRetry.execute("Vendor " + vendorId, () -> renameContact(1))))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("concurrency.optimistic.retries").counter().count()).isZero();
+    }
+
+    // Another writer commits a phone change after the read on each of the first conflicting attempts
+    private Vendor renameContact(int conflictingAttempts) {
+        Vendor vendor = vendorRepository.findById(vendorId).orElseThrow();
+        if (attempts.incrementAndGet() <= conflictingAttempts) {
+            otherWriter().executeWithoutResult(status -> jdbcTemplate.update(
+                    "UPDATE vendors SET contact_phone = ?, version = version + 1 WHERE id = ?",
+                    "555-010" + attempts.get(), vendorId));
+        }
+        vendor.setContactPerson("Bob");
+        return vendorRepository.saveAndFlush(vendor);
+    }
+
+    private TransactionTemplate otherWriter() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -0,0 +1,144 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.dto.OrderDto;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.security.UserDetailsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A bulk status change against H2 with real commits: each requested order gets its own result,
+ * only the orders that may move are updated, each of them once, with one history row and one
+ * published change, and the rest are left exactly as they were.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(OrderBulkService.class)
+@RecordApplicationEvents
+class OrderBulkServiceTest {
+
+    @Autowired
+    private OrderBulkService bulkService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private User user;
+
+    @BeforeEach
+    void seed() {
+        user = userRepository.save(User.builder().username("bulk-owner").email("bulk-owner@example.com")
+                .password("hashed").build());
+        UserDetailsImpl principal = UserDetailsImpl.build(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @AfterEach
+    void clean() {
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM status_tracking WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)",
+                user.getId());
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void updatesEachMovableOrderOnceAndReportsTheRest() {
+        long pending = order(Order.OrderStatus.PENDING, 0);
+        long assigned = order(Order.OrderStatus.ASSIGNED, 3);
+        long completed = order(Order.OrderStatus.COMPLETED, 5);
+        long cancelled = order(Order.OrderStatus.CANCELLED, 1);
+        long inProgress = order(Order.OrderStatus.IN_PROGRESS, 2);
+        long missing = cancelled + 1_000;
+        OrderDto.BulkStatusRequest request = new OrderDto.BulkStatusRequest();
+        // The pending order twice, which is still one order to update
+        request.setOrderIds(List.of(pending, assigned, completed, missing, cancelled, inProgress, pending));
+        request.setStatus(Order.OrderStatus.IN_PROGRESS);
+
+        OrderDto.BulkStatusResponse response = bulkService.updateStatuses(request);
+
+        assertThat(List.of(response.getRequested(), response.getUpdated(), response.getRejected()))
+                .containsExactly(6, 2, 4);
+        assertThat(response.getResults())
+                .extracting(r -> r.getOrderId() + " " + r.isUpdated() + " " + r.getPreviousStatus() + " " + r.getMessage())
+                .containsExactly(
+                        pending + " true PENDING null",
+                        assigned + " true ASSIGNED null",
+                        completed + " false COMPLETED Cannot change status of a COMPLETED order.",
+                        missing + " false null Order not found",
+                        cancelled + " false CANCELLED Cannot change status of a CANCELLED order.",
+                        inProgress + " false IN_PROGRESS Order is already IN_PROGRESS");
+
+        assertThat(jdbcTemplate.queryForList("SELECT id, status, version FROM orders WHERE user_id = ?", user.getId())
+                .stream().collect(Collectors.toMap(row -> ((Number) row.get("ID")).longValue(),
+                        row -> row.get("STATUS") + "@" + row.get("VERSION"))))
+                .isEqualTo(Map.of(
+                        pending, "IN_PROGRESS@1",
+                        assigned, "IN_PROGRESS@4",
+                        completed, "COMPLETED@5",
+                        cancelled, "CANCELLED@1",
+                        inProgress, "IN_PROGRESS@2"));
+        assertThat(jdbcTemplate.queryForList("SELECT order_id || ' ' || remarks || ' ' || updated_by " +
+                "FROM status_tracking WHERE order_id IN (?, ?, ?, ?, ?) ORDER BY order_id", String.class,
+                pending, assigned, completed, cancelled, inProgress))
+                .containsExactly(pending + " Status updated from PENDING bulk-owner",
+                        assigned + " Status updated from ASSIGNED bulk-owner");
+        assertThat(events.stream(OrderChanged.class).flatMap(event -> event.changes().stream()))
+                .extracting(change -> change.orderId() + " " + change.previousStatus())
+                .containsExactly(pending + " PENDING", assigned + " ASSIGNED");
+    }
+
+    @Test
+    void aRequestWithNothingToMoveChangesNothing() {
+        long completed = order(Order.OrderStatus.COMPLETED, 0);
+        OrderDto.BulkStatusRequest request = new OrderDto.BulkStatusRequest();
+        request.setOrderIds(List.of(completed));
+        request.setStatus(Order.OrderStatus.CANCELLED);
+        request.setRemarks("Closing out");
+
+        OrderDto.BulkStatusResponse response = bulkService.updateStatuses(request);
+
+        assertThat(List.of(response.getRequested(), response.getUpdated(), response.getRejected()))
+                .containsExactly(1, 0, 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = ?", Long.class, completed))
+                .isZero();
+        assertThat(events.stream(OrderChanged.class)).isEmpty();
+    }
+
+    private long order(Order.OrderStatus status, long version) {
+        jdbcTemplate.update("INSERT INTO orders (user_id, description, status, priority, version, created_at, " +
+                "updated_at) VALUES (?, ?, ?, 'MEDIUM', ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                user.getId(), "Bulk " + status, status.name(), version);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders WHERE user_id = ?", Long.class, user.getId());
+    }
+}
@@ -0,0 +1,216 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.exception.ConflictException;
+import com.facilitydesk.facility_desk.model.OrderImportCheckpoint;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.model.Vendor;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.repository.VendorRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Chunked order import with three-row chunks and a lookup cache of one chunk: keys resolve
+ * however they are spelled or evicted, a rolled-back chunk is resumed without duplicates,
+ * and an import runs for one upload at a time.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "app.import.orders.chunk-size=3",
+        "app.import.orders.lookup-cache-size=3"})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderImportService.class, JacksonAutoConfiguration.class})
+class OrderImportServiceTest {
+
+    private static final String IMPORTED_BY = "admin";
+
+    @Autowired
+    private OrderImportService importService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long acmeId;
+
+    @BeforeEach
+    void seed() {
+        for (String name : List.of("importer-a", "importer-b", "importer-c", "importer-d")) {
+            userRepository.save(User.builder().username(name).email(name + "@example.com").password("hashed").build());
+        }
+        acmeId = vendorRepository.save(vendor("Acme Works")).getId();
+        vendorRepository.save(vendor("Twin"));
+        vendorRepository.save(vendor("Twin"));
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM status_tracking WHERE order_id IN (SELECT o.id FROM orders o " +
+                "JOIN users u ON u.id = o.user_id WHERE u.username LIKE 'importer-%')");
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id IN (SELECT id FROM users WHERE username LIKE 'importer-%')");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'importer-%'");
+        jdbcTemplate.update("DELETE FROM vendors WHERE name IN ('Acme Works', 'Twin')");
+        jdbcTemplate.update("DELETE FROM order_import_checkpoints");
+    }
+
+    @Test
+    void resolvesEveryKeyOfAChunk() throws IOException {
+        String csv = """
+                username,vendor,description
+                importer-a,00%1$d,Padded vendor id
+                importer-b,%1$d,Plain vendor id
+                importer-c,Acme Works,Vendor name
+                importer-d,,No vendor
+                nobody,,Unknown user
+                importer-a,999999999,Unknown vendor
+                importer-b,Twin,Ambiguous vendor
+                """.formatted(acmeId);
+
+        List<JsonNode> output = run(importService.claim("resolve"), csv);
+
+        assertThat(output).filteredOn(line -> line.has("message"))
+                .extracting(line -> line.get("row").asLong() + ": " + line.get("message").asText())
+                .containsExactly("6: Unknown user: nobody",
+                        "7: Unknown vendor: 999999999",
+                        "8: Vendor name matches several vendors, use the vendor id: Twin");
+        assertProgress(last(output), 8, 4, 3, 0);
+        assertThat(jdbcTemplate.queryForList("SELECT o.description, o.vendor_id, o.status FROM orders o " +
+                "JOIN users u ON u.id = o.user_id WHERE u.username LIKE 'importer-%' ORDER BY o.id"))
+                .extracting(row -> row.get("DESCRIPTION") + "/" + row.get("VENDOR_ID") + "/" + row.get("STATUS"))
+                .containsExactly("Padded vendor id/" + acmeId + "/ASSIGNED",
+                        "Plain vendor id/" + acmeId + "/ASSIGNED",
+                        "Vendor name/" + acmeId + "/ASSIGNED",
+                        "No vendor/null/PENDING");
+    }
+
+    @Test
+    void rejectsALookupCacheSmallerThanAChunk() {
+        OrderImportService service = new OrderImportService(null, null, null, null, null, null);
+        ReflectionTestUtils.setField(service, "chunkSize", 1000);
+        ReflectionTestUtils.setField(service, "lookupCacheSize", 999);
+
+        assertThatThrownBy(service::checkSettings)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("lookup-cache-size");
+    }
+
+    @Test
+    void resumesAfterARolledBackChunk() throws IOException {
+        String tooLong = "x".repeat(300);
+
+        List<JsonNode> failed = run(importService.claim("resume"), file(tooLong));
+
+        JsonNode stopped = last(failed);
+        assertThat(stopped.get("done").asBoolean()).isFalse();
+        assertThat(stopped.get("error").asText()).startsWith("Chunk after row 4 rolled back");
+        assertThat(descriptions()).containsExactly("Row 1", "Row 2", "Row 3");
+
+        List<JsonNode> resumed = run(importService.claim("resume"), file("Building B"));
+
+        assertProgress(last(resumed), 7, 6, 0, 3);
+        assertThat(descriptions()).containsExactly("Row 1", "Row 2", "Row 3", "Row 4", "Row 5", "Row 6");
+    }
+
+    @Test
+    void aRunningImportCannotBeClaimedTwice() throws IOException {
+        OrderImportCheckpoint first = importService.claim("twice");
+
+        assertThatThrownBy(() -> importService.claim("twice"))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("already running");
+
+        run(first, file("Building B"));
+        // Released once the upload ended, so a retry can claim it and finds nothing left to do
+        assertProgress(last(run(importService.claim("twice"), file("Building B"))), 7, 6, 0, 6);
+        assertThat(descriptions()).hasSize(6);
+    }
+
+    @Test
+    void anUploadWhoseClaimWasTakenOverCommitsNothing() throws IOException {
+        OrderImportCheckpoint stalled = importService.claim("taken-over");
+        jdbcTemplate.update("UPDATE order_import_checkpoints SET claimed_until = ? WHERE import_id = 'taken-over'",
+                LocalDateTime.now().minusSeconds(1));
+        OrderImportCheckpoint takeover = importService.claim("taken-over");
+
+        JsonNode stopped = last(run(stalled, file("Building B")));
+        assertProgress(last(run(takeover, file("Building B"))), 7, 6, 0, 0);
+
+        assertThat(stopped.get("error").asText()).contains("claimed by another upload");
+        assertThat(descriptions()).containsExactly("Row 1", "Row 2", "Row 3", "Row 4", "Row 5", "Row 6");
+    }
+
+    // Six rows in two chunks; the fourth row's location decides whether the second chunk commits
+    private static String file(String fourthLocation) {
+        StringBuilder csv = new StringBuilder("username,location,description\n");
+        for (int i = 1; i <= 6; i++) {
+            csv.append("importer-a,").append(i == 4 ? fourthLocation : "Building A").append(",Row ").append(i)
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+
+    private List<JsonNode> run(OrderImportCheckpoint checkpoint, String csv) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        importService.importOrders(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), DataFormat.CSV,
+                checkpoint, IMPORTED_BY, output);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static JsonNode last(List<JsonNode> output) {
+        return output.get(output.size() - 1);
+    }
+
+    private static void assertProgress(JsonNode progress, long lastRow, long created, long rejected, long skipped) {
+        assertThat(progress.get("done").asBoolean()).isTrue();
+        assertThat(Map.of("lastRow", progress.get("lastRow").asLong(), "created", progress.get("created").asLong(),
+                "rejected", progress.get("rejected").asLong(), "skipped", progress.get("skipped").asLong()))
+                .isEqualTo(Map.of("lastRow", lastRow, "created", created, "rejected", rejected, "skipped", skipped));
+    }
+
+    private List<String> descriptions() {
+        return jdbcTemplate.queryForList("SELECT o.description FROM orders o JOIN users u ON u.id = o.user_id " +
+                "WHERE u.username LIKE 'importer-%' ORDER BY o.id", String.class);
+    }
+
+    private static Vendor vendor(String name) {
+        return Vendor.builder().name(name).contactPerson("Contact").contactEmail("contact@example.com").build();
+    }
+}
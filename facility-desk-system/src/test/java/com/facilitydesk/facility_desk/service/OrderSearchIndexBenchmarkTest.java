@@ -0,0 +1,93 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.support.Benchmark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search latency over 200k orders against the 10 ms p99 target. Words are drawn from a
+ * Zipf-like distribution and every location names a building and floor, so queries mix rare
+ * terms with terms that occur in every order, with and without a status filter.
+ */
+@Tag("benchmark")
+class OrderSearchIndexBenchmarkTest {
+
+    private static final int DOCUMENTS = 200_000;
+    private static final int VOCABULARY = 3_000;
+    private static final int QUERIES = 1_000;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+    private static final double P99_TARGET_MICROS = 10_000;
+    private static final String[] COMMON = {
+            "leak", "pipe", "light", "door", "window", "heater", "lift", "roof", "socket", "tap",
+            "broken", "flicker", "jammed", "noisy", "cold", "blocked", "cracked", "loose", "smell", "alarm"};
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+
+    private static final Random RANDOM = new Random(7);
+    private static OrderSearchIndex index;
+
+    @BeforeAll
+    static void index() {
+        index = new OrderSearchIndex(new JdbcTemplate(), 5000, new SimpleMeterRegistry());
+        for (int i = 0; i < DOCUMENTS; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = 4 + RANDOM.nextInt(16); w > 0; w--) {
+                description.append(word()).append(' ');
+            }
+            String location = "Building " + (char) ('A' + i % 20) + " floor " + i % 12;
+            index.index(i + 1L, description.toString(), location, STATUSES[RANDOM.nextInt(STATUSES.length)]);
+        }
+    }
+
+    @Test
+    void mixedQueriesMeetTheLatencyTarget() {
+        List<String> queries = new ArrayList<>();
+        List<Set<Order.OrderStatus>> filters = new ArrayList<>();
+        for (int q = 0; q < QUERIES; q++) {
+            StringBuilder query = new StringBuilder();
+            for (int w = 1 + RANDOM.nextInt(3); w > 0; w--) {
+                query.append(RANDOM.nextInt(5) == 0 ? "floor" : word()).append(' ');
+            }
+            queries.add(query.toString());
+            filters.add(RANDOM.nextInt(3) == 0
+                    ? EnumSet.of(STATUSES[RANDOM.nextInt(STATUSES.length)]) : Set.of());
+        }
+
+        int[] next = {0};
+        Benchmark.Result result = Benchmark.run("search, mixed queries", WARMUP, ITERATIONS, () -> {
+            int q = next[0]++ % QUERIES;
+            index.search(queries.get(q), filters.get(q), 0, 10);
+        });
+
+        assertThat(result.p99Micros()).isLessThan(P99_TARGET_MICROS);
+    }
+
+    @Test
+    void termsInEveryOrderMeetTheLatencyTarget() {
+        Benchmark.Result result = Benchmark.run("search, terms in every order", WARMUP / 10, ITERATIONS / 10,
+                () -> index.search("building floor leak", Set.of(), 0, 10));
+        Benchmark.Result deep = Benchmark.run("search, terms in every order, page 50", WARMUP / 10,
+                ITERATIONS / 10, () -> index.search("building floor leak", Set.of(), 490, 10));
+
+        assertThat(result.p99Micros()).isLessThan(P99_TARGET_MICROS);
+        assertThat(deep.p99Micros()).isLessThan(P99_TARGET_MICROS);
+    }
+
+    // A handful of facility words make up most of the text, over a long tail of rare ones
+    private static String word() {
+        int rank = (int) Math.floor(Math.pow(VOCABULARY, RANDOM.nextDouble())) - 1;
+        return rank < COMMON.length ? COMMON[rank] : "term" + rank;
+    }
+}
@@ -0,0 +1,144 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The MaxScore merge must rank exactly like scoring every matching document: each search is
+ * compared with a brute-force BM25 ranking of the same corpus, including ties and status
+ * filters, and totals are checked to stop at {@link OrderSearchIndex#MAX_RESULTS}.
+ */
+class OrderSearchIndexTest {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int DOCUMENTS = 20_000;
+    private static final String[] WORDS = {
+            "leak", "pipe", "light", "door", "window", "heater", "lift", "roof", "socket", "tap",
+            "broken", "flicker", "jammed", "noisy", "cold", "blocked", "cracked", "loose", "smell", "alarm"};
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+
+    private final Random random = new Random(42);
+    private final List<Document> corpus = new ArrayList<>();
+    private OrderSearchIndex index;
+
+    private record Document(long orderId, List<String> tokens, Order.OrderStatus status) {}
+
+    private record Expected(long orderId, int doc, float score) {}
+
+    @BeforeEach
+    void index() {
+        index = new OrderSearchIndex(new JdbcTemplate(), 5000, new SimpleMeterRegistry());
+        for (int i = 0; i < DOCUMENTS; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int w = 0; w < length; w++) {
+                // Skewed towards the first words, so some lists are long and some short
+                text.append(WORDS[(int) (WORDS.length * Math.pow(random.nextDouble(), 2))]).append(' ');
+            }
+            Order.OrderStatus status = STATUSES[random.nextInt(STATUSES.length)];
+            long orderId = 1000L + i * 7L;
+            index.index(orderId, text.toString(), null, status);
+            corpus.add(new Document(orderId, OrderSearchIndex.tokenize(text + " "), status));
+        }
+        for (int i = 0; i < DOCUMENTS / 10; i++) {
+            int doc = random.nextInt(DOCUMENTS);
+            Order.OrderStatus status = STATUSES[random.nextInt(STATUSES.length)];
+            index.updateStatus(corpus.get(doc).orderId(), status);
+            corpus.set(doc, new Document(corpus.get(doc).orderId(), corpus.get(doc).tokens(), status));
+        }
+    }
+
+    @Test
+    void ranksLikeScoringEveryMatch() {
+        for (int q = 0; q < 300; q++) {
+            StringBuilder query = new StringBuilder();
+            for (int w = 1 + random.nextInt(4); w > 0; w--) {
+                query.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Set<Order.OrderStatus> statuses = EnumSet.noneOf(Order.OrderStatus.class);
+            if (random.nextBoolean()) {
+                for (int s = 1 + random.nextInt(2); s > 0; s--) {
+                    statuses.add(STATUSES[random.nextInt(STATUSES.length)]);
+                }
+            }
+            int offset = random.nextBoolean() ? 0 : random.nextInt(100);
+            int limit = 1 + random.nextInt(50);
+
+            OrderSearchIndex.Hits hits = index.search(query.toString(), statuses, offset, limit);
+
+            List<Expected> expected = bruteForce(query.toString(), statuses);
+            List<Long> page = expected.stream()
+                    .skip(offset).limit(limit)
+                    .map(Expected::orderId)
+                    .toList();
+            assertThat(hits.orderIds()).as("%s %s offset %d limit %d", query, statuses, offset, limit)
+                    .containsExactlyElementsOf(page);
+            assertThat(hits.total()).isEqualTo(Math.min(expected.size(), OrderSearchIndex.MAX_RESULTS));
+        }
+    }
+
+    @Test
+    void reindexingAnOrderKeepsOneDocument() {
+        long orderId = corpus.get(0).orderId();
+        index.index(orderId, "chandelier", null, Order.OrderStatus.PENDING);
+
+        assertThat(index.search("chandelier", Set.of(), 0, 10).orderIds()).isEmpty();
+        assertThat(index.search(String.join(" ", corpus.get(0).tokens()), Set.of(Order.OrderStatus.PENDING), 0,
+                OrderSearchIndex.MAX_RESULTS).orderIds()).contains(orderId);
+    }
+
+    // Scores every document with the same float arithmetic as the index; ties rank the newer doc first
+    private List<Expected> bruteForce(String query, Set<Order.OrderStatus> statuses) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(OrderSearchIndex.tokenize(query)));
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        long totalLength = 0;
+        for (Document document : corpus) {
+            totalLength += document.tokens().size();
+            new LinkedHashSet<>(document.tokens()).forEach(term -> documentFrequency.merge(term, 1, Integer::sum));
+        }
+        terms.removeIf(term -> !documentFrequency.containsKey(term));
+
+        float lengthFactor = K1 * B / Math.max(1f, (float) totalLength / corpus.size());
+        float baseNorm = K1 * (1 - B);
+        List<Expected> matches = new ArrayList<>();
+        for (int doc = 0; doc < corpus.size(); doc++) {
+            Document document = corpus.get(doc);
+            if (!statuses.isEmpty() && !statuses.contains(document.status())) {
+                continue;
+            }
+            float norm = baseNorm + lengthFactor * document.tokens().size();
+            float score = 0;
+            boolean matched = false;
+            for (String term : terms) {
+                int freq = (int) document.tokens().stream().filter(term::equals).count();
+                if (freq > 0) {
+                    int df = documentFrequency.get(term);
+                    float weight = (float) Math.log(1 + (corpus.size() - df + 0.5) / (df + 0.5)) * (K1 + 1);
+                    score += weight * freq / (freq + norm);
+                    matched = true;
+                }
+            }
+            if (matched) {
+                matches.add(new Expected(document.orderId(), doc, score));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Expected::score).thenComparingInt(Expected::doc).reversed());
+        return matches.stream().limit(OrderSearchIndex.MAX_RESULTS).toList();
+    }
+}
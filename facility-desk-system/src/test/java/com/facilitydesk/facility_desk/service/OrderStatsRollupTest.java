@@ -0,0 +1,135 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The incrementally maintained rollup against a rebuild from the orders table: after random
+ * creations, status changes and cancellations (what deleting an order does), flushed in several
+ * rounds so later flushes add to existing cells, both give the same non-zero cells.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OrderStatsRollupTest {
+
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", null};
+    private static final String[] LOCATIONS = {"Building A", "Building B", "Building C", null};
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+    private static final int CHANGES = 1_000;
+    private static final int FLUSH_EVERY = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private OrderStatsRollup rollup;
+    private long userId;
+
+    private record Row(long id, String priority, String location, LocalDateTime createdAt, Order.OrderStatus status) {}
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder().username("rollup").email("rollup@example.com").password("hashed").build();
+        entityManager.persist(user);
+        entityManager.flush();
+        userId = user.getId();
+        rollup = new OrderStatsRollup(jdbcTemplate, new TransactionTemplate(transactionManager));
+        // Whatever other test classes left behind is counted by the baseline
+        rollup.rebuild();
+    }
+
+    @Test
+    void incrementalCountsMatchARebuild() {
+        Random random = new Random(42);
+        List<Row> orders = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        long nextId = 1_000_000;
+
+        for (int i = 1; i <= CHANGES; i++) {
+            int kind = orders.isEmpty() ? 0 : random.nextInt(10);
+            if (kind < 4) {
+                Row row = new Row(nextId++, PRIORITIES[random.nextInt(PRIORITIES.length)],
+                        LOCATIONS[random.nextInt(LOCATIONS.length)], now.minusDays(random.nextInt(10)),
+                        Order.OrderStatus.PENDING);
+                jdbcTemplate.update("INSERT INTO orders (id, user_id, description, location, status, priority, " +
+                                "version, created_at, updated_at) VALUES (?, ?, 'Rollup order', ?, ?, ?, 0, ?, ?)",
+                        row.id(), userId, row.location(), row.status().name(), row.priority(),
+                        Timestamp.valueOf(row.createdAt()), Timestamp.valueOf(now));
+                orders.add(row);
+                rollup.onOrderChanged(OrderChanged.of(change(row, null)));
+            } else {
+                int index = random.nextInt(orders.size());
+                Row row = orders.get(index);
+                Order.OrderStatus status = kind < 8
+                        ? STATUSES[random.nextInt(STATUSES.length)]
+                        : Order.OrderStatus.CANCELLED;
+                Row moved = new Row(row.id(), row.priority(), row.location(), row.createdAt(), status);
+                jdbcTemplate.update("UPDATE orders SET status = ?, version = version + 1 WHERE id = ?",
+                        status.name(), row.id());
+                orders.set(index, moved);
+                // Same-status updates are published too, and must not move the counts
+                rollup.onOrderChanged(OrderChanged.of(change(moved, row.status())));
+            }
+            if (i % FLUSH_EVERY == 0) {
+                rollup.flush();
+            }
+        }
+        rollup.flush();
+        Map<String, Long> incremental = cells();
+
+        rollup.rebuild();
+
+        assertThat(incremental).isNotEmpty().isEqualTo(cells());
+    }
+
+    @Test
+    void rowAliasIsOnlyUsedWhereMySqlSupportsIt() {
+        assertThat(OrderStatsRollup.supportsRowAlias("MySQL", "8.0.36")).isTrue();
+        assertThat(OrderStatsRollup.supportsRowAlias("MySQL", "8.0.19")).isTrue();
+        assertThat(OrderStatsRollup.supportsRowAlias("MySQL", "8.4.0")).isTrue();
+        assertThat(OrderStatsRollup.supportsRowAlias("MySQL", "8.0.18")).isFalse();
+        assertThat(OrderStatsRollup.supportsRowAlias("MySQL", "5.7.44-log")).isFalse();
+        assertThat(OrderStatsRollup.supportsRowAlias("MySQL", "5.5.5-10.11.5-MariaDB")).isFalse();
+        assertThat(OrderStatsRollup.supportsRowAlias("H2", "2.2.224 (2023-09-17)")).isFalse();
+    }
+
+    private OrderChanged.Change change(Row row, Order.OrderStatus previousStatus) {
+        return new OrderChanged.Change(row.id(), userId, null, row.location(), row.priority(), row.createdAt(),
+                previousStatus, null, row.status(), null, null, "tester", LocalDateTime.now());
+    }
+
+    private Map<String, Long> cells() {
+        Map<String, Long> cells = new HashMap<>();
+        jdbcTemplate.query("SELECT dimension, bucket, status, orders FROM order_stats WHERE orders <> 0", rs -> {
+            cells.put(rs.getString("dimension") + "/" + rs.getString("bucket") + "/" + rs.getString("status"),
+                    rs.getLong("orders"));
+        });
+        return cells;
+    }
+}
@@ -0,0 +1,208 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.config.SlaProperties;
+import com.facilitydesk.facility_desk.config.WebhookProperties;
+import com.facilitydesk.facility_desk.model.Order;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Breach recording against H2 with real commits: orders whose response deadline has passed are
+ * breached exactly once, whether two instances race to record them or the first write fails
+ * and is retried on a later tick. Exactly once means one breach row, one status-history remark,
+ * one counted breach and one published event per order.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SlaTrackerTest {
+
+    private static final long TICK_MS = 10;
+    private static final int ORDERS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Queue<Object> published = new ConcurrentLinkedQueue<>();
+    private long userId;
+
+    @BeforeEach
+    void seed() {
+        userId = userRepository.save(User.builder().username("sla-owner").email("sla-owner@example.com")
+                .password("hashed").build()).getId();
+    }
+
+    @AfterEach
+    void clean() {
+        String ofOwner = " WHERE order_id IN (SELECT id FROM orders WHERE user_id = " + userId + ")";
+        jdbcTemplate.update("DELETE FROM sla_breaches" + ofOwner);
+        jdbcTemplate.update("DELETE FROM status_tracking" + ofOwner);
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_id IN (SELECT id FROM orders WHERE user_id = "
+                + userId + ")");
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void racingInstancesRecordEachBreachOnce() throws Exception {
+        List<Long> orderIds = overdueOrders();
+        SimpleMeterRegistry firstRegistry = new SimpleMeterRegistry();
+        SimpleMeterRegistry secondRegistry = new SimpleMeterRegistry();
+        SlaTracker first = tracker(outbox(), firstRegistry);
+        SlaTracker second = tracker(outbox(), secondRegistry);
+        OrderChanged created = created(orderIds);
+        first.onOrderChanged(created);
+        second.onOrderChanged(created);
+
+        // Both instances fire the same deadlines at the same moment, tick after tick
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            long until = System.currentTimeMillis() + 30 * TICK_MS;
+            List<Future<?>> runs = List.of(
+                    executor.submit(() -> advanceUntil(first, barrier, until)),
+                    executor.submit(() -> advanceUntil(second, barrier, until)));
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertRecordedOnce(orderIds, breaches(firstRegistry) + breaches(secondRegistry));
+    }
+
+    @Test
+    void aFailedWriteIsRetriedAndRecordedOnce() throws InterruptedException {
+        List<Long> orderIds = overdueOrders();
+        AtomicInteger writes = new AtomicInteger();
+        Outbox failingOnce = new Outbox(webhooks(), jdbcTemplate, objectMapper) {
+            @Override
+            public void recordAll(List<Event> events) {
+                // Fails after the breach rows and remarks went in, so the whole batch rolls back
+                if (writes.getAndIncrement() == 0) {
+                    throw new DataAccessResourceFailureException("Connection reset");
+                }
+                super.recordAll(events);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SlaTracker tracker = tracker(failingOnce, registry);
+        tracker.onOrderChanged(created(orderIds));
+
+        for (int i = 0; i < 30; i++) {
+            Thread.sleep(TICK_MS);
+            tracker.advance();
+        }
+
+        assertThat(writes.get()).isGreaterThanOrEqualTo(2);
+        assertRecordedOnce(orderIds, breaches(registry));
+    }
+
+    private void advanceUntil(SlaTracker tracker, CyclicBarrier barrier, long until) {
+        try {
+            while (System.currentTimeMillis() < until) {
+                Thread.sleep(TICK_MS / 2);
+                barrier.await();
+                tracker.advance();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void assertRecordedOnce(List<Long> orderIds, double counted) {
+        String ofOwner = " WHERE order_id IN (SELECT id FROM orders WHERE user_id = " + userId + ")";
+        assertThat(jdbcTemplate.queryForList("SELECT order_id FROM sla_breaches" + ofOwner + " ORDER BY order_id",
+                Long.class)).containsExactlyElementsOf(orderIds);
+        assertThat(jdbcTemplate.queryForList("SELECT order_id FROM status_tracking" + ofOwner +
+                " AND updated_by = 'sla' ORDER BY order_id", Long.class)).containsExactlyElementsOf(orderIds);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE event_type = ? " +
+                "AND aggregate_id IN (SELECT id FROM orders WHERE user_id = ?)", Long.class,
+                Outbox.ORDER_SLA_BREACHED, userId)).isEqualTo(orderIds.size());
+        assertThat(counted).isEqualTo(orderIds.size());
+        assertThat(published).hasSize(orderIds.size());
+    }
+
+    // PENDING orders created two hours ago, against a one-hour response target
+    private List<Long> overdueOrders() {
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(2);
+        return LongStream.range(0, ORDERS).mapToObj(i -> {
+            jdbcTemplate.update("INSERT INTO orders (user_id, description, status, priority, version, created_at, " +
+                            "updated_at) VALUES (?, ?, 'PENDING', 'HIGH', 0, ?, ?)", userId, "Overdue " + i,
+                    Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt));
+            return jdbcTemplate.queryForObject("SELECT id FROM orders WHERE description = ?", Long.class,
+                    "Overdue " + i);
+        }).toList();
+    }
+
+    private OrderChanged created(List<Long> orderIds) {
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(2);
+        return new OrderChanged(orderIds.stream().map(id -> new OrderChanged.Change(id, userId, null, null, "HIGH",
+                createdAt, null, null, Order.OrderStatus.PENDING, null, null, "tester", createdAt)).toList());
+    }
+
+    private SlaTracker tracker(Outbox outbox, SimpleMeterRegistry registry) {
+        SlaProperties properties = new SlaProperties();
+        properties.setTickMs(TICK_MS);
+        properties.setDefaults(new SlaProperties.Targets(Duration.ofHours(1), Duration.ofDays(5), Duration.ofDays(3)));
+        return new SlaTracker(properties, jdbcTemplate, new TransactionTemplate(transactionManager), published::add,
+                outbox, registry);
+    }
+
+    private Outbox outbox() {
+        return new Outbox(webhooks(), jdbcTemplate, objectMapper);
+    }
+
+    // One endpoint for breach events, so the outbox writes a row for each
+    private static WebhookProperties webhooks() {
+        WebhookProperties.Endpoint endpoint = new WebhookProperties.Endpoint();
+        endpoint.setUrl("http://localhost/hooks");
+        endpoint.setEvents(List.of(Outbox.ORDER_SLA_BREACHED));
+        WebhookProperties properties = new WebhookProperties();
+        properties.getEndpoints().put("cmms", endpoint);
+        return properties;
+    }
+
+    private static double breaches(SimpleMeterRegistry registry) {
+        return registry.find("orders.sla.breaches").counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+}
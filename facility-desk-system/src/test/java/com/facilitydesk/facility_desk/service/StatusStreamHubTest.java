@@ -0,0 +1,161 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fan-out against recording emitters that lock like the real one, where {@code send} and
+ * {@code complete} share the emitter's monitor: every subscriber of a topic sees its events in
+ * commit order, and a client whose write stalls is evicted without holding up the others.
+ */
+class StatusStreamHubTest {
+
+    private static final Pattern REMARKS = Pattern.compile("\"remarks\":\"([^\"]*)\"");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StatusStreamHub hub;
+    private RecordingEmitter nextEmitter;
+
+    @AfterEach
+    void shutdown() {
+        hub.shutdown();
+    }
+
+    @Test
+    void everySubscriberSeesItsEventsInOrder() throws InterruptedException {
+        hub = hub(4, 5_000);
+        RecordingEmitter order = subscribe(StatusStreamHub.Scope.ORDER, 1, new RecordingEmitter(null));
+        RecordingEmitter sameOrder = subscribe(StatusStreamHub.Scope.ORDER, 1, new RecordingEmitter(null));
+        RecordingEmitter user = subscribe(StatusStreamHub.Scope.USER, 10, new RecordingEmitter(null));
+        RecordingEmitter vendor = subscribe(StatusStreamHub.Scope.VENDOR, 20, new RecordingEmitter(null));
+        RecordingEmitter previousVendor = subscribe(StatusStreamHub.Scope.VENDOR, 21, new RecordingEmitter(null));
+        RecordingEmitter otherOrder = subscribe(StatusStreamHub.Scope.ORDER, 2, new RecordingEmitter(null));
+
+        // Committed in batches of ten, like the bulk paths; only the first change moves the order off vendor 21
+        for (int batch = 0; batch < 30; batch++) {
+            List<OrderChanged.Change> changes = new ArrayList<>();
+            for (int i = batch * 10; i < batch * 10 + 10; i++) {
+                changes.add(change(1, i == 0 ? 21L : 20L, i));
+            }
+            hub.onOrderChanged(new OrderChanged(changes));
+        }
+
+        List<String> all = IntStream.range(0, 300).mapToObj(String::valueOf).toList();
+        await(() -> vendor.remarks.size() == all.size() && order.remarks.size() == all.size()
+                && sameOrder.remarks.size() == all.size() && user.remarks.size() == all.size());
+        assertThat(List.of(order.remarks, sameOrder.remarks, user.remarks, vendor.remarks))
+                .allSatisfy(received -> assertThat(received).containsExactlyElementsOf(all));
+        assertThat(previousVendor.remarks).containsExactly("0");
+        assertThat(otherOrder.remarks).isEmpty();
+    }
+
+    @Test
+    void aStalledClientIsEvictedWithoutHoldingUpTheDispatcher() throws InterruptedException {
+        // A single dispatch thread, which the stalled write would otherwise keep for good
+        hub = hub(1, 200);
+        CountDownLatch unstall = new CountDownLatch(1);
+        RecordingEmitter stalled = subscribe(StatusStreamHub.Scope.ORDER, 1, new RecordingEmitter(unstall));
+        RecordingEmitter healthy = subscribe(StatusStreamHub.Scope.ORDER, 2, new RecordingEmitter(null));
+
+        hub.onOrderChanged(OrderChanged.of(change(1, 20L, 0)));
+        for (int i = 1; i <= 50; i++) {
+            hub.onOrderChanged(OrderChanged.of(change(2, 20L, i)));
+        }
+
+        await(() -> healthy.remarks.size() == 50);
+        assertThat(healthy.remarks).containsExactlyElementsOf(IntStream.rangeClosed(1, 50).mapToObj(String::valueOf).toList());
+        await(() -> meterRegistry.get("status.stream.evicted").counter().count() == 1);
+        assertThat(meterRegistry.get("status.stream.subscribers").gauge().value()).isEqualTo(1);
+
+        // Later changes are no longer queued for it, and it is completed once its write gives up
+        hub.onOrderChanged(OrderChanged.of(change(1, 20L, 51)));
+        assertThat(stalled.completed).isFalse();
+        unstall.countDown();
+        await(() -> stalled.completed);
+        assertThat(stalled.remarks).containsExactly("0");
+        assertThat(healthy.completed).isFalse();
+    }
+
+    private StatusStreamHub hub(int dispatchThreads, long sendTimeoutMs) {
+        return new StatusStreamHub(new ObjectMapper().findAndRegisterModules(), 60_000, 1_024, 100,
+                dispatchThreads, sendTimeoutMs, meterRegistry) {
+            @Override
+            SseEmitter createEmitter(long timeoutMs) {
+                return nextEmitter;
+            }
+        };
+    }
+
+    private RecordingEmitter subscribe(StatusStreamHub.Scope scope, long id, RecordingEmitter emitter) {
+        nextEmitter = emitter;
+        hub.subscribe(new StatusStreamHub.Topic(scope, id), null);
+        return emitter;
+    }
+
+    private static OrderChanged.Change change(long orderId, Long previousVendorId, int sequence) {
+        LocalDateTime now = LocalDateTime.now();
+        return new OrderChanged.Change(orderId, 10L, null, null, null, now, Order.OrderStatus.ASSIGNED,
+                previousVendorId, Order.OrderStatus.IN_PROGRESS, 20L, String.valueOf(sequence), "tester", now);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5 s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch unstall;
+        private final List<String> remarks = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        // Writes block until the latch opens, like a client that stopped reading; null never blocks
+        RecordingEmitter(CountDownLatch unstall) {
+            this.unstall = unstall;
+        }
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) {
+            if (unstall != null) {
+                try {
+                    unstall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (DataWithMediaType item : items) {
+                Matcher matcher = REMARKS.matcher(item.getData().toString());
+                if (matcher.find()) {
+                    remarks.add(matcher.group(1));
+                }
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.facilitydesk.facility_desk.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A randomised run of 20,000 timers on a small three-level wheel (4,096 ticks of span), with
+ * deadlines from already overdue to three spans out, random cancellations, and a clock that
+ * moves by at most one tick per step: every timer that is not cancelled fires exactly once, on
+ * the tick its deadline rounds up to, so never early and never a tick late, including the
+ * ones parked beyond the span and cascaded down.
+ */
+class TimingWheelTest {
+
+    private static final long TICK_MS = 10;
+    private static final int BITS = 4;
+    private static final int LEVELS = 3;
+    private static final long SPAN_TICKS = 1L << (BITS * LEVELS);
+    private static final int TIMERS = 20_000;
+
+    private record Timer(long deadlineMs, long scheduledTick, TimingWheel.Timeout<Integer> timeout) {}
+
+    @Test
+    void randomTimersFireOnTheirDeadlineTickUnlessCancelled() {
+        Random random = new Random(20_000);
+        // Deliberately not on a tick boundary
+        long now = 1_700_000_000_003L;
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK_MS, BITS, LEVELS, now);
+        Map<Integer, Timer> pending = new HashMap<>();
+        List<Integer> pendingIds = new ArrayList<>();
+        Map<Integer, Timer> cancelled = new HashMap<>();
+        int fired = 0;
+        int beyondSpan = 0;
+        int scheduled = 0;
+        long latestDeadline = now;
+
+        while (scheduled < TIMERS || !pending.isEmpty()) {
+            for (int i = random.nextInt(8); i > 0 && scheduled < TIMERS; i--) {
+                long deadline = now + randomOffset(random);
+                if (deadline - now > SPAN_TICKS * TICK_MS) {
+                    beyondSpan++;
+                }
+                latestDeadline = Math.max(latestDeadline, deadline);
+                int id = scheduled++;
+                pending.put(id, new Timer(deadline, now / TICK_MS, wheel.schedule(deadline, id)));
+                pendingIds.add(id);
+            }
+            if (!pendingIds.isEmpty() && random.nextInt(4) == 0) {
+                int id = pendingIds.get(random.nextInt(pendingIds.size()));
+                Timer timer = pending.remove(id);
+                if (timer != null) {
+                    assertThat(wheel.cancel(timer.timeout())).as("first cancel of %d", id).isTrue();
+                    assertThat(wheel.cancel(timer.timeout())).as("second cancel of %d", id).isFalse();
+                    cancelled.put(id, timer);
+                }
+            }
+            if (pendingIds.size() > 4 * pending.size() + 64) {
+                pendingIds.removeIf(id -> !pending.containsKey(id));
+            }
+
+            assertThat(now).as("timers still pending after every deadline").isLessThan(latestDeadline + 2 * TICK_MS);
+            now += 1 + random.nextInt((int) TICK_MS);
+            long tick = now / TICK_MS;
+            for (int id : wheel.advance(now)) {
+                assertThat(cancelled).as("cancelled timer %d fired", id).doesNotContainKey(id);
+                Timer timer = pending.remove(id);
+                assertThat(timer).as("timer %d fired twice", id).isNotNull();
+                assertThat(now).as("timer %d fired early", id).isGreaterThanOrEqualTo(timer.deadlineMs());
+                assertThat(tick).as("tick timer %d fired on", id).isEqualTo(dueTick(timer));
+                assertThat(wheel.cancel(timer.timeout())).isFalse();
+                fired++;
+            }
+            assertThat(wheel.size()).isEqualTo(pending.size());
+        }
+
+        assertThat(fired + cancelled.size()).isEqualTo(TIMERS);
+        assertThat(cancelled.size()).isGreaterThan(1_000);
+        assertThat(beyondSpan).isGreaterThan(1_000);
+    }
+
+    // Mostly near-term, some overdue, a good share beyond the span of the wheel
+    private static long randomOffset(Random random) {
+        return switch (random.nextInt(10)) {
+            case 0 -> -random.nextInt((int) (3 * TICK_MS));
+            case 1, 2, 3 -> random.nextInt((int) (64 * TICK_MS));
+            case 4, 5, 6 -> (long) (random.nextDouble() * SPAN_TICKS * TICK_MS);
+            default -> (long) (random.nextDouble() * 3 * SPAN_TICKS * TICK_MS);
+        };
+    }
+
+    // The first tick at or after the deadline, and never the tick the timer was scheduled on
+    private static long dueTick(Timer timer) {
+        long deadlineTick = Math.floorDiv(timer.deadlineMs() + TICK_MS - 1, TICK_MS);
+        return Math.max(deadlineTick, timer.scheduledTick() + 1);
+    }
+}
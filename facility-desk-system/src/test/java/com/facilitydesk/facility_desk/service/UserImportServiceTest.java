@@ -0,0 +1,226 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.exception.ServiceUnavailableException;
+import com.facilitydesk.facility_desk.model.Role;
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.repository.RoleRepository;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.security.RoleRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * User import in three-row chunks against a one-thread hashing pool with one queue slot:
+ * the pre-checks reject taken and repeated usernames and emails, the rest is inserted with
+ * its roles, and a pool kept full by other callers fails rows rather than the streamed response.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "app.import.users.chunk-size=3",
+        "app.import.users.max-in-flight-hashes=4"})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserImportService.class, RoleRegistry.class, JacksonAutoConfiguration.class,
+        ValidationAutoConfiguration.class, UserImportServiceTest.Hashing.class})
+class UserImportServiceTest {
+
+    private static final BCryptPasswordEncoder ENCODER = new BCryptPasswordEncoder(4);
+
+    @TestConfiguration
+    static class Hashing {
+
+        @Bean
+        PasswordHashingService passwordHashingService() {
+            return new PasswordHashingService(ENCODER, 1, 1, 2, new SimpleMeterRegistry());
+        }
+    }
+
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final CountDownLatch poolReleased = new CountDownLatch(1);
+
+    @BeforeEach
+    void seed() {
+        for (Role.RoleName name : Role.RoleName.values()) {
+            if (roleRepository.findAll().stream().noneMatch(role -> role.getName() == name)) {
+                roleRepository.save(new Role(null, name));
+            }
+        }
+        userRepository.save(User.builder().username("imp-existing").email("taken@example.com").password("hashed").build());
+    }
+
+    @AfterEach
+    void clean() {
+        poolReleased.countDown();
+        // The pool is shared by the test methods, so the next one starts once the blockers are gone
+        while (true) {
+            try {
+                passwordHashingService.submit(() -> null).join();
+                break;
+            } catch (ServiceUnavailableException e) {
+                sleep(10);
+            }
+        }
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id IN (SELECT id FROM users WHERE username LIKE 'imp-%')");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'imp-%'");
+    }
+
+    @Test
+    void rejectsTakenAndRepeatedRowsAndInsertsTheRest() throws IOException {
+        String csv = """
+                username,email,password,roles
+                imp-ann,ann@example.com,secret1,vendor;admin
+                imp-existing,new@example.com,secret2,
+                imp-bob,taken@example.com,secret3,
+                IMP-ANN,other@example.com,secret4,
+                imp-cat,ANN@example.com,secret5,
+                imp-dan,dan@example.com,123,
+                imp-eve,eve@example.com,secret7,
+                imp-fay,fay@example.com,secret8,janitor
+                imp-gus,gus@example.com,secret9,employee
+                """;
+
+        List<JsonNode> output = run(csv);
+
+        assertThat(output.subList(0, 9))
+                .extracting(line -> line.get("row").asInt() + " " + line.get("status").asText()
+                        + (line.get("message").isNull() ? "" : ": " + line.get("message").asText()))
+                .containsExactly(
+                        "2 CREATED",
+                        "3 REJECTED: Username is already taken!",
+                        "4 REJECTED: Email is already in use!",
+                        "5 REJECTED: Duplicate username in file",
+                        "6 REJECTED: Duplicate email in file",
+                        "7 REJECTED: Password must be 6-40 characters",
+                        "8 CREATED",
+                        "9 REJECTED: Unknown role: janitor",
+                        "10 CREATED");
+        assertSummary(output.get(9), 9, 3, 6, 0);
+
+        // Eve and Gus were inserted together, as one batch of the last chunk
+        assertThat(jdbcTemplate.queryForList("SELECT u.username || ':' || r.name FROM users u " +
+                "JOIN user_roles ur ON ur.user_id = u.id JOIN roles r ON r.id = ur.role_id " +
+                "WHERE u.username LIKE 'imp-%' ORDER BY u.username, r.name", String.class))
+                .containsExactly("imp-ann:ROLE_ADMIN", "imp-ann:ROLE_VENDOR", "imp-eve:ROLE_CUSTOMER",
+                        "imp-gus:ROLE_EMPLOYEE");
+        assertThat(ENCODER.matches("secret7", userRepository.findByUsername("imp-eve").orElseThrow().getPassword()))
+                .isTrue();
+    }
+
+    @Test
+    void waitsForRoomOnAHashingPoolHeldByOthers() throws IOException, InterruptedException {
+        fillHashingPool();
+        Thread releaser = new Thread(() -> {
+            sleep(100);
+            poolReleased.countDown();
+        });
+        releaser.start();
+
+        List<JsonNode> output = run("username,email,password\nimp-hal,hal@example.com,secret1\n");
+
+        assertThat(output.get(0).get("status").asText()).isEqualTo("CREATED");
+        assertSummary(output.get(1), 1, 1, 0, 0);
+    }
+
+    @Test
+    void failsRowsWhileTheHashingPoolStaysFull() throws IOException, InterruptedException {
+        fillHashingPool();
+
+        List<JsonNode> output = run("username,email,password\nimp-ida,ida@example.com,secret1\n" +
+                "imp-jon,jon@example.com,secret2\n");
+
+        assertThat(output.subList(0, 2)).allSatisfy(line -> {
+            assertThat(line.get("status").asText()).isEqualTo("FAILED");
+            assertThat(line.get("message").asText()).isEqualTo("Password hashing is busy, please retry this row");
+        });
+        assertSummary(output.get(2), 2, 0, 0, 2);
+        assertThat(userRepository.findByUsername("imp-ida")).isEmpty();
+    }
+
+    // One task running on the single hashing thread and one in the only queue slot; the second is
+    // only queued once the first runs, since the thread may still be on its way back to the queue
+    private void fillHashingPool() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            passwordHashingService.submit(() -> {
+                running.countDown();
+                try {
+                    return poolReleased.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            });
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    private List<JsonNode> run(String csv) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        importService.importUsers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), DataFormat.CSV,
+                output);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static void assertSummary(JsonNode summary, int total, int created, int rejected, int failed) {
+        assertThat(List.of(summary.get("total").asInt(), summary.get("created").asInt(),
+                summary.get("rejected").asInt(), summary.get("failed").asInt()))
+                .containsExactly(total, created, rejected, failed);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
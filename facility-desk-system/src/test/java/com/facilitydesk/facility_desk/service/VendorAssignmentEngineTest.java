@@ -0,0 +1,174 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.model.User;
+import com.facilitydesk.facility_desk.model.Vendor;
+import com.facilitydesk.facility_desk.repository.UserRepository;
+import com.facilitydesk.facility_desk.repository.VendorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Automatic assignment against H2 with real commits and live workload counters: the backlog
+ * goes to the active vendor with the fewest open orders, the lower id on a tie, batch after
+ * batch; a reserved slot counts while its transaction runs and is released, not leaked, when
+ * that transaction rolls back.
+ */
+@DataJpaTest(showSql = false, properties = "app.assignment.batch-size=3")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({VendorWorkload.class, VendorAssignmentEngine.class, VendorAssignmentEngineTest.Metrics.class})
+class VendorAssignmentEngineTest {
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private VendorAssignmentEngine engine;
+
+    @Autowired
+    private VendorWorkload vendorWorkload;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long userId;
+    private long busy;
+    private long quiet;
+    private long inactive;
+
+    // Busy has two open orders and three closed ones, quiet one open order; the inactive vendor has none
+    @BeforeEach
+    void seed() {
+        userId = userRepository.save(User.builder().username("assign-owner").email("assign-owner@example.com")
+                .password("hashed").build()).getId();
+        busy = vendor("Assign Busy", true);
+        quiet = vendor("Assign Quiet", true);
+        inactive = vendor("Assign Inactive", false);
+        order(busy, "ASSIGNED", 0);
+        order(busy, "IN_PROGRESS", 0);
+        for (int i = 0; i < 3; i++) {
+            order(busy, "COMPLETED", 0);
+        }
+        order(quiet, "ON_HOLD", 0);
+        vendorWorkload.reconcile();
+    }
+
+    @AfterEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM status_tracking WHERE order_id IN (SELECT id FROM orders WHERE user_id = ?)",
+                userId);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        jdbcTemplate.update("DELETE FROM vendors WHERE id IN (?, ?, ?)", busy, quiet, inactive);
+    }
+
+    @Test
+    void theBacklogGoesToTheLeastLoadedVendorWithTheLowerIdOnATie() {
+        List<Long> backlog = List.of(order(null, "PENDING", 4), order(null, "PENDING", 3),
+                order(null, "PENDING", 2), order(null, "PENDING", 1));
+
+        engine.assignBacklog();
+
+        // 2:1 -> quiet, 2:2 -> busy, 3:2 -> quiet, 3:3 -> busy, over two batches, oldest order first
+        assertThat(backlog).extracting(this::vendorOf).containsExactly(quiet, busy, quiet, busy);
+        assertThat(jdbcTemplate.queryForList("SELECT o.status || ' ' || t.remarks FROM orders o " +
+                "JOIN status_tracking t ON t.order_id = o.id WHERE o.id IN (?, ?, ?, ?) ORDER BY o.created_at", String.class,
+                backlog.toArray()))
+                .containsExactly("ASSIGNED Auto-assigned to vendor: Assign Quiet",
+                        "ASSIGNED Auto-assigned to vendor: Assign Busy",
+                        "ASSIGNED Auto-assigned to vendor: Assign Quiet",
+                        "ASSIGNED Auto-assigned to vendor: Assign Busy");
+        // Counted once through the committed change, with the reservations released
+        assertThat(List.of(open(busy), open(quiet), open(inactive))).containsExactly(4L, 3L, 0L);
+    }
+
+    @Test
+    void reservationsCountWhileTheTransactionRunsAndAreReleasedOnRollback() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            assertThat(engine.reserveLeastLoaded()).contains(quiet);
+            assertThat(open(quiet)).isEqualTo(2);
+            // A second pick in the same transaction sees the first one, and goes to the lower id on the tie
+            assertThat(engine.reserveLeastLoaded()).contains(busy);
+            assertThat(List.of(open(busy), open(quiet))).containsExactly(3L, 2L);
+            throw new IllegalStateException("Order insert failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(List.of(open(busy), open(quiet))).containsExactly(2L, 1L);
+        assertThat(engine.reserveLeastLoaded()).contains(quiet);
+        // Outside a transaction there is nothing to hold the slot for
+        assertThat(open(quiet)).isEqualTo(1);
+    }
+
+    @Test
+    void withoutAnActiveVendorNothingIsAssigned() {
+        jdbcTemplate.update("UPDATE vendors SET active = FALSE WHERE id IN (?, ?)", busy, quiet);
+        vendorWorkload.reconcile();
+        long pending = order(null, "PENDING", 1);
+
+        engine.assignBacklog();
+
+        assertThat(engine.reserveLeastLoaded()).isEqualTo(Optional.empty());
+        assertThat(vendorOf(pending)).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, pending))
+                .isEqualTo("PENDING");
+    }
+
+    private long vendor(String name, boolean active) {
+        return vendorRepository.save(Vendor.builder().name(name).contactPerson("Contact")
+                .contactEmail("contact@example.com").active(active).build()).getId();
+    }
+
+    private long order(Long vendorId, String status, int hoursAgo) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusHours(hoursAgo));
+        jdbcTemplate.update("INSERT INTO orders (user_id, vendor_id, description, status, priority, version, " +
+                "created_at, updated_at) VALUES (?, ?, ?, ?, 'MEDIUM', 0, ?, ?)", userId, vendorId, "Assign " + status,
+                status, createdAt, createdAt);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders WHERE user_id = ?", Long.class, userId);
+    }
+
+    private Long vendorOf(long orderId) {
+        return jdbcTemplate.queryForObject("SELECT vendor_id FROM orders WHERE id = ?", Long.class, orderId);
+    }
+
+    private long open(long vendorId) {
+        return vendorWorkload.getWorkload(vendorId).getOpenOrders();
+    }
+}
@@ -0,0 +1,241 @@
+package com.facilitydesk.facility_desk.service;
+
+import com.facilitydesk.facility_desk.config.WebhookProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Delivery against a stub receiver on a local {@link HttpServer}: events of one aggregate keep
+ * their order across a retry, client errors fail at once, Retry-After stretches the backoff up to
+ * max-backoff, and the signature header verifies against the shared secret.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WebhookDispatcherTest {
+
+    private static final String ENDPOINT = "receiver";
+    private static final String SECRET = "s3cret";
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private HttpServer server;
+    private final Queue<Received> received = new ConcurrentLinkedQueue<>();
+    // Scripted replies per X-Webhook-Id, taken one per request; 200 once they run out
+    private final Map<String, Deque<Reply>> replies = new ConcurrentHashMap<>();
+    private Outbox outbox;
+    private WebhookDispatcher dispatcher;
+
+    private record Received(String eventId, String eventType, String timestamp, String signature, String body) {}
+
+    private record Reply(int status, String retryAfter) {}
+
+    private record Row(long id, String eventId, String status, int attempts,
+                       LocalDateTime nextAttemptAt, String lastError) {}
+
+    @BeforeEach
+    void start() throws IOException {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/hooks", this::receive);
+        server.start();
+
+        WebhookProperties.Endpoint endpoint = new WebhookProperties.Endpoint();
+        endpoint.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/hooks");
+        endpoint.setSecret(SECRET);
+        WebhookProperties properties = new WebhookProperties();
+        properties.setInitialBackoff(INITIAL_BACKOFF);
+        properties.setMaxBackoff(MAX_BACKOFF);
+        properties.getEndpoints().put(ENDPOINT, endpoint);
+
+        outbox = new Outbox(properties, jdbcTemplate, new ObjectMapper().findAndRegisterModules());
+        dispatcher = new WebhookDispatcher(properties, jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stop() {
+        dispatcher.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void laterEventsOfAnAggregateWaitForARetry() {
+        record(new Outbox.Event(Outbox.ORDER, 1, Outbox.ORDER_CREATED, Map.of("step", 1)),
+                new Outbox.Event(Outbox.ORDER, 2, Outbox.ORDER_CREATED, Map.of("step", 1)),
+                new Outbox.Event(Outbox.ORDER, 1, Outbox.ORDER_STATUS_CHANGED, Map.of("step", 2)),
+                new Outbox.Event(Outbox.ORDER, 1, Outbox.ORDER_STATUS_CHANGED, Map.of("step", 3)));
+        List<Row> order1 = rows(1);
+        reply(order1.get(0), new Reply(503, null));
+
+        dispatcher.dispatch();
+
+        // Order 2 goes out, order 1 stops at its first event and its later events are not sent
+        assertThat(receivedIds()).containsExactlyInAnyOrder(order1.get(0).eventId(), rows(2).get(0).eventId());
+        assertThat(rows(2).get(0).status()).isEqualTo("DELIVERED");
+        Row failed = rows(1).get(0);
+        assertThat(failed.status()).isEqualTo("PENDING");
+        assertThat(failed.attempts()).isEqualTo(1);
+        assertThat(failed.lastError()).isEqualTo("HTTP 503");
+        assertThat(failed.nextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(rows(1).subList(1, 3)).allSatisfy(row -> {
+            assertThat(row.status()).isEqualTo("PENDING");
+            assertThat(row.attempts()).isZero();
+        });
+
+        // Due, but held back by the earlier event that is backing off
+        received.clear();
+        dispatcher.dispatch();
+        assertThat(received).isEmpty();
+
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ? WHERE id = ?",
+                LocalDateTime.now().minusSeconds(1), failed.id());
+        dispatcher.dispatch();
+
+        assertThat(receivedIds()).containsExactlyElementsOf(order1.stream().map(Row::eventId).toList());
+        assertThat(rows(1)).extracting(Row::status).containsOnly("DELIVERED");
+    }
+
+    @Test
+    void clientErrorsFailWithoutRetry() {
+        record(new Outbox.Event(Outbox.ORDER, 1, Outbox.ORDER_CREATED, Map.of("step", 1)),
+                new Outbox.Event(Outbox.ORDER, 1, Outbox.ORDER_STATUS_CHANGED, Map.of("step", 2)));
+        List<Row> rows = rows(1);
+        reply(rows.get(0), new Reply(422, null));
+
+        dispatcher.dispatch();
+        jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ?", LocalDateTime.now().minusSeconds(1));
+        dispatcher.dispatch();
+
+        // Sent once; a failed event does not hold back the rest of its aggregate
+        assertThat(receivedIds()).containsExactly(rows.get(0).eventId(), rows.get(1).eventId());
+        Row failed = rows(1).get(0);
+        assertThat(failed.status()).isEqualTo("FAILED");
+        assertThat(failed.attempts()).isEqualTo(1);
+        assertThat(failed.lastError()).isEqualTo("HTTP 422");
+        assertThat(rows(1).get(1).status()).isEqualTo("DELIVERED");
+    }
+
+    @Test
+    void retryAfterStretchesTheBackoffUpToTheMaximum() {
+        record(new Outbox.Event(Outbox.ORDER, 1, Outbox.ORDER_CREATED, Map.of("step", 1)),
+                new Outbox.Event(Outbox.ORDER, 2, Outbox.ORDER_CREATED, Map.of("step", 1)),
+                new Outbox.Event(Outbox.ORDER, 3, Outbox.ORDER_CREATED, Map.of("step", 1)));
+        reply(rows(1).get(0), new Reply(429, "120"));
+        reply(rows(2).get(0), new Reply(503, String.valueOf(MAX_BACKOFF.multipliedBy(2).toSeconds())));
+        reply(rows(3).get(0), new Reply(503, null));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+        LocalDateTime after = LocalDateTime.now();
+
+        assertThat(rows(1).get(0).nextAttemptAt())
+                .isBetween(before.plusSeconds(120), after.plusSeconds(120));
+        assertThat(rows(2).get(0).nextAttemptAt())
+                .isBetween(before.plus(MAX_BACKOFF), after.plus(MAX_BACKOFF));
+        // Without the header the first retry waits between half and all of the initial backoff
+        assertThat(rows(3).get(0).nextAttemptAt())
+                .isBetween(before.plus(INITIAL_BACKOFF.dividedBy(2)), after.plus(INITIAL_BACKOFF));
+    }
+
+    @Test
+    void signsTheTimestampAndBody() throws Exception {
+        record(new Outbox.Event(Outbox.ORDER, 1, Outbox.ORDER_CREATED, Map.of("step", 1)));
+        Row row = rows(1).get(0);
+
+        dispatcher.dispatch();
+
+        assertThat(received).singleElement().satisfies(request -> {
+            assertThat(request.eventId()).isEqualTo(row.eventId());
+            assertThat(request.eventType()).isEqualTo(Outbox.ORDER_CREATED);
+            assertThat(request.body()).isEqualTo(jdbcTemplate.queryForObject(
+                    "SELECT payload FROM outbox_events WHERE id = ?", String.class, row.id()));
+            assertThat(Long.parseLong(request.timestamp()))
+                    .isCloseTo(System.currentTimeMillis() / 1000, within(60L));
+        });
+        Received request = received.peek();
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String expected = HexFormat.of().formatHex(
+                mac.doFinal((request.timestamp() + "." + request.body()).getBytes(StandardCharsets.UTF_8)));
+        assertThat(request.signature()).isEqualTo("sha256=" + expected);
+    }
+
+    private void record(Outbox.Event... events) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> outbox.recordAll(List.of(events)));
+    }
+
+    private void reply(Row row, Reply reply) {
+        replies.computeIfAbsent(row.eventId(), id -> new ArrayDeque<>()).add(reply);
+    }
+
+    private List<Row> rows(long aggregateId) {
+        return jdbcTemplate.query("SELECT id, event_id, status, attempts, next_attempt_at, last_error " +
+                        "FROM outbox_events WHERE aggregate_id = ? ORDER BY id",
+                (rs, i) -> new Row(rs.getLong("id"), rs.getString("event_id"), rs.getString("status"),
+                        rs.getInt("attempts"), rs.getTimestamp("next_attempt_at").toLocalDateTime(), rs.getString("last_error")),
+                aggregateId);
+    }
+
+    private List<String> receivedIds() {
+        return received.stream().map(Received::eventId).toList();
+    }
+
+    private void receive(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String eventId = exchange.getRequestHeaders().getFirst("X-Webhook-Id");
+            received.add(new Received(eventId, exchange.getRequestHeaders().getFirst("X-Webhook-Event"),
+                    exchange.getRequestHeaders().getFirst("X-Webhook-Timestamp"),
+                    exchange.getRequestHeaders().getFirst("X-Webhook-Signature"), body));
+            Deque<Reply> scripted = replies.get(eventId);
+            Reply reply = scripted != null && !scripted.isEmpty() ? scripted.poll() : new Reply(200, null);
+            if (reply.retryAfter() != null) {
+                exchange.getResponseHeaders().add("Retry-After", reply.retryAfter());
+            }
+            exchange.sendResponseHeaders(reply.status(), -1);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.facilitydesk.facility_desk.support;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Minimal in-test benchmark harness: runs an operation after a warm-up and reports per-call
+ * latency percentiles and the bytes the calling thread allocated per call. Benchmarks are
+ * tagged {@code benchmark} and only run with {@code mvn test -Pbenchmark}.
+ */
+public final class Benchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Benchmark() {
+    }
+
+    public record Result(String name, int operations, double meanMicros, double p50Micros, double p99Micros,
+                         double bytesPerOp) {
+
+        @Override
+        public String toString() {
+            return "%-40s %7d ops  mean %9.2f us  p50 %9.2f us  p99 %9.2f us  %10.0f B/op"
+                    .formatted(name, operations, meanMicros, p50Micros, p99Micros, bytesPerOp);
+        }
+    }
+
+    public static Result run(String name, int warmup, int iterations, Runnable operation) {
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+        long[] nanos = new long[iterations];
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        long total = Arrays.stream(nanos).sum();
+        Arrays.sort(nanos);
+        Result result = new Result(name, iterations, total / 1000.0 / iterations,
+                percentile(nanos, 0.50) / 1000.0, percentile(nanos, 0.99) / 1000.0,
+                (double) allocated / iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
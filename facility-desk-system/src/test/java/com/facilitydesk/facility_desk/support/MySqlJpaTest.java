@@ -0,0 +1,39 @@
+package com.facilitydesk.facility_desk.support;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Base of the JPA tests that need real MySQL. Subclasses share one application context and so
+ * one schema, seeded once with {@link OrderDataSet}. Tests run without a surrounding
+ * transaction, because {@code ANALYZE TABLE} commits implicitly. JUnit conditions are not
+ * inherited, so each subclass carries the {@link MySqlTestDatabase} guard itself.
+ */
+@DataJpaTest(showSql = false, properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.facilitydesk.facility_desk.support.QueryPlans")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public abstract class MySqlJpaTest {
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void mysql(DynamicPropertyRegistry registry) {
+        MySqlTestDatabase.register(registry);
+    }
+
+    @BeforeEach
+    void seed() {
+        OrderDataSet.seed(jdbcTemplate);
+    }
+}
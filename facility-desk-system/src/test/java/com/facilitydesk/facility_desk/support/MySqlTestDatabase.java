@@ -0,0 +1,49 @@
+package com.facilitydesk.facility_desk.support;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+
+/**
+ * MySQL for tests about MySQL behaviour, such as query plans and index use. The server named by
+ * {@code -Dtest.mysql.url} (with {@code test.mysql.username} and {@code test.mysql.password}) is
+ * used when given, otherwise a Testcontainers MySQL 8 container shared by all test classes.
+ * Classes guard themselves with
+ * {@code @EnabledIf("com.facilitydesk.facility_desk.support.MySqlTestDatabase#isAvailable")}.
+ */
+public final class MySqlTestDatabase {
+
+    private static final String URL = System.getProperty("test.mysql.url");
+    private static final String PARAMETERS = "rewriteBatchedStatements=true&useSSL=false&allowPublicKeyRetrieval=true";
+
+    private static MySQLContainer<?> container;
+
+    private MySqlTestDatabase() {
+    }
+
+    public static boolean isAvailable() {
+        return URL != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    public static void register(DynamicPropertyRegistry registry) {
+        if (URL != null) {
+            registry.add("spring.datasource.url", () -> URL);
+            registry.add("spring.datasource.username", () -> System.getProperty("test.mysql.username", "test"));
+            registry.add("spring.datasource.password", () -> System.getProperty("test.mysql.password", "test"));
+        } else {
+            MySQLContainer<?> mysql = start();
+            registry.add("spring.datasource.url", () -> mysql.getJdbcUrl() + "?" + PARAMETERS);
+            registry.add("spring.datasource.username", mysql::getUsername);
+            registry.add("spring.datasource.password", mysql::getPassword);
+        }
+        registry.add("spring.datasource.driver-class-name", () -> "com.mysql.cj.jdbc.Driver");
+    }
+
+    private static synchronized MySQLContainer<?> start() {
+        if (container == null) {
+            container = new MySQLContainer<>("mysql:8.0.36");
+            container.start();
+        }
+        return container;
+    }
+}
@@ -0,0 +1,98 @@
+package com.facilitydesk.facility_desk.support;
+
+import com.facilitydesk.facility_desk.model.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A deterministic, production-shaped data set for plan and pagination tests: users, vendors,
+ * orders and one payment per order, inserted with JDBC batches and analyzed so the optimizer
+ * has real statistics. Order {@code i} is derived from {@code i} alone, so tests can compute
+ * which rows a filter selects. Every two consecutive orders share a creation time, so keyset
+ * pages also cross ties on {@code created_at}.
+ */
+public final class OrderDataSet {
+
+    public static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    public static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "URGENT"};
+    public static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+    public static final int USERS = 120_000;
+    public static final int ORDERS = 120_000;
+    public static final int VENDORS = 50;
+    public static final int LOCATIONS = 20;
+
+    private static final int BATCH = 5_000;
+
+    private OrderDataSet() {
+    }
+
+    public static LocalDateTime createdAt(long i) {
+        return START.plusMinutes(i / 2 * 5);
+    }
+
+    public static LocalDateTime updatedAt(long i) {
+        return createdAt(i).plusHours(i % 72);
+    }
+
+    public static String location(long i) {
+        return "Building " + (char) ('A' + i % LOCATIONS) + ", floor " + i % 7;
+    }
+
+    /** Seeds the data set unless an earlier test class sharing the schema already did. */
+    public static void seed(JdbcTemplate jdbcTemplate) {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+        if (existing != null && existing > 0) {
+            return;
+        }
+
+        insert(jdbcTemplate, "INSERT INTO users (id, username, email, password, active, created_at, updated_at) " +
+                "VALUES (?, ?, ?, 'x', 1, ?, ?)", USERS, i -> {
+            Timestamp created = Timestamp.valueOf(START.plusSeconds(i * 37));
+            return new Object[]{i + 1, "user" + i, "user" + i + "@example.com", created, created};
+        });
+        insert(jdbcTemplate, "INSERT INTO vendors (id, name, contact_person, contact_email, active, version, " +
+                "created_at, updated_at) VALUES (?, ?, 'Contact', ?, 1, 0, ?, ?)", VENDORS, i -> {
+            Timestamp created = Timestamp.valueOf(START);
+            return new Object[]{i + 1, "Vendor " + i, "vendor" + i + "@example.com", created, created};
+        });
+        insert(jdbcTemplate, "INSERT INTO orders (id, user_id, vendor_id, description, location, status, priority, " +
+                "version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?)", ORDERS, i -> new Object[]{
+                i + 1,
+                1 + i % USERS,
+                // One order in ten is still unassigned
+                i % 10 == 0 ? null : 1 + i % VENDORS,
+                "Work order " + i,
+                location(i),
+                STATUSES[(int) (i % STATUSES.length)].name(),
+                PRIORITIES[(int) (i % PRIORITIES.length)],
+                Timestamp.valueOf(createdAt(i)),
+                Timestamp.valueOf(updatedAt(i))});
+        insert(jdbcTemplate, "INSERT INTO payments (id, order_id, amount, status, version, created_at) " +
+                "VALUES (?, ?, ?, 'PENDING', 0, ?)", ORDERS, i -> new Object[]{
+                i + 1, i + 1, BigDecimal.valueOf(100 + i % 900), Timestamp.valueOf(createdAt(i).plusDays(1))});
+
+        for (String table : List.of("users", "vendors", "orders", "payments")) {
+            jdbcTemplate.queryForList("ANALYZE TABLE " + table);
+        }
+    }
+
+    private interface Row {
+        Object[] values(long i);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, int count, Row row) {
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        for (long i = 0; i < count; i++) {
+            batch.add(row.values(i));
+            if (batch.size() == BATCH || i == count - 1) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.facilitydesk.facility_desk.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Captures the SQL Hibernate generates and runs {@code EXPLAIN} on it, so plan assertions are
+ * made against the statements the application really sends. Enable capturing with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector=} this class.
+ */
+public class QueryPlans implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+    private static final Pattern TABLE_ALIAS = Pattern.compile("(?i)\\b(?:from|join)\\s+(\\w+)\\s+(\\w+)");
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    /** Runs {@code action} and returns the SQL statements it sent, in order. */
+    public static List<String> capture(Supplier<?> action) {
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            action.get();
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured;
+    }
+
+    /** EXPLAIN rows of {@code sql}; {@code parameters} are bound to its placeholders in order. */
+    public static List<Map<String, Object>> explain(JdbcTemplate jdbcTemplate, String sql, Object... parameters) {
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, parameters);
+    }
+
+    /** The EXPLAIN rows that access {@code table}, which Hibernate refers to by an alias. */
+    public static List<Map<String, Object>> rowsFor(List<Map<String, Object>> plan, String sql, String table) {
+        List<String> aliases = new ArrayList<>();
+        Matcher matcher = TABLE_ALIAS.matcher(sql);
+        while (matcher.find()) {
+            if (matcher.group(1).equalsIgnoreCase(table)) {
+                aliases.add(matcher.group(2));
+            }
+        }
+        return plan.stream()
+                .filter(row -> aliases.contains(String.valueOf(row.get("table"))))
+                .toList();
+    }
+
+    public static String describe(List<Map<String, Object>> plan) {
+        StringBuilder description = new StringBuilder();
+        for (Map<String, Object> row : plan) {
+            description.append(String.format("%n  table=%s type=%s key=%s rows=%s extra=%s",
+                    row.get("table"), row.get("type"), row.get("key"), row.get("rows"), row.get("Extra")));
+        }
+        return description.toString();
+    }
+}